@@ -0,0 +1,44 @@
+package com.chompchompfig.store.domain;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the SnowflakeIdGenerator, both uncontended and with several threads hammering the same
+ * instance, as it would happen with concurrent requests on a single node. System.nanoTime(), which was used to mint
+ * identifiers before, is measured too as a baseline
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdGeneratorBenchmark {
+
+    private SnowflakeIdGenerator idGenerator;
+
+    @Setup
+    public void setUp() {
+        idGenerator = new SnowflakeIdGenerator(0);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long nanoTimeBaseline() {
+        return System.nanoTime();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long nextIdUncontended() {
+        return idGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long nextIdContended() {
+        return idGenerator.nextId();
+    }
+}
@@ -0,0 +1,98 @@
+package com.chompchompfig.store.domain;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Measures parsing and formatting of the composite identifiers. Identifiers are parsed out of the URI of every request
+ * on a single Rental or Payment, and formatted into every link of every resource representation. The split and concat
+ * benchmarks keep the former regular expression split parsing and String concatenation formatting around as a
+ * baseline. Run them with the gc profiler to compare the bytes allocated per operation (gc.alloc.rate.norm)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdParsingBenchmark {
+
+    private static final Pattern SEPARATOR = Pattern.compile("\\.");
+
+    private String rentalIdString;
+    private String paymentIdString;
+    private String rentalItemIdString;
+    private RentalId rentalId;
+    private PaymentId paymentId;
+    private RentalItemId rentalItemId;
+
+    @Setup
+    public void setUp() {
+        IdGenerator idGenerator = new SnowflakeIdGenerator(0);
+        rentalId = new RentalId(1234l, idGenerator.nextId());
+        paymentId = new PaymentId(rentalId.getCustomerId(), rentalId.getId(), idGenerator.nextId());
+        rentalItemId = new RentalItemId(rentalId.getCustomerId(), rentalId.getId(), idGenerator.nextId());
+        rentalIdString = rentalId.toString();
+        paymentIdString = paymentId.toString();
+        rentalItemIdString = rentalItemId.toString();
+    }
+
+    @Benchmark
+    public RentalId parseRentalId() {
+        return RentalId.from(rentalIdString);
+    }
+
+    @Benchmark
+    public PaymentId parsePaymentId() {
+        return PaymentId.from(paymentIdString);
+    }
+
+    @Benchmark
+    public RentalItemId parseRentalItemId() {
+        return RentalItemId.from(rentalItemIdString);
+    }
+
+    @Benchmark
+    public RentalId parseRentalIdWithSplit() {
+        String[] parts = SEPARATOR.split(rentalIdString);
+        return new RentalId(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+    }
+
+    @Benchmark
+    public PaymentId parsePaymentIdWithSplit() {
+        String[] parts = SEPARATOR.split(paymentIdString);
+        return new PaymentId(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+    }
+
+    @Benchmark
+    public String formatRentalId() {
+        return rentalId.toString();
+    }
+
+    @Benchmark
+    public String formatPaymentId() {
+        return paymentId.toString();
+    }
+
+    @Benchmark
+    public String formatRentalIdUncached() {
+        return CompositeIds.format(rentalId.getCustomerId(), rentalId.getId());
+    }
+
+    @Benchmark
+    public String formatPaymentIdUncached() {
+        return CompositeIds.format(paymentId.getCustomerId(), paymentId.getRentalId(), paymentId.getId());
+    }
+
+    @Benchmark
+    public String formatRentalIdWithConcat() {
+        return rentalId.getCustomerId() + "." + rentalId.getId();
+    }
+
+    @Benchmark
+    public String formatPaymentIdWithConcat() {
+        return paymentId.getCustomerId() + "." + paymentId.getRentalId() + "." + paymentId.getId();
+    }
+}
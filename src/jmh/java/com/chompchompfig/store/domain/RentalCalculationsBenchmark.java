@@ -0,0 +1,76 @@
+package com.chompchompfig.store.domain;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the price, surcharge and bonus points calculations of Rentals with a growing number of Films. These run
+ * whenever a Rental is created, modified, paid or returned. Prices are measured with both the category based and the
+ * precomputed RentalPriceCalculatorService
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RentalCalculationsBenchmark {
+
+    public static final int RENTAL_DAYS = 3;
+    public static final int DAYS_OVERDUE = 4;
+    private static final FilmCategory[] FILM_CATEGORIES = FilmCategory.values();
+
+    @Param({"1", "10", "100"})
+    private int filmsInRental;
+    private Rental rental;
+    private CategoryBasedRentalPriceCalculatorService rentalPriceCalculatorService;
+    private PrecomputedRentalPriceCalculatorService precomputedRentalPriceCalculatorService;
+    private SimpleBonusPointsCalculatorService bonusPointsCalculatorService;
+
+    @Setup
+    public void setUp() {
+        SimpleFixtureFactory fixtureFactory = new SimpleFixtureFactory();
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < filmsInRental; i++) {
+            films.add(fixtureFactory.newFilmOfCategory((long) i, "Film " + i,
+                    FILM_CATEGORIES[i % FILM_CATEGORIES.length]));
+        }
+        rental = fixtureFactory.newCustomer().rent(RENTAL_DAYS, films);
+        LocalDate rentalStartDate = LocalDate.now().minusDays(RENTAL_DAYS + DAYS_OVERDUE);
+        rental.setRentalStartDate(Date.from(rentalStartDate.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        rentalPriceCalculatorService = new CategoryBasedRentalPriceCalculatorService();
+        precomputedRentalPriceCalculatorService = new PrecomputedRentalPriceCalculatorService();
+        bonusPointsCalculatorService = new SimpleBonusPointsCalculatorService();
+    }
+
+    @Benchmark
+    public long getPrice() {
+        return rentalPriceCalculatorService.getPrice(rental);
+    }
+
+    @Benchmark
+    public long getSurchargePrice() {
+        return rentalPriceCalculatorService.getSurchargePrice(rental);
+    }
+
+    @Benchmark
+    public long getPricePrecomputed() {
+        return precomputedRentalPriceCalculatorService.getPrice(rental);
+    }
+
+    @Benchmark
+    public long getSurchargePricePrecomputed() {
+        return precomputedRentalPriceCalculatorService.getSurchargePrice(rental);
+    }
+
+    @Benchmark
+    public Long getBonusPointsForRental() {
+        return bonusPointsCalculatorService.getBonusPointsForRental(rental);
+    }
+}
@@ -0,0 +1,52 @@
+package com.chompchompfig.store.domain;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the modification of Rentals with a growing number of Films. Every invocation replaces all the Films in the
+ * Rental, switching back and forth between two disjoint selections of Films
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RentalModifyBenchmark {
+
+    public static final int RENTAL_DAYS = 3;
+
+    @Param({"10", "100", "1000"})
+    private int filmsInRental;
+    private Rental rental;
+    private List<Film> someFilms;
+    private List<Film> otherFilms;
+    private boolean useSomeFilms;
+
+    @Setup
+    public void setUp() {
+        SimpleFixtureFactory fixtureFactory = new SimpleFixtureFactory();
+        someFilms = newFilms(fixtureFactory, 0);
+        otherFilms = newFilms(fixtureFactory, filmsInRental);
+        rental = fixtureFactory.newCustomer().rent(RENTAL_DAYS, someFilms);
+    }
+
+    private List<Film> newFilms(SimpleFixtureFactory fixtureFactory, int firstFilmId) {
+        List<Film> films = new ArrayList<>();
+        for (int i = firstFilmId; i < firstFilmId + filmsInRental; i++) {
+            films.add(fixtureFactory.newFilmOfCategory((long) i, "Film " + i, FilmCategory.REGULAR));
+        }
+        return films;
+    }
+
+    @Benchmark
+    public Rental modify() {
+        useSomeFilms = !useSomeFilms;
+        rental.modify(RENTAL_DAYS, useSomeFilms ? someFilms : otherFilms);
+        return rental;
+    }
+}
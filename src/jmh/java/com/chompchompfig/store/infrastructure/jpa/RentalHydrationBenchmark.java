@@ -0,0 +1,94 @@
+package com.chompchompfig.store.infrastructure.jpa;
+
+import com.chompchompfig.store.domain.Customer;
+import com.chompchompfig.store.domain.Film;
+import com.chompchompfig.store.domain.Rental;
+import com.chompchompfig.store.domain.RentalId;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures hydrating Rentals, in a single Hibernate session reused by every operation and cleared before each, so that
+ * neither Spring Data nor opening sessions and transactions is measured. {@link #query()} loads every Rental out of the
+ * embedded database, which includes reading the rows from H2. {@link #instantiate(Blackhole)} only instantiates as many
+ * Rentals through their entity persister, the way Hibernate does for every row it loads, so it measures what the no-arg
+ * constructor of Rental allocates without the noise of the query. Compare gc.alloc.rate.norm, the bytes allocated per
+ * operation, between releases, and only take differences larger than its error as real
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class RentalHydrationBenchmark {
+
+    public static final int RENTAL_DAYS = 3;
+    public static final String ALL_RENTALS_QUERY = "select r from Rental r";
+    private static final List<Long> SAMPLE_CUSTOMER_IDS = Arrays.asList(1l, 2l, 3l);
+    private static final List<Long> SAMPLE_AVAILABLE_FILM_IDS = Arrays.asList(1l, 2l, 3l);
+
+    @Param({"1000", "10000"})
+    private int rentals;
+    private ConfigurableApplicationContext applicationContext;
+    private Session session;
+    private EntityPersister rentalPersister;
+    private RentalId[] rentalIds;
+
+    @Setup
+    public void setUp() {
+        SpringApplication application = new SpringApplication(JpaContextConfiguration.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        applicationContext = application.run("--spring.datasource.generate-unique-name=true",
+                "--logging.level.org.hibernate.SQL=INFO",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO");
+        List<Customer> customers = applicationContext.getBean(CustomerRepository.class)
+                .findAllById(SAMPLE_CUSTOMER_IDS);
+        List<Film> films = applicationContext.getBean(FilmRepository.class)
+                .findAllByIdCached(SAMPLE_AVAILABLE_FILM_IDS);
+        List<Rental> newRentals = new ArrayList<>();
+        for (int i = 0; i < rentals; i++) {
+            newRentals.add(new Rental(customers.get(i % customers.size()), RENTAL_DAYS, films));
+        }
+        applicationContext.getBean(RentalRepository.class).saveAll(newRentals);
+        rentalIds = newRentals.stream().map(Rental::getId).toArray(RentalId[]::new);
+
+        SessionFactoryImplementor sessionFactory = applicationContext.getBean(EntityManagerFactory.class)
+                .unwrap(SessionFactoryImplementor.class);
+        session = sessionFactory.openSession();
+        rentalPersister = sessionFactory.getMetamodel().entityPersister(Rental.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        session.close();
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public List<Rental> query() {
+        session.clear();
+        return session.createQuery(ALL_RENTALS_QUERY, Rental.class).getResultList();
+    }
+
+    @Benchmark
+    public void instantiate(Blackhole blackhole) {
+        SessionImplementor sessionImplementor = (SessionImplementor) session;
+        for (RentalId rentalId : rentalIds) {
+            blackhole.consume(rentalPersister.instantiate(rentalId, sessionImplementor));
+        }
+    }
+}
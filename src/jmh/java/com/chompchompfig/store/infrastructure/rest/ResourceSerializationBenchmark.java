@@ -0,0 +1,87 @@
+package com.chompchompfig.store.infrastructure.rest;
+
+import com.chompchompfig.store.domain.Customer;
+import com.chompchompfig.store.domain.FilmCategory;
+import com.chompchompfig.store.domain.Rental;
+import com.chompchompfig.store.domain.SimpleFixtureFactory;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.Resources;
+import org.springframework.hateoas.UriTemplate;
+import org.springframework.hateoas.core.AnnotationRelProvider;
+import org.springframework.hateoas.hal.DefaultCurieProvider;
+import org.springframework.hateoas.hal.Jackson2HalModule;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures building and serializing the HAL representations of Rentals and Customers, the way the controllers do on
+ * every request. Links are built against a mock request bound to the benchmark thread. A page of Rentals, as served by
+ * GET /store/rentals, is built against a new request every time, like it would be for every request to that endpoint
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResourceSerializationBenchmark {
+
+    public static final int RENTALS_PAGE_SIZE = 20;
+
+    private ObjectMapper objectMapper;
+    private Customer customer;
+    private List<Rental> rentalsPage;
+
+    @Setup
+    public void setUp() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        objectMapper = new ObjectMapper();
+        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        objectMapper.registerModule(new Jackson2HalModule());
+        objectMapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(new AnnotationRelProvider(),
+                new DefaultCurieProvider("ex", new UriTemplate("/docs/rel_{rel}.html")), null));
+        SimpleFixtureFactory fixtureFactory = new SimpleFixtureFactory();
+        customer = fixtureFactory.newCustomerWithRentalWithItems(SimpleFixtureFactory.CUSTOMER_ID,
+                SimpleFixtureFactory.CUSTOMER_FIRST_NAME, SimpleFixtureFactory.CUSTOMER_LAST_NAME,
+                SimpleFixtureFactory.CUSTOMER_PHONE_NUMBER, SimpleFixtureFactory.RENTAL_ID,
+                SimpleFixtureFactory.RENTAL_DAYS, fixtureFactory.newFilmOfCategory(SimpleFixtureFactory.FILM_ID_1,
+                        SimpleFixtureFactory.FILM_NAME_1, FilmCategory.NEW));
+        Customer pageCustomer = fixtureFactory.newCustomer();
+        rentalsPage = new ArrayList<>();
+        for (int i = 0; i < RENTALS_PAGE_SIZE; i++) {
+            rentalsPage.add(pageCustomer.rent(SimpleFixtureFactory.RENTAL_DAYS, fixtureFactory.newFilms()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public String serializeRentalResource() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(new RentalResource(customer.getRentals().get(0)));
+    }
+
+    @Benchmark
+    public String serializeCustomerResource() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(new CustomerResource(customer));
+    }
+
+    @Benchmark
+    public String serializeRentalsPage() throws JsonProcessingException {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        Resources<RentalResource> rentalResources =
+                new Resources<>(rentalsPage.stream().map(RentalResource::new).collect(Collectors.toList()));
+        return objectMapper.writeValueAsString(rentalResources);
+    }
+}
@@ -1,12 +1,15 @@
 package com.chompchompfig.store;
 
+import com.chompchompfig.store.infrastructure.jpa.SqlStatisticsConfiguration;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
 import org.springframework.hateoas.UriTemplate;
 import org.springframework.hateoas.hal.CurieProvider;
 import org.springframework.hateoas.hal.DefaultCurieProvider;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import springfox.documentation.builders.PathSelectors;
@@ -21,8 +24,10 @@ import java.util.Collections;
 
 @SpringBootApplication
 @EnableSwagger2
+@EnableScheduling
 @ComponentScan({"com.chompchompfig.store.infrastructure.rest", "com.chompchompfig.store.domain",
 		"com.chompchompfig.store.application"})
+@Import(SqlStatisticsConfiguration.class)
 public class StoreApplication {
 
 	public static final String CONTACT_URL = "https://www.thetractorbeamhasyou.com";
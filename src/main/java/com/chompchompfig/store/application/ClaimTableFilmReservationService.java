@@ -0,0 +1,72 @@
+package com.chompchompfig.store.application;
+
+import com.chompchompfig.store.domain.FilmReservationService;
+import com.chompchompfig.store.infrastructure.jpa.FilmRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * A FilmReservationService keeping an in memory table with the Films being claimed by the transactions in flight on
+ * this node. Conflicting claims on the same node are resolved right away in the table, without even reaching the
+ * database. Claims that make it through the table are then confirmed in the database with conditional updates, which
+ * settles conflicts with claims coming from other nodes. Films are released from the table once the transaction that
+ * claimed them completes, either committing or rolling back
+ * @see FilmReservationService
+ */
+@Service
+public class ClaimTableFilmReservationService implements FilmReservationService {
+
+    public static final String NO_TRANSACTION_MESSAGE = "Films can only be claimed within a transaction";
+
+    private final Set<Long> claimedFilmIds = ConcurrentHashMap.newKeySet();
+    @Autowired
+    private FilmRepository filmRepository;
+
+    /**
+     * @see FilmReservationService#claim(Collection)
+     */
+    @Override
+    public List<Long> claim(Collection<Long> filmIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException(NO_TRANSACTION_MESSAGE);
+        }
+        List<Long> filmIdsClaimed = new ArrayList<>();
+        List<Long> filmIdsLost = new ArrayList<>();
+        for (Long filmId : new TreeSet<>(filmIds)) {
+            if (claimedFilmIds.add(filmId)) {
+                filmIdsClaimed.add(filmId);
+            } else {
+                filmIdsLost.add(filmId);
+            }
+        }
+        if (!filmIdsLost.isEmpty()) {
+            claimedFilmIds.removeAll(filmIdsClaimed);
+            return filmIdsLost;
+        }
+        releaseOnCompletion(filmIdsClaimed);
+        return filmRepository.claimAvailable(filmIdsClaimed);
+    }
+
+    /**
+     * @see FilmReservationService#findClaimed(Collection)
+     */
+    @Override
+    public List<Long> findClaimed(Collection<Long> filmIds) {
+        return filmIds.stream().filter(claimedFilmIds::contains).collect(Collectors.toList());
+    }
+
+    private void releaseOnCompletion(List<Long> filmIds) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                claimedFilmIds.removeAll(filmIds);
+            }
+        });
+    }
+}
@@ -0,0 +1,181 @@
+package com.chompchompfig.store.application;
+
+import com.chompchompfig.store.domain.Film;
+import com.chompchompfig.store.domain.FilmAvailabilityChanged;
+import com.chompchompfig.store.domain.FilmCategory;
+import com.chompchompfig.store.infrastructure.jpa.FilmRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in memory index of the identifiers of the Films in the inventory, by Category and availability, so that finding
+ * the Films available for renting doesn't require a query. Film identifiers are kept in a pair of BitSets per Category,
+ * one for the available Films and another one for the unavailable ones, so pages of identifiers are found by seeking
+ * from a cursor straight to the next bit set. The index is loaded from the FilmRepository once the application starts,
+ * and kept in sync with the {@link FilmAvailabilityChanged} events raised by Films, once their transactions commit.
+ * Film identifiers come from a database sequence, so they are expected to fit in an int
+ */
+@Component
+public class FilmAvailabilityIndex {
+
+    private final BitSet[] availableFilmIds = newBitSetPerCategory();
+    private final BitSet[] unavailableFilmIds = newBitSetPerCategory();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    @Autowired
+    private FilmRepository filmRepository;
+
+    /**
+     * Loads the index again with every Film in the FilmRepository
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void rebuild() {
+        rebuild(filmRepository.findAll());
+    }
+
+    /**
+     * Loads the index again with the given Films, dropping whatever it held
+     * @param films <p>every Film in the inventory</p>
+     */
+    void rebuild(Collection<Film> films) {
+        lock.writeLock().lock();
+        try {
+            for (FilmCategory category : FilmCategory.values()) {
+                availableFilmIds[category.ordinal()].clear();
+                unavailableFilmIds[category.ordinal()].clear();
+            }
+            films.forEach(f -> index(f.getId(), f.getCategory(), f.isAvailable()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Updates the index with the new availability of a Film, once the transaction which changed it commits. Changes
+     * made outside any transaction are applied right away
+     * @param filmAvailabilityChanged <p>the event raised by the Film whose availability changed</p>
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmAvailabilityChanged(FilmAvailabilityChanged filmAvailabilityChanged) {
+        lock.writeLock().lock();
+        try {
+            index(filmAvailabilityChanged.getFilmId(), filmAvailabilityChanged.getCategory(),
+                    filmAvailabilityChanged.isAvailable());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(Long filmId, FilmCategory category, boolean isAvailable) {
+        int bitIndex = Math.toIntExact(filmId);
+        availableFilmIds[category.ordinal()].set(bitIndex, isAvailable);
+        unavailableFilmIds[category.ordinal()].set(bitIndex, !isAvailable);
+    }
+
+    /**
+     * Finds the identifiers of the Films with the given availability and Category, which come right after the given
+     * identifier, in ascending order
+     * @param isAvailable <ul><li>True, to find the available Films</li><li>False, to find the unavailable ones</li>
+     *                    <li>Null, to find both</li></ul>
+     * @param category <p>the Category of the Films to find, or null to find Films of every Category</p>
+     * @param after <p>the identifier to seek from, or null to start from the first Film</p>
+     * @param maxFilmIds <p>the maximum number of identifiers to find</p>
+     * @return <p>the identifiers of the Films found</p>
+     */
+    public List<Long> findFilmIdsAfter(Boolean isAvailable, FilmCategory category, Long after, int maxFilmIds) {
+        List<Long> filmIds = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            List<BitSet> filmIdSets = getFilmIdSets(isAvailable, category);
+            long fromFilmId = after == null ? 0 : Math.max(after, -1) + 1;
+            int bitIndex = nextSetBit(filmIdSets, (int) Math.min(fromFilmId, Integer.MAX_VALUE));
+            while (bitIndex >= 0 && filmIds.size() < maxFilmIds) {
+                filmIds.add((long) bitIndex);
+                bitIndex = nextSetBit(filmIdSets, bitIndex + 1);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return filmIds;
+    }
+
+    /**
+     * Finds the identifiers of the Films with the given availability and Category, which come right before the given
+     * identifier, in descending order
+     * @param isAvailable <ul><li>True, to find the available Films</li><li>False, to find the unavailable ones</li>
+     *                    <li>Null, to find both</li></ul>
+     * @param category <p>the Category of the Films to find, or null to find Films of every Category</p>
+     * @param before <p>the identifier to seek from</p>
+     * @param maxFilmIds <p>the maximum number of identifiers to find</p>
+     * @return <p>the identifiers of the Films found</p>
+     */
+    public List<Long> findFilmIdsBefore(Boolean isAvailable, FilmCategory category, Long before, int maxFilmIds) {
+        List<Long> filmIds = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            List<BitSet> filmIdSets = getFilmIdSets(isAvailable, category);
+            long fromFilmId = Math.min(before, Integer.MAX_VALUE) - 1;
+            int bitIndex = previousSetBit(filmIdSets, (int) Math.max(fromFilmId, -1));
+            while (bitIndex >= 0 && filmIds.size() < maxFilmIds) {
+                filmIds.add((long) bitIndex);
+                bitIndex = previousSetBit(filmIdSets, bitIndex - 1);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return filmIds;
+    }
+
+    private List<BitSet> getFilmIdSets(Boolean isAvailable, FilmCategory category) {
+        List<BitSet> filmIdSets = new ArrayList<>();
+        for (FilmCategory filmCategory : FilmCategory.values()) {
+            if (category == null || category == filmCategory) {
+                if (isAvailable == null || isAvailable) {
+                    filmIdSets.add(availableFilmIds[filmCategory.ordinal()]);
+                }
+                if (isAvailable == null || !isAvailable) {
+                    filmIdSets.add(unavailableFilmIds[filmCategory.ordinal()]);
+                }
+            }
+        }
+        return filmIdSets;
+    }
+
+    private static int nextSetBit(List<BitSet> filmIdSets, int fromIndex) {
+        int nextSetBit = -1;
+        for (BitSet filmIdSet : filmIdSets) {
+            int candidate = filmIdSet.nextSetBit(fromIndex);
+            if (candidate >= 0 && (nextSetBit < 0 || candidate < nextSetBit)) {
+                nextSetBit = candidate;
+            }
+        }
+        return nextSetBit;
+    }
+
+    private static int previousSetBit(List<BitSet> filmIdSets, int fromIndex) {
+        int previousSetBit = -1;
+        if (fromIndex >= 0) {
+            for (BitSet filmIdSet : filmIdSets) {
+                previousSetBit = Math.max(previousSetBit, filmIdSet.previousSetBit(fromIndex));
+            }
+        }
+        return previousSetBit;
+    }
+
+    private static BitSet[] newBitSetPerCategory() {
+        BitSet[] bitSets = new BitSet[FilmCategory.values().length];
+        for (int i = 0; i < bitSets.length; i++) {
+            bitSets[i] = new BitSet();
+        }
+        return bitSets;
+    }
+}
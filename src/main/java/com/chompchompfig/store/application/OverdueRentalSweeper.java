@@ -0,0 +1,106 @@
+package com.chompchompfig.store.application;
+
+import com.chompchompfig.store.domain.RentalId;
+import com.chompchompfig.store.domain.RentalStatus;
+import com.chompchompfig.store.infrastructure.jpa.RentalRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A background job finding the PAID Rentals which are overdue, and recording when they became overdue and the
+ * surcharges they have accrued, so that neither needs to be calculated when reading Rentals. Only the Rentals started
+ * early enough to be overdue are looked at, through the index on the status and start date of Rentals. Their
+ * identifiers are read in chunks, in ascending RentalId order. Every chunk, delimited by its first and last RentalIds,
+ * is then loaded and updated in a single transaction by a pool of threads, while the following chunk is read. A chunk
+ * failing, e.g. because one of its Rentals was returned at the same time, doesn't stop the others
+ */
+@Component
+public class OverdueRentalSweeper implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OverdueRentalSweeper.class);
+
+    @Autowired
+    private RentalRepository rentalRepository;
+    @Autowired
+    private VideoRentalService videoRentalService;
+    @Value("${store.overdue-sweeper.chunk-size:500}")
+    private int chunkSize;
+    private final ExecutorService executorService;
+
+    /**
+     * Creates a new OverdueRentalSweeper updating the given number of chunks at the same time
+     * @param parallelism <p>the number of chunks of Rentals updated at the same time</p>
+     */
+    @Autowired
+    public OverdueRentalSweeper(@Value("${store.overdue-sweeper.parallelism:2}") int parallelism) {
+        this.executorService = Executors.newFixedThreadPool(parallelism);
+    }
+
+    /**
+     * Finds all the PAID Rentals which are overdue today, and records their overdue status
+     * @return <p>the number of Rentals found overdue</p>
+     */
+    @Scheduled(cron = "${store.overdue-sweeper.cron:0 0 * * * *}")
+    public int sweep() {
+        return sweep(LocalDate.now());
+    }
+
+    /**
+     * Finds all the PAID Rentals which are overdue on the given date, and records their overdue status
+     * @param currentDate <p>the date to check the Rentals against</p>
+     * @return <p>the number of Rentals found overdue</p>
+     */
+    int sweep(LocalDate currentDate) {
+        // Rentals last at least one day, so those started the day before the current date can't be overdue yet
+        Date startedBefore = Date.from(currentDate.minusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        Pageable chunk = PageRequest.of(0, chunkSize);
+        List<Future<Integer>> chunksUpdated = new ArrayList<>();
+        List<RentalId> rentalIds = rentalRepository.findIdsStartedBefore(RentalStatus.PAID, startedBefore, chunk);
+        while (!rentalIds.isEmpty()) {
+            RentalId firstRentalId = rentalIds.get(0);
+            RentalId lastRentalId = rentalIds.get(rentalIds.size() - 1);
+            chunksUpdated.add(executorService.submit(() -> videoRentalService.updateOverdueRentals(firstRentalId,
+                    lastRentalId, startedBefore, currentDate)));
+            rentalIds = rentalIds.size() < chunkSize ? new ArrayList<>() :
+                    rentalRepository.findIdsStartedBeforeAfter(RentalStatus.PAID, startedBefore, lastRentalId, chunk);
+        }
+        return sumOverdueRentals(chunksUpdated);
+    }
+
+    private int sumOverdueRentals(List<Future<Integer>> chunksUpdated) {
+        int overdueRentals = 0;
+        for (Future<Integer> chunkUpdated : chunksUpdated) {
+            try {
+                overdueRentals += chunkUpdated.get();
+            } catch (ExecutionException ee) {
+                LOGGER.warn("Can't update the overdue status of a chunk of Rentals", ee.getCause());
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return overdueRentals;
+    }
+
+    @Override
+    public void destroy() {
+        executorService.shutdownNow();
+    }
+}
@@ -0,0 +1,162 @@
+package com.chompchompfig.store.application;
+
+import com.chompchompfig.store.domain.Payment;
+import com.chompchompfig.store.domain.PaymentId;
+import com.chompchompfig.store.domain.PaymentRequest;
+import com.chompchompfig.store.domain.PaymentRequestStatus;
+import com.chompchompfig.store.infrastructure.jpa.PaymentRequestRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.OptimisticLockException;
+import java.util.ConcurrentModificationException;
+import java.util.concurrent.*;
+
+/**
+ * Performs the Payments requested with an idempotency key, either right away in the calling thread, or asynchronously
+ * by a pool of workers. Every worker is a single thread with its own bounded queue, and all the requests for the
+ * Payments of the same Rental go to the same worker, so that they are processed one after the other, in the order they
+ * were submitted, instead of racing each other for the Rental. A request is rejected, rather than queued, when the
+ * queue of its worker is full. The requests left PENDING when the application was last stopped are resubmitted once it
+ * is ready. A request losing an optimistic locking race, whether while performing the Payment or when committing it,
+ * is forgotten rather than recorded as FAILED, so that it can be retried with the same key
+ */
+@Component
+public class PaymentRequestProcessor implements DisposableBean {
+
+    public static final String QUEUE_FULL_MESSAGE = "Too many Payments waiting to be performed. Please retry later";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PaymentRequestProcessor.class);
+
+    @Autowired
+    private PaymentRequestService paymentRequestService;
+    @Autowired
+    private PaymentRequestRepository paymentRequestRepository;
+    private final ExecutorService[] workers;
+
+    /**
+     * Creates a new PaymentRequestProcessor with the given number of workers
+     * @param workers <p>the number of workers, which is the number of Payments performed at the same time</p>
+     * @param queueCapacity <p>the number of requests which may be waiting for every worker</p>
+     */
+    @Autowired
+    public PaymentRequestProcessor(@Value("${store.payments.workers:4}") int workers,
+                                   @Value("${store.payments.queue-capacity:100}") int queueCapacity) {
+        this.workers = new ExecutorService[workers];
+        for (int worker = 0; worker < workers; worker++) {
+            this.workers[worker] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity));
+        }
+    }
+
+    /**
+     * Performs the Payment requested with the given idempotency key in the calling thread, unless it was already
+     * requested with the same key, in which case the outcome of that request is given instead
+     * @param idempotencyKey <p>the key identifying the request, as sent by the client</p>
+     * @param paymentId <p>the identifier of the Payment to perform</p>
+     * @return <p>the Payment performed</p>
+     * @throws ConcurrentModificationException <p>in case the Payment is still being performed for an earlier request
+     * with the same key</p>
+     * @see PaymentRequestService#register(String, PaymentId)
+     * @see PaymentRequestService#replay(PaymentRequest)
+     */
+    public Payment perform(String idempotencyKey, PaymentId paymentId) {
+        PaymentRequest paymentRequest = paymentRequestService.register(idempotencyKey, paymentId);
+        if (!paymentRequest.isNew()) {
+            return paymentRequestService.replay(paymentRequest);
+        }
+        return process(idempotencyKey);
+    }
+
+    /**
+     * Queues the Payment requested with the given idempotency key, to be performed by a worker, unless it was already
+     * requested with the same key
+     * @param idempotencyKey <p>the key identifying the request, as sent by the client</p>
+     * @param paymentId <p>the identifier of the Payment to perform</p>
+     * @return <p>the PaymentRequest, PENDING if just queued</p>
+     * @throws RejectedExecutionException <p>in case the queue of the worker is full, in which case the request is
+     * forgotten, so that it can be retried with the same key</p>
+     * @see PaymentRequestService#register(String, PaymentId)
+     */
+    public PaymentRequest submit(String idempotencyKey, PaymentId paymentId) {
+        PaymentRequest paymentRequest = paymentRequestService.register(idempotencyKey, paymentId);
+        if (paymentRequest.isNew()) {
+            try {
+                enqueue(paymentRequest);
+            } catch (RejectedExecutionException ree) {
+                paymentRequestService.forget(idempotencyKey);
+                throw new RejectedExecutionException(QUEUE_FULL_MESSAGE, ree);
+            }
+        }
+        return paymentRequest;
+    }
+
+    /**
+     * Resubmits the PaymentRequests left PENDING when the application was last stopped
+     * @return <p>the number of PaymentRequests resubmitted</p>
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public int resubmitPending() {
+        int resubmitted = 0;
+        for (PaymentRequest paymentRequest : paymentRequestRepository.findByStatus(PaymentRequestStatus.PENDING)) {
+            try {
+                enqueue(paymentRequest);
+                resubmitted++;
+            } catch (RejectedExecutionException ree) {
+                LOGGER.warn("Can't resubmit the Payment request {}", paymentRequest.getIdempotencyKey(), ree);
+            }
+        }
+        return resubmitted;
+    }
+
+    private void enqueue(PaymentRequest paymentRequest) {
+        String idempotencyKey = paymentRequest.getIdempotencyKey();
+        workerFor(paymentRequest.getPaymentId()).execute(() -> {
+            try {
+                process(idempotencyKey);
+            } catch (RuntimeException re) {
+                LOGGER.info("Can't perform the Payment requested with key {}: {}", idempotencyKey, re.toString());
+            }
+        });
+    }
+
+    private ExecutorService workerFor(PaymentId paymentId) {
+        int rentalHash = 31 * paymentId.getCustomerId().hashCode() + paymentId.getRentalId().hashCode();
+        return workers[Math.floorMod(rentalHash, workers.length)];
+    }
+
+    private Payment process(String idempotencyKey) {
+        try {
+            return paymentRequestService.process(idempotencyKey);
+        } catch (RuntimeException re) {
+            try {
+                if (isOptimisticLockingFailure(re)) {
+                    paymentRequestService.forget(idempotencyKey);
+                } else {
+                    paymentRequestService.fail(idempotencyKey, re);
+                }
+            } catch (RuntimeException failure) {
+                re.addSuppressed(failure);
+            }
+            throw re;
+        }
+    }
+
+    private boolean isOptimisticLockingFailure(RuntimeException re) {
+        return re instanceof OptimisticLockingFailureException || re instanceof OptimisticLockException;
+    }
+
+    @Override
+    public void destroy() {
+        for (ExecutorService worker : workers) {
+            worker.shutdownNow();
+        }
+    }
+}
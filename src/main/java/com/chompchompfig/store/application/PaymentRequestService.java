@@ -0,0 +1,134 @@
+package com.chompchompfig.store.application;
+
+import com.chompchompfig.store.domain.Payment;
+import com.chompchompfig.store.domain.PaymentId;
+import com.chompchompfig.store.domain.PaymentRequest;
+import com.chompchompfig.store.infrastructure.jpa.PaymentRepository;
+import com.chompchompfig.store.infrastructure.jpa.PaymentRequestRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import javax.transaction.Transactional;
+import java.util.ConcurrentModificationException;
+import java.util.Optional;
+
+/**
+ * A Service keeping track of the PaymentRequests made with an idempotency key. A PaymentRequest is registered in its
+ * own transaction before its Payment is performed, so that retries find it no matter how long the Payment takes. The
+ * Payment is then performed, and the PaymentRequest marked as DONE, in a single transaction, so that either both or
+ * none are committed
+ */
+@Service
+public class PaymentRequestService {
+
+    public static final String IDEMPOTENCY_KEY_REUSED_MESSAGE =
+            "The supplied idempotency key was already used to perform a different Payment :";
+    public static final String PAYMENT_REQUEST_IN_PROGRESS_MESSAGE =
+            "The Payment requested with the supplied idempotency key is still being performed :";
+
+    @Autowired
+    private PaymentRequestRepository paymentRequestRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private VideoRentalService videoRentalService;
+
+    /**
+     * Registers a request to perform a Payment with the given idempotency key, unless a request was already made with
+     * the same key, in which case that very request is returned. Out of the requests registered at the same time with
+     * the same key, only one gets to create the PaymentRequest, through the primary key on the idempotency key
+     * @param idempotencyKey <p>the key identifying the request, as sent by the client</p>
+     * @param paymentId <p>the identifier of the Payment to perform</p>
+     * @return <p>the PaymentRequest, which {@link PaymentRequest#isNew()} tells whether it was just created</p>
+     * @throws IllegalArgumentException <p>in case the idempotency key is invalid, or it was already used to request a
+     * different Payment</p>
+     */
+    public PaymentRequest register(String idempotencyKey, PaymentId paymentId) {
+        Optional<PaymentRequest> paymentRequest = paymentRequestRepository.findById(idempotencyKey);
+        if (!paymentRequest.isPresent()) {
+            try {
+                return paymentRequestRepository.saveAndFlush(new PaymentRequest(idempotencyKey, paymentId));
+            } catch (DataIntegrityViolationException dive) {
+                paymentRequest = paymentRequestRepository.findById(idempotencyKey);
+            }
+        }
+        PaymentRequest existingPaymentRequest = paymentRequest.get();
+        if (!existingPaymentRequest.getPaymentId().equals(paymentId)) {
+            throw new IllegalArgumentException(IDEMPOTENCY_KEY_REUSED_MESSAGE + existingPaymentRequest.getPaymentId());
+        }
+        return existingPaymentRequest;
+    }
+
+    /**
+     * Finds a PaymentRequest by its idempotency key
+     * @param idempotencyKey <p>the key identifying the request</p>
+     * @return <p>the PaymentRequest, if any was made with the given key</p>
+     */
+    public Optional<PaymentRequest> find(String idempotencyKey) {
+        return paymentRequestRepository.findById(idempotencyKey);
+    }
+
+    /**
+     * Performs the Payment of a PENDING PaymentRequest, and records that it is DONE
+     * @param idempotencyKey <p>the key identifying the request</p>
+     * @return <p>the Payment performed</p>
+     * @throws IllegalStateException <p>in case the PaymentRequest is no longer PENDING</p>
+     * @see VideoRentalService#performPayment(PaymentId)
+     */
+    @Transactional
+    public Payment process(String idempotencyKey) {
+        PaymentRequest paymentRequest = paymentRequestRepository.findById(idempotencyKey).get();
+        if (!paymentRequest.isPending()) {
+            throw new IllegalStateException(PaymentRequest.NOT_PENDING_MESSAGE + idempotencyKey);
+        }
+        Payment paymentPerformed = videoRentalService.performPayment(paymentRequest.getPaymentId());
+        paymentRequest.done();
+        return paymentPerformed;
+    }
+
+    /**
+     * Records the failure of a PENDING PaymentRequest, so that retries get the same failure. Failures which aren't due
+     * to the state of the Payment or its Rental aren't recorded. The PaymentRequest is removed instead, so that its
+     * idempotency key can be used to retry it
+     * @param idempotencyKey <p>the key identifying the request</p>
+     * @param exception <p>the exception the Payment failed with</p>
+     */
+    @Transactional
+    public void fail(String idempotencyKey, RuntimeException exception) {
+        paymentRequestRepository.findById(idempotencyKey).filter(PaymentRequest::isPending).ifPresent(p -> {
+            if (!p.fail(exception)) {
+                paymentRequestRepository.delete(p);
+            }
+        });
+    }
+
+    /**
+     * Removes a PENDING PaymentRequest, which won't be processed, so that its idempotency key can be used to retry it
+     * @param idempotencyKey <p>the key identifying the request</p>
+     */
+    @Transactional
+    public void forget(String idempotencyKey) {
+        paymentRequestRepository.findById(idempotencyKey).filter(PaymentRequest::isPending)
+                .ifPresent(paymentRequestRepository::delete);
+    }
+
+    /**
+     * Gets the outcome of a PaymentRequest made before, for a retry of the request
+     * @param paymentRequest <p>the PaymentRequest made before</p>
+     * @return <p>the Payment performed, in case the PaymentRequest is DONE</p>
+     * @throws RuntimeException <p>the same kind of exception the PaymentRequest failed with, in case it is FAILED</p>
+     * @throws ConcurrentModificationException <p>in case the PaymentRequest is still PENDING</p>
+     */
+    public Payment replay(PaymentRequest paymentRequest) {
+        switch (paymentRequest.getStatus()) {
+            case DONE:
+                return paymentRepository.findById(paymentRequest.getPaymentId()).get();
+            case FAILED:
+                throw paymentRequest.getFailure();
+            default:
+                throw new ConcurrentModificationException(PAYMENT_REQUEST_IN_PROGRESS_MESSAGE +
+                        paymentRequest.getPaymentId());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.chompchompfig.store.application;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.function.Supplier;
+
+/**
+ * A Service running the queries of the read only endpoints, together with the assembly of whatever they return, in a
+ * single read only transaction. The Entities loaded are read only, so Hibernate keeps no snapshots to dirty check them
+ * against, and the persistence context is never flushed. Lazy associations are meant to be loaded within the query,
+ * as the persistence context is closed along with the transaction, rather than kept open until the view is rendered
+ */
+@Service
+public class ReadOnlyQueryService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Runs the given query in a read only transaction. Queries run within a transaction which is not read only join
+     * it, leaving its persistence context as it is
+     * @param query <p>the query to run, which must not modify any Entity</p>
+     * @param <T> <p>the type of the result of the query</p>
+     * @return <p>the result of the query</p>
+     */
+    @Transactional(readOnly = true)
+    public <T> T query(Supplier<T> query) {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            Session session = entityManager.unwrap(Session.class);
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+        }
+        return query.get();
+    }
+}
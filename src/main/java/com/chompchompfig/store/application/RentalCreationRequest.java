@@ -0,0 +1,44 @@
+package com.chompchompfig.store.application;
+
+import java.util.List;
+
+/**
+ * A request to create a new Rental, as part of a batch of Rentals created all at once
+ * @see VideoRentalService#newRentals(List)
+ */
+public class RentalCreationRequest {
+
+    private final Long customerId;
+    private final Integer days;
+    private final List<Long> filmIds;
+
+    public RentalCreationRequest(Long customerId, Integer days, List<Long> filmIds) {
+        this.customerId = customerId;
+        this.days = days;
+        this.filmIds = filmIds;
+    }
+
+    /**
+     * Gets the identifier of the Customer for whom the Rental will be created
+     * @return <p>the Customer identifier</p>
+     */
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * Gets the expected duration of the Rental in days
+     * @return <p>the Rental duration in days</p>
+     */
+    public Integer getDays() {
+        return days;
+    }
+
+    /**
+     * Gets the identifiers of the Films the Customer wants to rent
+     * @return <p>the Film identifiers</p>
+     */
+    public List<Long> getFilmIds() {
+        return filmIds;
+    }
+}
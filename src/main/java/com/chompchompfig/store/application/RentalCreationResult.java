@@ -0,0 +1,75 @@
+package com.chompchompfig.store.application;
+
+import com.chompchompfig.store.domain.Rental;
+
+import java.util.List;
+
+/**
+ * The outcome of one of the requests in a batch of Rentals created all at once. This is, either the Rental created,
+ * or the reason why it could not be created
+ * @see VideoRentalService#newRentals(List)
+ */
+public class RentalCreationResult {
+
+    private final int index;
+    private final Rental rental;
+    private final String failureMessage;
+
+    private RentalCreationResult(int index, Rental rental, String failureMessage) {
+        this.index = index;
+        this.rental = rental;
+        this.failureMessage = failureMessage;
+    }
+
+    /**
+     * Creates the result of a request whose Rental was created successfully
+     * @param index <p>the position of the request in the batch</p>
+     * @param rental <p>the Rental created</p>
+     * @return <p>a successful result</p>
+     */
+    public static RentalCreationResult created(int index, Rental rental) {
+        return new RentalCreationResult(index, rental, null);
+    }
+
+    /**
+     * Creates the result of a request whose Rental could not be created
+     * @param index <p>the position of the request in the batch</p>
+     * @param failureMessage <p>the reason why the Rental could not be created</p>
+     * @return <p>a failed result</p>
+     */
+    public static RentalCreationResult failed(int index, String failureMessage) {
+        return new RentalCreationResult(index, null, failureMessage);
+    }
+
+    /**
+     * Gets the position in the batch of the request this is the result of
+     * @return <p>the position of the request in the batch</p>
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Checks whether the Rental was created successfully
+     * @return <ul><li>True, if the Rental was created</li><li>False otherwise</li></ul>
+     */
+    public boolean isCreated() {
+        return rental != null;
+    }
+
+    /**
+     * Gets the Rental created, if any
+     * @return <p>the Rental created, or null in case it could not be created</p>
+     */
+    public Rental getRental() {
+        return rental;
+    }
+
+    /**
+     * Gets the reason why the Rental could not be created, if any
+     * @return <p>the failure message, or null in case the Rental was created</p>
+     */
+    public String getFailureMessage() {
+        return failureMessage;
+    }
+}
@@ -0,0 +1,145 @@
+package com.chompchompfig.store.application;
+
+import com.chompchompfig.store.domain.RentalStatus;
+import com.chompchompfig.store.infrastructure.jpa.RentalRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.OptimisticLockException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The metrics of the Rental operations of the {@link VideoRentalService}. Every operation is timed, with a percentile
+ * histogram so that latency percentiles can be aggregated across instances, and tagged with its outcome. Failures are
+ * counted by their type, and Rental status transitions by their source and target statuses, once their transactions
+ * commit. The number of Rentals in every status is gauged straight from the RentalRepository whenever it is scraped
+ */
+@Component
+public class RentalMetrics {
+
+    public static final String OPERATIONS_TIMER = "store.rentals.operations";
+    public static final String FAILURES_COUNTER = "store.rentals.failures";
+    public static final String TRANSITIONS_COUNTER = "store.rentals.transitions";
+    public static final String RENTALS_GAUGE = "store.rentals";
+    public static final String NEW_RENTAL = "newRental";
+    public static final String NEW_RENTALS = "newRentals";
+    public static final String UPDATE_RENTAL = "updateRental";
+    public static final String RETURN_RENTAL = "returnRental";
+    public static final String PERFORM_PAYMENT = "performPayment";
+    public static final String SUCCESS_OUTCOME = "success";
+    public static final String FAILURE_OUTCOME = "failure";
+    public static final String OPTIMISTIC_LOCK_FAILURE = "OptimisticLock";
+    public static final String COMMIT_FAILURE = "CommitFailure";
+    public static final String NO_STATUS = "NONE";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    /**
+     * Registers a gauge of the number of Rentals for every RentalStatus
+     */
+    @PostConstruct
+    public void registerRentalGauges() {
+        for (RentalStatus status : RentalStatus.values()) {
+            Gauge.builder(RENTALS_GAUGE, rentalRepository, r -> r.countByStatus(status))
+                    .description("The number of Rentals in every status")
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Runs a Rental operation, timing it and counting its failure, if it fails. Failures are counted by the simple name
+     * of their exception, such as IllegalStateException or ConcurrentModificationException, except for optimistic
+     * locking failures, which are all counted alike. Failures which only happen when the transaction of the operation
+     * commits, typically optimistic locking failures of versions which are only checked then, are counted as commit
+     * failures, as their type is no longer known by the time the transaction rolls back. The time taken to commit is
+     * not part of the latency of the operation
+     * @param operation <p>the name of the operation</p>
+     * @param action <p>the operation itself</p>
+     * @param <T> <p>the type of the result of the operation</p>
+     * @return <p>the result of the operation</p>
+     */
+    public <T> T record(String operation, Supplier<T> action) {
+        long startTime = meterRegistry.config().clock().monotonicTime();
+        String outcome = FAILURE_OUTCOME;
+        try {
+            T result = action.get();
+            outcome = SUCCESS_OUTCOME;
+            countCommitFailure(operation);
+            return result;
+        } catch (RuntimeException re) {
+            countFailure(operation, failureOf(re));
+            throw re;
+        } finally {
+            Timer.builder(OPERATIONS_TIMER)
+                    .description("The latency of the Rental operations")
+                    .tags("operation", operation, "outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(meterRegistry.config().clock().monotonicTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Counts the transition of a Rental from a status into another, once the current transaction commits. Transitions
+     * made outside any transaction are counted right away. Nothing is counted if the status didn't change
+     * @param from <p>the status of the Rental before the transition, null for new Rentals</p>
+     * @param to <p>the status of the Rental after the transition</p>
+     */
+    public void recordTransition(RentalStatus from, RentalStatus to) {
+        if (from == to) {
+            return;
+        }
+        String fromTag = from == null ? NO_STATUS : from.name();
+        afterCommit(() -> meterRegistry.counter(TRANSITIONS_COUNTER, "from", fromTag, "to", to.name()).increment());
+    }
+
+    private void countCommitFailure(String operation) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == TransactionSynchronization.STATUS_ROLLED_BACK) {
+                        countFailure(operation, COMMIT_FAILURE);
+                    }
+                }
+            });
+        }
+    }
+
+    private void countFailure(String operation, String failure) {
+        meterRegistry.counter(FAILURES_COUNTER, "operation", operation, "exception", failure).increment();
+    }
+
+    private void afterCommit(Runnable runnable) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    runnable.run();
+                }
+            });
+        } else {
+            runnable.run();
+        }
+    }
+
+    private String failureOf(RuntimeException re) {
+        if (re instanceof OptimisticLockingFailureException || re instanceof OptimisticLockException) {
+            return OPTIMISTIC_LOCK_FAILURE;
+        }
+        return re.getClass().getSimpleName();
+    }
+}
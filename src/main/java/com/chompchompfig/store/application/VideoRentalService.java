@@ -6,12 +6,14 @@ import com.chompchompfig.store.infrastructure.jpa.FilmRepository;
 import com.chompchompfig.store.infrastructure.jpa.PaymentRepository;
 import com.chompchompfig.store.infrastructure.jpa.RentalRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * A Rental Service supporting the functionality of returning rentals, calculating surcharges, creating Payments,
@@ -20,6 +22,13 @@ import java.util.Optional;
 @Service
 public class VideoRentalService {
 
+    public static final String RENTAL_BATCH_TOO_LARGE_MESSAGE = "Too many Rentals in a single batch. The maximum is ";
+    public static final String INCOMPLETE_RENTAL_REQUEST_MESSAGE =
+            "Can't create a rental without a customerId, a number of days and some filmIds";
+    public static final String UNKNOWN_CUSTOMER_MESSAGE = "Can't create a rental for an unknown Customer :";
+    public static final String UNKNOWN_FILMS_MESSAGE =
+            "Can't create a rental with unknown Films. Please check Film ids :";
+
     @Autowired
     private PaymentRepository paymentRepository;
     @Autowired
@@ -28,22 +37,85 @@ public class VideoRentalService {
     private RentalRepository rentalRepository;
     @Autowired
     private CustomerRepository customerRepository;
+    @Autowired
+    private FilmReservationService filmReservationService;
+    @Autowired
+    private RentalMetrics rentalMetrics;
+    @Value("${store.rentals.max-batch-size:1000}")
+    private int maxBatchSize;
 
     /**
-     * Creates a new Rental for a Customer, renting a list of Films, for a given duration in days.
+     * Creates a new Rental for a Customer, renting a list of Films, for a given duration in days. The Rental is
+     * persisted on its own, without loading the Customer's rental history
      * @param customerId <p>the identifier of the Customer for whom we will create the Rental</p>
      * @param days <p>the expected duration of the Rental in days</p>
      * @param filmIds <p>a List of Film identifiers indicating the Films the Customer wants to rent</p>
      * @return <p>a new Rental for a List of Films and a Customer</p>
-     * @throws IllegalArgumentException <p>in case any of the requested Films is unavailable</p>
+     * @throws IllegalArgumentException <p>in case any of the requested Films is unavailable, or is being rented right
+     * now</p>
      */
     @Transactional
     public Rental newRental(Long customerId, int days, List<Long> filmIds) {
-        Optional<Customer> customer = customerRepository.findById(customerId);
-        List<Film> films = findAllFilmsByIds(filmIds);
-        Rental rental = customer.get().rent(days, films);
-        customerRepository.saveAndFlush(customer.get());
-        return rental;
+        return rentalMetrics.record(RentalMetrics.NEW_RENTAL, () -> {
+            List<Long> claimedFilmIds = filmReservationService.findClaimed(filmIds);
+            if (!claimedFilmIds.isEmpty()) {
+                throw new IllegalArgumentException(Rental.RENTAL_CREATION_FAILURE_MESSAGE + claimedFilmIds);
+            }
+            Customer customer = customerRepository.findById(customerId).get();
+            List<Film> films = findAllFilmsByIds(filmIds);
+            Rental rental = customer.rent(days, films);
+            Rental newRental = rentalRepository.saveAndFlush(rental);
+            rentalMetrics.recordTransition(null, rental.getStatus());
+            return newRental;
+        });
+    }
+
+    /**
+     * Creates many new Rentals at once, in a single transaction. Customers and Films are fetched upfront for the whole
+     * batch, and the Rentals, their items and their Payments are written with batched inserts in a single flush at
+     * the end. Every request is validated on its own. A request fails in case its Customer or any of its Films are
+     * unknown, or any of its Films is unavailable, being rented right now, or already rented by an earlier request of
+     * the same batch. Writing the Rentals of the valid requests, on the other hand, is all or nothing. Should the
+     * database reject any of them, the whole transaction is rolled back and the exception thrown, so that no Rental
+     * is reported as created unless it was actually written
+     * @param requests <p>the Rentals to create</p>
+     * @return <p>the outcome of every request, in the same order as the requests</p>
+     * @throws IllegalArgumentException <p>in case there are more requests than the maximum batch size</p>
+     * @throws org.springframework.dao.DataAccessException <p>in case the Rentals can't be written, in which case
+     * none is created</p>
+     */
+    @Transactional
+    public List<RentalCreationResult> newRentals(List<RentalCreationRequest> requests) {
+        return rentalMetrics.record(RentalMetrics.NEW_RENTALS, () -> {
+            if (requests.size() > maxBatchSize) {
+                throw new IllegalArgumentException(RENTAL_BATCH_TOO_LARGE_MESSAGE + maxBatchSize);
+            }
+            Set<Long> customerIds = requests.stream().map(RentalCreationRequest::getCustomerId)
+                    .filter(Objects::nonNull).collect(Collectors.toSet());
+            Set<Long> filmIds = requests.stream().map(RentalCreationRequest::getFilmIds).filter(Objects::nonNull)
+                    .flatMap(List::stream).filter(Objects::nonNull).collect(Collectors.toSet());
+            Map<Long, Customer> customers = new HashMap<>();
+            customerRepository.findAllById(customerIds).forEach(c -> customers.put(c.getId(), c));
+            Map<Long, Film> films = findAllFilmsByIds(new ArrayList<>(filmIds)).stream()
+                    .collect(Collectors.toMap(Film::getId, Function.identity()));
+            Set<Long> takenFilmIds = new HashSet<>(filmReservationService.findClaimed(filmIds));
+
+            List<RentalCreationResult> results = new ArrayList<>(requests.size());
+            List<Rental> rentals = new ArrayList<>(requests.size());
+            for (int index = 0; index < requests.size(); index++) {
+                try {
+                    Rental rental = newRental(requests.get(index), customers, films, takenFilmIds);
+                    rentals.add(rental);
+                    results.add(RentalCreationResult.created(index, rental));
+                } catch (IllegalArgumentException iae) {
+                    results.add(RentalCreationResult.failed(index, iae.getMessage()));
+                }
+            }
+            rentalRepository.saveAll(rentals);
+            rentalRepository.flush();
+            rentals.forEach(rental -> rentalMetrics.recordTransition(null, rental.getStatus()));
+            return results;
+        });
     }
 
     /**
@@ -59,29 +131,38 @@ public class VideoRentalService {
      */
     @Transactional
     public Rental updateRental(RentalId rentalId, int days, List<Long> filmIds) {
-        Rental rental= rentalRepository.findById(rentalId).get();
-        List<Film> films = findAllFilmsByIds(filmIds);
-        rental.modify(days, films);
-        Rental modifiedRental = rentalRepository.saveAndFlush(rental);
-        return modifiedRental;
+        return rentalMetrics.record(RentalMetrics.UPDATE_RENTAL, () -> {
+            Rental rental= rentalRepository.findForUpdateById(rentalId).get();
+            List<Film> films = findAllFilmsByIds(filmIds);
+            rental.modify(days, films);
+            Rental modifiedRental = rentalRepository.saveAndFlush(rental);
+            return modifiedRental;
+        });
     }
 
     /**
-     * Returns all the Films in a Rental for other Customers to rent
+     * Returns all the Films in a Rental for other Customers to rent. Rentals found overdue are left awaiting the
+     * payment of their surcharge, so the transaction is committed even when the return is rejected
      * @param rentalId <p>the RentalId of the Rental whose Films we would like to return to the store</p>
      * @throws IllegalStateException <p>in case the return can't be performed because the given Rental is not in the
      * RentalStatus.PAID state, which is mandatory for this operation</p>
      */
+    @Transactional(dontRollbackOn = IllegalStateException.class)
     public Rental returnRental(RentalId rentalId) {
-        Rental rental = rentalRepository.findById(rentalId).get();
-        try {
-            rental.returnAll();
-        } catch (IllegalStateException ise) {
-            rentalRepository.saveAndFlush(rental);
-            throw ise;
-        }
-        Rental returnedRental = rentalRepository.saveAndFlush(rental);
-        return returnedRental;
+        return rentalMetrics.record(RentalMetrics.RETURN_RENTAL, () -> {
+            Rental rental = rentalRepository.findById(rentalId).get();
+            RentalStatus previousStatus = rental.getStatus();
+            try {
+                rental.returnAll();
+            } catch (IllegalStateException ise) {
+                rentalRepository.saveAndFlush(rental);
+                rentalMetrics.recordTransition(previousStatus, rental.getStatus());
+                throw ise;
+            }
+            Rental returnedRental = rentalRepository.saveAndFlush(rental);
+            rentalMetrics.recordTransition(previousStatus, rental.getStatus());
+            return returnedRental;
+        });
     }
 
     /**
@@ -99,33 +180,95 @@ public class VideoRentalService {
      * @throws IllegalArgumentException <p>In case the Payment is in PaymentStatus.PENDING, but the associated Rental
      * is in an invalid state. This is, any state other than RentalStatus.AWAITING_PAYMENT or
      * RentalStatus.AWAITING_PAYMENT_OVERDUE</p>
+     * @throws ConcurrentModificationException <p>in case some of the Films in the Rental are no longer available, or
+     * are being rented by someone else right now. Films are claimed before anything else is done, so that conflicting
+     * Payments fail straight away</p>
      */
     @Transactional
     public Payment performPayment(PaymentId paymentId) {
-        Payment payment = paymentRepository.findById(paymentId).get();
-        payment.perform();
-        Payment paymentPerformed = paymentRepository.saveAndFlush(payment);
-        return paymentPerformed;
+        return rentalMetrics.record(RentalMetrics.PERFORM_PAYMENT, () -> {
+            Payment payment = paymentRepository.findById(paymentId).get();
+            RentalStatus previousStatus = payment.getRental().getStatus();
+            List<Long> filmIdsToRent = payment.getFilmIdsToRent();
+            if (!filmIdsToRent.isEmpty()) {
+                List<Long> lostFilmIds = filmReservationService.claim(filmIdsToRent);
+                if (!lostFilmIds.isEmpty()) {
+                    throw new ConcurrentModificationException(Payment.RENTAL_COMPLETION_FAILURE_MESSAGE + lostFilmIds);
+                }
+            }
+            payment.perform();
+            Payment paymentPerformed = paymentRepository.saveAndFlush(payment);
+            rentalMetrics.recordTransition(previousStatus, payment.getRental().getStatus());
+            return paymentPerformed;
+        });
     }
 
     /**
-     * Finds all the Films given a list of their identifiers
+     * Finds out which PAID Rentals, among those started before the given date with RentalIds in the given range, are
+     * overdue on the given date, and records when they became overdue and the surcharges they have accrued by then.
+     * The Rentals are loaded read-only in a single query, and their Items batch fetched, so a whole chunk of Rentals is
+     * checked at a time. Only the overdue columns of the Rentals found overdue are then written, and only as long as
+     * they are still PAID, so that a Rental returned in the meantime isn't put back into PAID
+     * @param from <p>the lowest RentalId to check</p>
+     * @param to <p>the highest RentalId to check</p>
+     * @param startedBefore <p>the date the Rentals to check must have started before</p>
+     * @param currentDate <p>the date to check the Rentals against</p>
+     * @return <p>the number of Rentals found overdue</p>
+     */
+    @Transactional
+    public int updateOverdueRentals(RentalId from, RentalId to, Date startedBefore, LocalDate currentDate) {
+        int overdueRentals = 0;
+        for (Rental rental : rentalRepository.findStartedBeforeBetween(RentalStatus.PAID, startedBefore, from, to)) {
+            if (rental.updateOverdueStatus(currentDate) && rentalRepository.updateOverdueStatus(rental.getId(),
+                    RentalStatus.PAID, rental.getOverdueSince(), rental.getOverdueSurcharge()) > 0) {
+                overdueRentals++;
+            }
+        }
+        return overdueRentals;
+    }
+
+    /**
+     * Finds all the Films given a list of their identifiers, straight from the second level cache when possible
      * @param filmIds <p>the list of Film identifiers to find</p>
      * @return <p>a List of Films with the given identifiers</p>
      */
     private List<Film> findAllFilmsByIds(List<Long> filmIds) {
-        Iterable<Film> filmsIterable = filmRepository.findAllById(filmIds);
-        return toFilmList(filmsIterable);
+        return filmRepository.findAllByIdCached(filmIds);
     }
 
     /**
-     * Turns an Iterable of Films into a List of Films
-     * @param filmsIterable <p>the Iterable to convert</p>
-     * @return <p>a List of Films converted from the given Iterable</p>
+     * Creates a new Rental out of a request in a batch, with the Customers and Films already fetched for the batch
+     * @param request <p>the Rental to create</p>
+     * @param customers <p>the Customers of the batch, by identifier</p>
+     * @param films <p>the Films of the batch, by identifier</p>
+     * @param takenFilmIds <p>the identifiers of the Films being rented right now, or by earlier requests in the
+     * batch. The Films of the new Rental are added to them</p>
+     * @return <p>a new Rental, not persisted yet</p>
+     * @throws IllegalArgumentException <p>in case the Rental can't be created</p>
      */
-    private List<Film> toFilmList(Iterable<Film> filmsIterable) {
-        List<Film> films = new ArrayList<>();
-        filmsIterable.iterator().forEachRemaining(films::add);
-        return films;
+    private Rental newRental(RentalCreationRequest request, Map<Long, Customer> customers, Map<Long, Film> films,
+                             Set<Long> takenFilmIds) {
+        if (request.getCustomerId() == null || request.getDays() == null || request.getFilmIds() == null) {
+            throw new IllegalArgumentException(INCOMPLETE_RENTAL_REQUEST_MESSAGE);
+        }
+        Customer customer = customers.get(request.getCustomerId());
+        if (customer == null) {
+            throw new IllegalArgumentException(UNKNOWN_CUSTOMER_MESSAGE + request.getCustomerId());
+        }
+        List<Long> unknownFilmIds = request.getFilmIds().stream().filter(id -> !films.containsKey(id))
+                .collect(Collectors.toList());
+        if (!unknownFilmIds.isEmpty()) {
+            throw new IllegalArgumentException(UNKNOWN_FILMS_MESSAGE + unknownFilmIds);
+        }
+        List<Long> requestedTakenFilmIds = request.getFilmIds().stream().filter(takenFilmIds::contains)
+                .collect(Collectors.toList());
+        if (!requestedTakenFilmIds.isEmpty()) {
+            throw new IllegalArgumentException(Rental.RENTAL_CREATION_FAILURE_MESSAGE + requestedTakenFilmIds);
+        }
+        List<Film> requestedFilms = request.getFilmIds().stream().distinct().map(films::get)
+                .collect(Collectors.toList());
+        Rental rental = customer.rent(request.getDays(), requestedFilms);
+        takenFilmIds.addAll(request.getFilmIds());
+        return rental;
     }
 }
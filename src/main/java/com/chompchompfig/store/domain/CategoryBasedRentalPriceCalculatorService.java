@@ -1,5 +1,6 @@
 package com.chompchompfig.store.domain;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import java.util.Currency;
@@ -11,6 +12,8 @@ import java.util.Optional;
  * store if proved necessary -i.e. are subject to frequent changes-.
  */
 @Service
+@ConditionalOnProperty(name = RentalPriceCalculatorService.PRICING_ENGINE_PROPERTY, havingValue = "category-based",
+        matchIfMissing = true)
 public class CategoryBasedRentalPriceCalculatorService implements RentalPriceCalculatorService {
 
     public static final long PREMIUM_PRICE = 40;
@@ -50,18 +53,16 @@ public class CategoryBasedRentalPriceCalculatorService implements RentalPriceCal
     }
 
     /**
-     * Gets the total surcharge price of renting all Films in a Rental for the given number of days
-     * @param rental <p>the Rental for which we would like to get the total price</p>
-     * @param effectiveRentalDays <p>the effective number of days that the Rental actually lasted</p>
-     * @return <p>the total surcharge price of renting all Films in a Rental for the given effective number of days</p>
+     * @see RentalPriceCalculatorService#getSurchargePrice(Rental, int)
      */
-    long getSurchargePrice(Rental rental, long effectiveRentalDays) {
+    @Override
+    public long getSurchargePrice(Rental rental, int effectiveRentalDays) {
         final Integer rentalDays = rental.getDays();
         long rentalPrice = getPrice(rental, rentalDays);
         long effectiveRentalPrice = 0l;
         long surchargeRentalPrice = 0l;
         if (effectiveRentalDays > 0) {
-            effectiveRentalPrice = getPrice(rental, (int) effectiveRentalDays);
+            effectiveRentalPrice = getPrice(rental, effectiveRentalDays);
             surchargeRentalPrice = effectiveRentalPrice - rentalPrice;
         }
         return surchargeRentalPrice;
@@ -72,7 +73,7 @@ public class CategoryBasedRentalPriceCalculatorService implements RentalPriceCal
      */
     @Override
     public long getSurchargePrice(Rental rental) {
-        final long effectiveRentalDays = rental.getEffectiveDaysRented();
+        final int effectiveRentalDays = rental.getEffectiveDaysRented();
         return getSurchargePrice(rental, effectiveRentalDays);
     }
 
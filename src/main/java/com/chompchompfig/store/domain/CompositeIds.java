@@ -0,0 +1,101 @@
+package com.chompchompfig.store.domain;
+
+/**
+ * Single pass parsing and formatting of the composite identifiers, made of long numbers separated by dots. Parts are
+ * read straight out of the input String, instead of splitting it with a regular expression into intermediate arrays
+ * and Strings, so parsing an identifier only allocates the identifier itself
+ */
+final class CompositeIds {
+
+    static final char SEPARATOR = '.';
+    private static final int MAX_LONG_LENGTH = 20;
+
+    private CompositeIds() {
+    }
+
+    /**
+     * Finds the separator ending the identifier part that starts at the given position
+     * @param value <p>the identifier String being parsed</p>
+     * @param from <p>the position the identifier part starts at</p>
+     * @param errorMessage <p>the message of the exception thrown in case there is no separator</p>
+     * @return <p>the position of the separator</p>
+     * @throws IllegalArgumentException <p>in case there is no separator after the given position</p>
+     */
+    static int indexOfSeparator(String value, int from, String errorMessage) {
+        int separatorIndex = value.indexOf(SEPARATOR, from);
+        if (separatorIndex < 0) {
+            throw new IllegalArgumentException(errorMessage);
+        }
+        return separatorIndex;
+    }
+
+    /**
+     * Parses the identifier part between the given positions as a signed decimal long number, the same way
+     * Long.parseLong does for ASCII digits
+     * @param value <p>the identifier String being parsed</p>
+     * @param from <p>the position the identifier part starts at, inclusive</p>
+     * @param to <p>the position the identifier part ends at, exclusive</p>
+     * @param errorMessage <p>the message of the exception thrown in case the part is not a valid long number</p>
+     * @return <p>the long number in the identifier part</p>
+     * @throws IllegalArgumentException <p>in case the identifier part is empty, has any character other than digits
+     * and a leading sign, or overflows a long</p>
+     */
+    static long parsePart(String value, int from, int to, String errorMessage) {
+        if (from >= to) {
+            throw new IllegalArgumentException(errorMessage);
+        }
+        int index = from;
+        boolean negative = false;
+        long limit = -Long.MAX_VALUE;
+        char firstChar = value.charAt(index);
+        if (firstChar == '-') {
+            negative = true;
+            limit = Long.MIN_VALUE;
+            index++;
+        } else if (firstChar == '+') {
+            index++;
+        }
+        if (index == to) {
+            throw new IllegalArgumentException(errorMessage);
+        }
+        // Accumulates negatively, as Long.parseLong does, so that Long.MIN_VALUE can be parsed without overflowing
+        long multiplicationLimit = limit / 10;
+        long result = 0;
+        for (; index < to; index++) {
+            int digit = value.charAt(index) - '0';
+            if (digit < 0 || digit > 9 || result < multiplicationLimit) {
+                throw new IllegalArgumentException(errorMessage);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw new IllegalArgumentException(errorMessage);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Formats the given identifier parts separated by dots, into a buffer sized up front for the longest possible
+     * result
+     * @param first <p>the first identifier part</p>
+     * @param second <p>the second identifier part</p>
+     * @return <p>the formatted identifier</p>
+     */
+    static String format(long first, long second) {
+        return new StringBuilder(2 * MAX_LONG_LENGTH + 1).append(first).append(SEPARATOR).append(second).toString();
+    }
+
+    /**
+     * Formats the given identifier parts separated by dots, into a buffer sized up front for the longest possible
+     * result
+     * @param first <p>the first identifier part</p>
+     * @param second <p>the second identifier part</p>
+     * @param third <p>the third identifier part</p>
+     * @return <p>the formatted identifier</p>
+     */
+    static String format(long first, long second, long third) {
+        return new StringBuilder(3 * MAX_LONG_LENGTH + 2).append(first).append(SEPARATOR).append(second)
+                .append(SEPARATOR).append(third).toString();
+    }
+}
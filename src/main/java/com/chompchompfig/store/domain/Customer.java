@@ -1,26 +1,49 @@
 package com.chompchompfig.store.domain;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
- * A Customer that performs rental operations in a Video Rental Business
+ * A Customer that performs rental operations in a Video Rental Business. The rental history of a Customer is loaded
+ * lazily. Use cases in need of it should fetch it upfront through the {@link #WITH_RENTALS_GRAPH} entity graph.
+ * Customer profiles are kept in the second level cache, but their rental history is not. New Rentals are persisted on
+ * their own, without going through the Customer, so a cached rental history would go stale
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Customer.CACHE_REGION)
+@NamedEntityGraph(name = Customer.WITH_RENTALS_GRAPH, attributeNodes = @NamedAttributeNode("rentals"))
 public class Customer {
 
+    public static final String WITH_RENTALS_GRAPH = "Customer.withRentals";
+    public static final String CACHE_REGION = "customers";
+    static final int RENTALS_BATCH_SIZE = 100;
+
     @Id
     @GeneratedValue(strategy=GenerationType.AUTO)
     private Long id;
+    @Version
+    @Column(name = "VERSION")
+    private Integer version;
     private String firstName;
     private String lastName;
     private String phoneNumber;
     private Long pointsInCard  = Long.valueOf(0l);
-    @OneToMany(mappedBy="customer",targetEntity=Rental.class, fetch=FetchType.EAGER, cascade = CascadeType.ALL)
+    @OneToMany(mappedBy="customer",targetEntity=Rental.class, fetch=FetchType.LAZY)
+    @BatchSize(size = RENTALS_BATCH_SIZE)
     private List<Rental> rentals;
+    @Transient
+    private Map<RentalId, Rental> rentalsById;
 
     public Customer() {
         this.rentals = new ArrayList<>();
@@ -34,6 +57,22 @@ public class Customer {
         return id;
     }
 
+    /**
+     * Gets the version of the Customer, which is incremented every time it is updated
+     * @return <p>the Customer version, or null if it hasn't been persisted yet</p>
+     */
+    public Integer getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the Customer
+     * @param version <p>the Customer version to set</p>
+     */
+    void setVersion(Integer version) {
+        this.version = version;
+    }
+
     /**
      * Sets the Customer unique identifier
      * @param id <p>the unique identifier to set</p>
@@ -115,7 +154,9 @@ public class Customer {
     }
 
     /**
-     * Creates a new Rental for a Customer, renting a list of Films, for a given duration in days.
+     * Creates a new Rental for a Customer, renting a list of Films, for a given duration in days. The new Rental is not
+     * cascaded from the Customer, it has to be persisted on its own. Adding it to the yet unloaded rentals of a managed
+     * Customer does not load the Customer's rental history either
      * @param days <p>the expected duration of the Rental in days</p>
      * @param films <p>a List of Film identifiers indicating the Films the Customer wants to rent</p>
      * @return <p>a new Rental for a List of Films and a Customer</p>
@@ -125,6 +166,9 @@ public class Customer {
         Rental rental = new Rental(this, days, films);
         rental.setRentalStartDate(new Date());
         this.rentals.add(rental);
+        if (rentalsById != null) {
+            rentalsById.put(rental.getId(), rental);
+        }
         return rental;
     }
 
@@ -152,7 +196,10 @@ public class Customer {
     }
 
     private Rental getRentalById(final RentalId rentalId) {
-        Optional<Rental> rentalWithId = rentals.stream().filter(r -> r.getId().equals(rentalId)).findFirst();
+        if (rentalsById == null) {
+            rentalsById = rentals.stream().collect(Collectors.toMap(Rental::getId, Function.identity()));
+        }
+        Optional<Rental> rentalWithId = Optional.ofNullable(rentalsById.get(rentalId));
         return rentalWithId.get();
     }
 
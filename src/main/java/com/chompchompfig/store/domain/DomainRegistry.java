@@ -0,0 +1,90 @@
+package com.chompchompfig.store.domain;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * A Registry giving Entities access to the domain services they need, as per DDD. Entities are not managed by Spring,
+ * they are either created by the domain itself or loaded by JPA, so they look their services up here instead. The
+ * registry is populated with the Spring managed services at startup, and falls back to sensible defaults otherwise.
+ * Services are stateless singletons shared by every Entity, so loading Entities doesn't allocate any services
+ */
+@Component
+public class DomainRegistry {
+
+    private static volatile IdGenerator idGenerator = new SnowflakeIdGenerator(0);
+    private static volatile RentalPriceCalculatorService rentalPriceCalculatorService =
+            new CategoryBasedRentalPriceCalculatorService();
+    private static volatile BonusPointsCalculatorService bonusPointsCalculatorService =
+            new SimpleBonusPointsCalculatorService();
+    private static volatile ApplicationEventPublisher domainEventPublisher = event -> { };
+
+    /**
+     * Gets the IdGenerator used to mint the identifiers of new Entities
+     * @return <p>the IdGenerator in use</p>
+     */
+    public static IdGenerator idGenerator() {
+        return idGenerator;
+    }
+
+    /**
+     * Sets the IdGenerator used to mint the identifiers of new Entities
+     * @param idGenerator <p>the IdGenerator to use</p>
+     */
+    @Autowired
+    void setIdGenerator(IdGenerator idGenerator) {
+        DomainRegistry.idGenerator = idGenerator;
+    }
+
+    /**
+     * Gets the RentalPriceCalculatorService used to price Rentals
+     * @return <p>the RentalPriceCalculatorService in use</p>
+     */
+    public static RentalPriceCalculatorService rentalPriceCalculatorService() {
+        return rentalPriceCalculatorService;
+    }
+
+    /**
+     * Sets the RentalPriceCalculatorService used to price Rentals
+     * @param rentalPriceCalculatorService <p>the RentalPriceCalculatorService to use</p>
+     */
+    @Autowired
+    void setRentalPriceCalculatorService(RentalPriceCalculatorService rentalPriceCalculatorService) {
+        DomainRegistry.rentalPriceCalculatorService = rentalPriceCalculatorService;
+    }
+
+    /**
+     * Gets the BonusPointsCalculatorService used to grant bonus points for Rentals
+     * @return <p>the BonusPointsCalculatorService in use</p>
+     */
+    public static BonusPointsCalculatorService bonusPointsCalculatorService() {
+        return bonusPointsCalculatorService;
+    }
+
+    /**
+     * Sets the BonusPointsCalculatorService used to grant bonus points for Rentals
+     * @param bonusPointsCalculatorService <p>the BonusPointsCalculatorService to use</p>
+     */
+    @Autowired
+    void setBonusPointsCalculatorService(BonusPointsCalculatorService bonusPointsCalculatorService) {
+        DomainRegistry.bonusPointsCalculatorService = bonusPointsCalculatorService;
+    }
+
+    /**
+     * Gets the publisher Entities raise their Domain Events through. Events are dropped until a publisher is set
+     * @return <p>the publisher of Domain Events in use</p>
+     */
+    public static ApplicationEventPublisher domainEventPublisher() {
+        return domainEventPublisher;
+    }
+
+    /**
+     * Sets the publisher Entities raise their Domain Events through
+     * @param domainEventPublisher <p>the publisher of Domain Events to use</p>
+     */
+    @Autowired
+    void setDomainEventPublisher(ApplicationEventPublisher domainEventPublisher) {
+        DomainRegistry.domainEventPublisher = domainEventPublisher;
+    }
+}
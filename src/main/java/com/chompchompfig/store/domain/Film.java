@@ -1,16 +1,24 @@
 package com.chompchompfig.store.domain;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.util.List;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
- * A Film or Movie that is part of the inventory of a Video Rental Business
+ * A Film or Movie that is part of the inventory of a Video Rental Business. Films are kept in the second level cache,
+ * as their names and categories hardly ever change. Their availability does, which is why the cache is read-write
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Film.CACHE_REGION)
 public class Film {
 
+    public static final String CACHE_REGION = "films";
+
     @Id
     @GeneratedValue(strategy=GenerationType.AUTO)
     private Long id;
@@ -39,6 +47,22 @@ public class Film {
         return id;
     }
 
+    /**
+     * Gets the version of the Film, which is incremented every time it is updated
+     * @return <p>the Film version, or null if it hasn't been persisted yet</p>
+     */
+    public Integer getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the Film
+     * @param version <p>the Film version to set</p>
+     */
+    void setVersion(Integer version) {
+        this.version = version;
+    }
+
     /**
      * Sets the Film unique identifier
      * @param id <p>the Film unique identifier to set</p>
@@ -88,11 +112,16 @@ public class Film {
     }
 
     /**
-     * Sets the Film availability (for rent)
+     * Sets the Film availability (for rent). A {@link FilmAvailabilityChanged} event is raised whenever the
+     * availability of a persisted Film actually changes
      * @param available <p>the Film availability</p>
      */
     void setAvailable(boolean available) {
+        boolean availabilityChanged = isAvailable != available;
         isAvailable = available;
+        if (availabilityChanged && id != null) {
+            DomainRegistry.domainEventPublisher().publishEvent(new FilmAvailabilityChanged(id, category, available));
+        }
     }
 
     /**
@@ -0,0 +1,55 @@
+package com.chompchompfig.store.domain;
+
+/**
+ * A Domain Event, as per DDD, raised whenever a Film becomes available or unavailable for renting. Events are raised
+ * by the Film itself, through the publisher in the {@link DomainRegistry}, while the transaction changing its
+ * availability is still in flight. Listeners interested only in changes which were committed need to wait for the
+ * transaction to complete
+ */
+public class FilmAvailabilityChanged {
+
+    private final Long filmId;
+    private final FilmCategory category;
+    private final boolean available;
+
+    /**
+     * Creates a new FilmAvailabilityChanged event
+     * @param filmId <p>the identifier of the Film whose availability changed</p>
+     * @param category <p>the Category of the Film</p>
+     * @param available <ul><li>True, if the Film became available</li><li>False, if it became unavailable</li></ul>
+     */
+    public FilmAvailabilityChanged(Long filmId, FilmCategory category, boolean available) {
+        this.filmId = filmId;
+        this.category = category;
+        this.available = available;
+    }
+
+    /**
+     * Gets the identifier of the Film whose availability changed
+     * @return <p>the Film unique identifier</p>
+     */
+    public Long getFilmId() {
+        return filmId;
+    }
+
+    /**
+     * Gets the Category of the Film whose availability changed
+     * @return <p>the Film Category</p>
+     */
+    public FilmCategory getCategory() {
+        return category;
+    }
+
+    /**
+     * Gets the new availability of the Film
+     * @return <ul><li>True, if the Film became available</li><li>False, if it became unavailable</li></ul>
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @Override
+    public String toString() {
+        return "FilmAvailabilityChanged{filmId=" + filmId + ", category=" + category + ", available=" + available + "}";
+    }
+}
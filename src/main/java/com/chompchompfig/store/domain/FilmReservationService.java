@@ -0,0 +1,28 @@
+package com.chompchompfig.store.domain;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A Service reserving Films for the Rentals about to take them out of the store. Claims are atomic, they either
+ * succeed for all the given Films or for none of them, and are bound to the current transaction. This is, Films
+ * claimed are only taken out of the store if the transaction commits, and are released otherwise
+ */
+public interface FilmReservationService {
+
+    /**
+     * Claims the given Films, making them unavailable to any other Rental
+     * @param filmIds <p>the identifiers of the Films to claim</p>
+     * @return <p>the identifiers of the Films that could not be claimed, because they are not available or because
+     * they are being claimed concurrently. None of the given Films is claimed unless the returned List is empty</p>
+     * @throws IllegalStateException <p>in case there is no transaction in progress</p>
+     */
+    List<Long> claim(Collection<Long> filmIds);
+
+    /**
+     * Finds which of the given Films are being claimed at this very moment
+     * @param filmIds <p>the identifiers of the Films to look for</p>
+     * @return <p>the identifiers of the Films being claimed</p>
+     */
+    List<Long> findClaimed(Collection<Long> filmIds);
+}
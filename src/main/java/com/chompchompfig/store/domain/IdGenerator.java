@@ -0,0 +1,15 @@
+package com.chompchompfig.store.domain;
+
+/**
+ * A generator of unique identifiers for the Entities in the store, such as Rentals, Rental Items or Payments.
+ * Identifiers must be unique across all the nodes running the store, and safe to generate concurrently
+ */
+public interface IdGenerator {
+
+    /**
+     * Generates a new unique identifier
+     * @return <p>a new unique identifier</p>
+     * @throws IllegalStateException <p>in case no more identifiers can be generated</p>
+     */
+    long nextId();
+}
@@ -1,9 +1,11 @@
 package com.chompchompfig.store.domain;
 
 import javax.persistence.*;
+import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * A Payment performed typically by a Customer in order to perform for the rental of Films
@@ -19,6 +21,9 @@ public class Payment {
 
     @EmbeddedId
     private PaymentId id;
+    @Version
+    @Column(name = "VERSION")
+    private Integer version;
 
     private Long amount;
     private String currency;
@@ -45,6 +50,22 @@ public class Payment {
         return id;
     }
 
+    /**
+     * Gets the version of the Payment, which is incremented every time it is updated
+     * @return <p>the Payment version, or null if it hasn't been persisted yet</p>
+     */
+    public Integer getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the Payment
+     * @param version <p>the Payment version to set</p>
+     */
+    void setVersion(Integer version) {
+        this.version = version;
+    }
+
 
     /**
      * Sets the Payment unique identifier
@@ -133,13 +154,16 @@ public class Payment {
      */
     void setStatus(PaymentStatus status) {
         this.status = status;
+        if (rental != null) {
+            rental.paymentStatusChanged(this);
+        }
     }
 
     /**
      * Fulfills the Payment, setting its status to DONE
      */
     public void fulfill() {
-        this.status = PaymentStatus.DONE;
+        setStatus(PaymentStatus.DONE);
     }
 
     /**
@@ -176,6 +200,20 @@ public class Payment {
         }
     }
 
+    /**
+     * Gets the identifiers of the Films that performing this Payment would take out of the store. This is, all the
+     * Films in its Rental when the Payment is PENDING and the Rental is in AWAITING_PAYMENT state. None otherwise
+     * @return <p>the identifiers of the Films to be taken out of the store</p>
+     */
+    public List<Long> getFilmIdsToRent() {
+        Rental rental = getRental();
+        if (getStatus().equals(PaymentStatus.DONE) || rental == null ||
+                !rental.getStatus().equals(RentalStatus.AWAITING_PAYMENT)) {
+            return Collections.emptyList();
+        }
+        return rental.getFilms().stream().map(Film::getId).collect(Collectors.toList());
+    }
+
     /**
      * Handles a Payment operation for a Rental which is in AWAITING_PAYMENT state
      * @param rental <p>the Rental for which the Payment is to be handled</p>
@@ -21,6 +21,7 @@ public class PaymentId implements Serializable {
     private Long rentalId;
     @Column(name="ID")
     private Long id;
+    private transient String formatted;
 
     protected PaymentId() {
     }
@@ -67,23 +68,14 @@ public class PaymentId implements Serializable {
             throw new IllegalArgumentException(PAYMENT_ID_PARSING_ERROR_MESSAGE);
         }
 
-        String paymentIdParts[] = paymentId.split("\\.");
-        if (paymentIdParts.length != 3) {
-            throw new IllegalArgumentException(PAYMENT_ID_PARSING_ERROR_MESSAGE);
-        }
-
-        try {
-            String customerIdPart = paymentIdParts[0];
-            String rentalIdPart = paymentIdParts[1];
-            String idPart = paymentIdParts[2];
-            Long customerId = Long.parseLong(customerIdPart);
-            Long rentalId = Long.parseLong(rentalIdPart);
-            Long id = Long.parseLong(idPart);
-            return new PaymentId(customerId, rentalId, id);
-        } catch (NumberFormatException nfe) {
-            throw new IllegalArgumentException(PAYMENT_ID_PARSING_ERROR_MESSAGE);
-        }
-
+        int customerIdEnd = CompositeIds.indexOfSeparator(paymentId, 0, PAYMENT_ID_PARSING_ERROR_MESSAGE);
+        long customerId = CompositeIds.parsePart(paymentId, 0, customerIdEnd, PAYMENT_ID_PARSING_ERROR_MESSAGE);
+        int rentalIdEnd = CompositeIds.indexOfSeparator(paymentId, customerIdEnd + 1, PAYMENT_ID_PARSING_ERROR_MESSAGE);
+        long rentalId = CompositeIds.parsePart(paymentId, customerIdEnd + 1, rentalIdEnd,
+                PAYMENT_ID_PARSING_ERROR_MESSAGE);
+        long id = CompositeIds.parsePart(paymentId, rentalIdEnd + 1, paymentId.length(),
+                PAYMENT_ID_PARSING_ERROR_MESSAGE);
+        return new PaymentId(customerId, rentalId, id);
     }
 
     @Override
@@ -97,11 +89,19 @@ public class PaymentId implements Serializable {
 
     @Override
     public int hashCode() {
-        return Objects.hash(getId(), getRentalId(), getCustomerId());
+        return 31 * (31 * Objects.hashCode(customerId) + Objects.hashCode(rentalId)) + Objects.hashCode(id);
     }
 
     @Override
     public String toString() {
-        return getCustomerId() + "." + getRentalId() + "." + getId();
+        String formatted = this.formatted;
+        if (formatted == null) {
+            if (customerId == null || rentalId == null || id == null) {
+                return customerId + "." + rentalId + "." + id;
+            }
+            formatted = CompositeIds.format(customerId, rentalId, id);
+            this.formatted = formatted;
+        }
+        return formatted;
     }
 }
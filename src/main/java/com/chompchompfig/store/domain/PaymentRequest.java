@@ -0,0 +1,186 @@
+package com.chompchompfig.store.domain;
+
+import javax.persistence.*;
+import java.util.ConcurrentModificationException;
+import java.util.Date;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * A request to perform a Payment, identified by the idempotency key the client sent along with it. Retrying a request
+ * with the same key doesn't perform the Payment again, it gets the outcome of the first request instead. This is, the
+ * Payment once DONE, or the same failure once FAILED. Only the failures due to the state of the Payment or its Rental
+ * are recorded, as retrying those wouldn't make any difference. Optimistic locking failures aren't, as they only mean
+ * that something else was written at the same time, and a retry may well succeed
+ */
+@Entity
+public class PaymentRequest {
+
+    public static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+    public static final int MAX_MESSAGE_LENGTH = 255;
+    public static final String INVALID_IDEMPOTENCY_KEY_MESSAGE =
+            "The supplied idempotency key must be a non empty String of at most " + MAX_IDEMPOTENCY_KEY_LENGTH +
+                    " characters";
+    public static final String NOT_PENDING_MESSAGE = "The Payment request is no longer PENDING :";
+
+    @Id
+    @Column(name = "IDEMPOTENCY_KEY")
+    private String idempotencyKey;
+    @Version
+    @Column(name = "VERSION")
+    private Integer version;
+    @Embedded
+    @AttributeOverride(name = "id", column = @Column(name = "PAYMENT_ID"))
+    private PaymentId paymentId;
+    private PaymentRequestStatus status;
+    private Failure failure;
+    private String message;
+    private Date date;
+    @Transient
+    private boolean isNew;
+
+    protected PaymentRequest() {
+    }
+
+    /**
+     * Creates a new PENDING PaymentRequest
+     * @param idempotencyKey <p>the key identifying the request, as sent by the client</p>
+     * @param paymentId <p>the identifier of the Payment to perform</p>
+     * @throws IllegalArgumentException <p>in case the idempotency key is empty or too long</p>
+     */
+    public PaymentRequest(String idempotencyKey, PaymentId paymentId) {
+        if (idempotencyKey == null || idempotencyKey.isEmpty() ||
+                idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new IllegalArgumentException(INVALID_IDEMPOTENCY_KEY_MESSAGE);
+        }
+        this.idempotencyKey = idempotencyKey;
+        this.paymentId = paymentId;
+        this.status = PaymentRequestStatus.PENDING;
+        this.date = new Date();
+        this.isNew = true;
+    }
+
+    /**
+     * Gets the idempotency key identifying the PaymentRequest
+     * @return <p>the idempotency key</p>
+     */
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    /**
+     * Gets the identifier of the Payment to perform
+     * @return <p>the PaymentId</p>
+     */
+    public PaymentId getPaymentId() {
+        return paymentId;
+    }
+
+    /**
+     * Gets the status of the PaymentRequest
+     * @return <p>the PaymentRequest status</p>
+     */
+    public PaymentRequestStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Gets the message of the failure of a FAILED PaymentRequest
+     * @return <p>the failure message, or null if the PaymentRequest didn't fail</p>
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Gets the Date the PaymentRequest was first made
+     * @return <p>the PaymentRequest Date</p>
+     */
+    public Date getDate() {
+        return date;
+    }
+
+    /**
+     * Finds out whether the PaymentRequest was created, rather than loaded. This is, whether it is the first request
+     * made with its idempotency key
+     * @return <ul><li>True, if the PaymentRequest was created</li><li>False otherwise</li></ul>
+     */
+    public boolean isNew() {
+        return isNew;
+    }
+
+    /**
+     * Finds out whether the Payment of the PaymentRequest is yet to be performed
+     * @return <ul><li>True, if the PaymentRequest is PENDING</li><li>False otherwise</li></ul>
+     */
+    public boolean isPending() {
+        return status == PaymentRequestStatus.PENDING;
+    }
+
+    /**
+     * Records that the Payment was performed
+     */
+    public void done() {
+        this.status = PaymentRequestStatus.DONE;
+    }
+
+    /**
+     * Records that the Payment couldn't be performed, if the failure is due to the state of the Payment or its Rental
+     * @param exception <p>the exception the Payment failed with</p>
+     * @return <ul><li>True, if the failure was recorded, and the PaymentRequest is FAILED</li><li>False otherwise,
+     * in which case the PaymentRequest is left as it was</li></ul>
+     */
+    public boolean fail(RuntimeException exception) {
+        Failure failure = Failure.of(exception);
+        if (failure == null) {
+            return false;
+        }
+        this.status = PaymentRequestStatus.FAILED;
+        this.failure = failure;
+        String message = exception.getMessage();
+        this.message = message != null && message.length() > MAX_MESSAGE_LENGTH ?
+                message.substring(0, MAX_MESSAGE_LENGTH) : message;
+        return true;
+    }
+
+    /**
+     * Rebuilds the exception a FAILED PaymentRequest failed with, so that it can be thrown again for the retries
+     * @return <p>an exception of the same kind, with the same message, or null if the PaymentRequest didn't fail</p>
+     */
+    public RuntimeException getFailure() {
+        return failure != null ? failure.toException(message) : null;
+    }
+
+    /**
+     * The kinds of failures recorded, which are those the Payment or its Rental may fail with due to their state
+     */
+    enum Failure {
+        INVALID_REQUEST(IllegalArgumentException::new),
+        INVALID_STATE(IllegalStateException::new),
+        CONFLICT(ConcurrentModificationException::new),
+        NOT_FOUND(NoSuchElementException::new);
+
+        private final Function<String, RuntimeException> exceptionFactory;
+
+        Failure(Function<String, RuntimeException> exceptionFactory) {
+            this.exceptionFactory = exceptionFactory;
+        }
+
+        static Failure of(RuntimeException exception) {
+            if (exception instanceof IllegalArgumentException) {
+                return INVALID_REQUEST;
+            } else if (exception instanceof IllegalStateException) {
+                return INVALID_STATE;
+            } else if (exception instanceof ConcurrentModificationException) {
+                return CONFLICT;
+            } else if (exception instanceof NoSuchElementException) {
+                return NOT_FOUND;
+            }
+            return null;
+        }
+
+        RuntimeException toException(String message) {
+            return exceptionFactory.apply(message);
+        }
+    }
+}
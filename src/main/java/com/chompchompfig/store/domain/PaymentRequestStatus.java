@@ -0,0 +1,11 @@
+package com.chompchompfig.store.domain;
+
+/**
+ * Reflects the different statuses of a PaymentRequest. PENDING indicates that the Payment hasn't been performed yet,
+ * either because the request is waiting in the queue or because it is being processed. DONE reflects a request whose
+ * Payment was performed. FAILED reflects a request whose Payment couldn't be performed, due to the state of the
+ * Payment or its Rental at the time
+ */
+public enum PaymentRequestStatus {
+    PENDING, DONE, FAILED
+}
@@ -0,0 +1,98 @@
+package com.chompchompfig.store.domain;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Currency;
+
+/**
+ * A RentalPriceCalculatorService charging the same prices as {@link CategoryBasedRentalPriceCalculatorService}, out
+ * of the tables of the default {@link PricingRules}. Rentals are priced by counting their Films per category in a
+ * single loop, and multiplying those counts by the price of each category, so no streams nor boxed numbers are
+ * involved. Surcharges reuse the same counts, and the same PricingRules, for the agreed and the effective durations of
+ * a Rental
+ */
+@Service
+@ConditionalOnProperty(name = RentalPriceCalculatorService.PRICING_ENGINE_PROPERTY, havingValue = "precomputed")
+public class PrecomputedRentalPriceCalculatorService implements RentalPriceCalculatorService {
+
+    private final PricingRules defaultPricingRules = PricingRules.defaults();
+
+    /**
+     * Gets the PricingRules prices are calculated with
+     * @return <p>the PricingRules in use</p>
+     */
+    protected PricingRules getPricingRules() {
+        return defaultPricingRules;
+    }
+
+    /**
+     * @see RentalPriceCalculatorService#getPriceCurrency()
+     */
+    @Override
+    public Currency getPriceCurrency() {
+        return getPricingRules().getCurrency();
+    }
+
+    /**
+     * @see RentalPriceCalculatorService#getPrice(Film, int)
+     */
+    @Override
+    public long getPrice(Film film, int daysRented) {
+        validateDaysRented(daysRented);
+        return getPricingRules().getPrice(film.getCategory(), daysRented);
+    }
+
+    /**
+     * @see RentalPriceCalculatorService#getPrice(Rental)
+     */
+    @Override
+    public long getPrice(Rental rental) {
+        int[] filmsPerCategory = PricingRules.countFilmsPerCategory(rental.getItems());
+        return getPrice(getPricingRules(), filmsPerCategory, rental.getDays());
+    }
+
+    /**
+     * @see RentalPriceCalculatorService#getSurchargePrice(Rental)
+     */
+    @Override
+    public long getSurchargePrice(Rental rental) {
+        return getSurchargePrice(rental, rental.getEffectiveDaysRented());
+    }
+
+    /**
+     * @see RentalPriceCalculatorService#getSurchargePrice(Rental, int)
+     */
+    @Override
+    public long getSurchargePrice(Rental rental, int effectiveRentalDays) {
+        PricingRules pricingRules = getPricingRules();
+        int[] filmsPerCategory = PricingRules.countFilmsPerCategory(rental.getItems());
+        long rentalPrice = getPrice(pricingRules, filmsPerCategory, rental.getDays());
+        long surchargeRentalPrice = 0l;
+        if (effectiveRentalDays > 0) {
+            surchargeRentalPrice = getPrice(pricingRules, filmsPerCategory, effectiveRentalDays) - rentalPrice;
+        }
+        return surchargeRentalPrice;
+    }
+
+    private long getPrice(PricingRules pricingRules, int[] filmsPerCategory, int daysRented) {
+        for (int films : filmsPerCategory) {
+            if (films > 0) {
+                validateDaysRented(daysRented);
+                break;
+            }
+        }
+        return pricingRules.getPrice(filmsPerCategory, daysRented);
+    }
+
+    /**
+     * Performs the validation of the Rental duration. The number of days to rent can't be less or equal than zero
+     * @param daysRented <p>the duration of the rental to validate</p>
+     * @throws IllegalArgumentException <p>in case the number of days to rent is invalid</p>
+     */
+    void validateDaysRented(int daysRented) {
+        if (daysRented <= 0) {
+            throw new IllegalArgumentException("daysRented must be a non-zero positive integer");
+        }
+    }
+}
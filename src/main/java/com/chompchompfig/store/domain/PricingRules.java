@@ -0,0 +1,195 @@
+package com.chompchompfig.store.domain;
+
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * An immutable snapshot of the rules pricing Rentals. Every Film category has a tariff made of a base price, charged
+ * for renting a Film for up to a given number of days, and a price for every extra day past them. Rules are compiled
+ * into tables with the price of renting a Film of every category for up to {@link #PRECOMPUTED_RENTAL_DAYS} days,
+ * longer rentals are priced with the closed form the tables are built from. Being immutable, a snapshot can be shared
+ * by any number of threads, and replaced as a whole when the rules change
+ */
+public final class PricingRules {
+
+    public static final int PRECOMPUTED_RENTAL_DAYS = 90;
+    public static final String DEFAULT_CURRENCY = "SEK";
+    public static final String CURRENCY_PROPERTY = "currency";
+    public static final String BASE_PRICE_PROPERTY = "base-price";
+    public static final String DAYS_AT_BASE_PRICE_PROPERTY = "days-at-base-price";
+    public static final String PRICE_PER_EXTRA_DAY_PROPERTY = "price-per-extra-day";
+    public static final String INVALID_PRICING_RULE_MESSAGE = "Missing or invalid pricing rule: ";
+    private static final FilmCategory[] FILM_CATEGORIES = FilmCategory.values();
+
+    private final Currency currency;
+    private final long[] basePrices;
+    private final int[] daysAtBasePrice;
+    private final long[] pricesPerExtraDay;
+    private final long[][] pricesByDays;
+
+    private PricingRules(Currency currency, long[] basePrices, int[] daysAtBasePrice, long[] pricesPerExtraDay) {
+        this.currency = currency;
+        this.basePrices = basePrices;
+        this.daysAtBasePrice = daysAtBasePrice;
+        this.pricesPerExtraDay = pricesPerExtraDay;
+        this.pricesByDays = new long[FILM_CATEGORIES.length][PRECOMPUTED_RENTAL_DAYS + 1];
+        for (int categoryIndex = 0; categoryIndex < FILM_CATEGORIES.length; categoryIndex++) {
+            for (int days = 1; days <= PRECOMPUTED_RENTAL_DAYS; days++) {
+                pricesByDays[categoryIndex][days] = getClosedFormPrice(categoryIndex, days);
+            }
+        }
+    }
+
+    /**
+     * Gets the rules charging the prices of {@link CategoryBasedRentalPriceCalculatorService}
+     * @return <p>the default PricingRules</p>
+     */
+    public static PricingRules defaults() {
+        long[] basePrices = new long[FILM_CATEGORIES.length];
+        int[] daysAtBasePrice = new int[FILM_CATEGORIES.length];
+        long[] pricesPerExtraDay = new long[FILM_CATEGORIES.length];
+        setTariff(FilmCategory.NEW, CategoryBasedRentalPriceCalculatorService.PREMIUM_PRICE, 1,
+                CategoryBasedRentalPriceCalculatorService.PREMIUM_PRICE, basePrices, daysAtBasePrice,
+                pricesPerExtraDay);
+        setTariff(FilmCategory.REGULAR, CategoryBasedRentalPriceCalculatorService.BASIC_PRICE,
+                CategoryBasedRentalPriceCalculatorService.REGULAR_FILMS_DAYS_AT_SINGLE_PRICE,
+                CategoryBasedRentalPriceCalculatorService.BASIC_PRICE, basePrices, daysAtBasePrice,
+                pricesPerExtraDay);
+        setTariff(FilmCategory.OLD, CategoryBasedRentalPriceCalculatorService.BASIC_PRICE,
+                CategoryBasedRentalPriceCalculatorService.OLD_FILMS_DAYS_AT_SINGLE_PRICE,
+                CategoryBasedRentalPriceCalculatorService.BASIC_PRICE, basePrices, daysAtBasePrice,
+                pricesPerExtraDay);
+        return new PricingRules(Currency.getInstance(DEFAULT_CURRENCY), basePrices, daysAtBasePrice,
+                pricesPerExtraDay);
+    }
+
+    /**
+     * Compiles the rules in the given Properties. The tariff of every Film category is read from the
+     * "&lt;category&gt;.base-price", "&lt;category&gt;.days-at-base-price" and "&lt;category&gt;.price-per-extra-day"
+     * properties, where the category is in lower case, e.g. "regular.base-price=30". The "currency" property holds
+     * the ISO 4217 code of the Currency prices are in, SEK by default
+     * @param properties <p>the Properties holding the rules</p>
+     * @return <p>the compiled PricingRules</p>
+     * @throws IllegalArgumentException <p>in case the tariff of any Film category is missing or invalid, e.g. has
+     * negative prices, or the currency is unknown</p>
+     */
+    public static PricingRules from(Properties properties) {
+        long[] basePrices = new long[FILM_CATEGORIES.length];
+        int[] daysAtBasePrice = new int[FILM_CATEGORIES.length];
+        long[] pricesPerExtraDay = new long[FILM_CATEGORIES.length];
+        for (FilmCategory category : FILM_CATEGORIES) {
+            String prefix = category.name().toLowerCase() + ".";
+            setTariff(category, parseRule(properties, prefix + BASE_PRICE_PROPERTY, 0),
+                    (int) parseRule(properties, prefix + DAYS_AT_BASE_PRICE_PROPERTY, 1),
+                    parseRule(properties, prefix + PRICE_PER_EXTRA_DAY_PROPERTY, 0), basePrices, daysAtBasePrice,
+                    pricesPerExtraDay);
+        }
+        String currencyCode = properties.getProperty(CURRENCY_PROPERTY, DEFAULT_CURRENCY).trim();
+        try {
+            return new PricingRules(Currency.getInstance(currencyCode), basePrices, daysAtBasePrice,
+                    pricesPerExtraDay);
+        } catch (IllegalArgumentException iae) {
+            throw new IllegalArgumentException(INVALID_PRICING_RULE_MESSAGE + CURRENCY_PROPERTY, iae);
+        }
+    }
+
+    private static long parseRule(Properties properties, String name, int minValue) {
+        String value = properties.getProperty(name);
+        try {
+            long rule = Integer.parseInt(value == null ? "" : value.trim());
+            if (rule < minValue) {
+                throw new IllegalArgumentException(INVALID_PRICING_RULE_MESSAGE + name);
+            }
+            return rule;
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException(INVALID_PRICING_RULE_MESSAGE + name, nfe);
+        }
+    }
+
+    private static void setTariff(FilmCategory category, long basePrice, int daysAtBasePrice,
+                                  long pricePerExtraDay, long[] basePrices, int[] daysAtBasePrices,
+                                  long[] pricesPerExtraDay) {
+        basePrices[category.ordinal()] = basePrice;
+        daysAtBasePrices[category.ordinal()] = daysAtBasePrice;
+        pricesPerExtraDay[category.ordinal()] = pricePerExtraDay;
+    }
+
+    /**
+     * Counts the Films of every category in the given RentalItems
+     * @param items <p>the RentalItems whose Films will be counted</p>
+     * @return <p>the number of Films of every category, indexed by the ordinal of the category</p>
+     */
+    static int[] countFilmsPerCategory(List<RentalItem> items) {
+        int[] filmsPerCategory = new int[FILM_CATEGORIES.length];
+        for (int i = 0, size = items.size(); i < size; i++) {
+            filmsPerCategory[items.get(i).getFilm().getCategory().ordinal()]++;
+        }
+        return filmsPerCategory;
+    }
+
+    /**
+     * Gets the Currency prices are in
+     * @return <p>the Currency prices are in</p>
+     */
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    /**
+     * Gets the price of renting a Film of the given category for a positive number of days
+     * @param category <p>the category of the Film</p>
+     * @param daysRented <p>the duration of the rental in days</p>
+     * @return <p>the price of renting a Film of the given category for the given number of days</p>
+     */
+    public long getPrice(FilmCategory category, int daysRented) {
+        return getPrice(category.ordinal(), daysRented);
+    }
+
+    /**
+     * Gets the total price of renting the given number of Films of every category for a positive number of days
+     * @param filmsPerCategory <p>the number of Films of every category, indexed by the ordinal of the category</p>
+     * @param daysRented <p>the duration of the rental in days</p>
+     * @return <p>the total price of renting all the Films for the given number of days</p>
+     */
+    long getPrice(int[] filmsPerCategory, int daysRented) {
+        long rentalPrice = 0l;
+        for (int categoryIndex = 0; categoryIndex < filmsPerCategory.length; categoryIndex++) {
+            int films = filmsPerCategory[categoryIndex];
+            if (films > 0) {
+                rentalPrice += films * getPrice(categoryIndex, daysRented);
+            }
+        }
+        return rentalPrice;
+    }
+
+    private long getPrice(int categoryIndex, int daysRented) {
+        return daysRented <= PRECOMPUTED_RENTAL_DAYS ? pricesByDays[categoryIndex][daysRented] :
+                getClosedFormPrice(categoryIndex, daysRented);
+    }
+
+    private long getClosedFormPrice(int categoryIndex, int daysRented) {
+        return basePrices[categoryIndex] +
+                Math.max(daysRented - daysAtBasePrice[categoryIndex], 0) * pricesPerExtraDay[categoryIndex];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PricingRules that = (PricingRules) o;
+        return currency.equals(that.currency) && Arrays.equals(basePrices, that.basePrices) &&
+                Arrays.equals(daysAtBasePrice, that.daysAtBasePrice) &&
+                Arrays.equals(pricesPerExtraDay, that.pricesPerExtraDay);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = currency.hashCode();
+        result = 31 * result + Arrays.hashCode(basePrices);
+        result = 31 * result + Arrays.hashCode(daysAtBasePrice);
+        result = 31 * result + Arrays.hashCode(pricesPerExtraDay);
+        return result;
+    }
+}
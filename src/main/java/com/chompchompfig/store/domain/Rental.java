@@ -1,20 +1,23 @@
 package com.chompchompfig.store.domain;
 
+import org.hibernate.annotations.BatchSize;
+import org.springframework.data.domain.Persistable;
+
 import javax.persistence.*;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * A Rental order comprising several Films which will be rented for a given duration. Rentals have a status
  * {@link RentalStatus} which affects which operations can be performed on it. Rentals also belong to a Customer who
- * owns it. Rental is an Aggregate comprising RentalItems
+ * owns it. Rental is an Aggregate comprising RentalItems. Rentals have an assigned identifier, so they tell on their
+ * own whether they still have to be inserted, which spares a SELECT when they are first saved
  */
 @Entity
-public class Rental {
+public class Rental implements Persistable<RentalId> {
 
     public static final String RENTAL_CREATION_FAILURE_MESSAGE =
             "Can't create a rental with unavailable Films. Please check Film ids :";
@@ -23,43 +26,51 @@ public class Rental {
     public static final String RETURN_OVERDUE_RENTAL_FAILURE_MESSAGE =
             "Can't return Films from overdue rental with pending charges. Please check the Rental status " +
                     "again, and make sure to perform the corresponding payments";
+    static final int ASSOCIATIONS_BATCH_SIZE = 100;
 
     @EmbeddedId
     private RentalId id;
+    @Version
+    @Column(name = "VERSION")
+    private Integer version;
 
     @ManyToOne(optional=false)
     @JoinColumn(name="CUSTOMER_ID",referencedColumnName="ID", insertable = false, updatable = false)
     private Customer customer;
     @OneToMany(mappedBy="rental",targetEntity=RentalItem.class, fetch=FetchType.LAZY,  cascade = CascadeType.ALL,
             orphanRemoval = true)
+    @BatchSize(size = ASSOCIATIONS_BATCH_SIZE)
     private List<RentalItem> items;
     private int days;
     private Date rentalStartDate;
     private RentalStatus status;
+    private Date overdueSince;
+    private Long overdueSurcharge;
     @OneToMany(mappedBy="rental",targetEntity=Payment.class, fetch=FetchType.LAZY, cascade = CascadeType.ALL)
+    @BatchSize(size = ASSOCIATIONS_BATCH_SIZE)
     private List<Payment> payments;
     @Transient
-    private RentalPriceCalculatorService rentalPriceCalculatorService;
+    private boolean isNew;
     @Transient
-    private BonusPointsCalculatorService bonusPointsCalculatorService;
-
+    private Map<PaymentId, Payment> paymentsById;
+    @Transient
+    private Map<PaymentId, Payment> pendingPaymentsById;
 
     public Rental() {
         this.status = RentalStatus.AWAITING_PAYMENT;
         this.items = new ArrayList<>();
         this.payments = new ArrayList<>();
-        this.rentalPriceCalculatorService = new CategoryBasedRentalPriceCalculatorService();
-        this.bonusPointsCalculatorService = new SimpleBonusPointsCalculatorService();
     }
 
     public Rental(Customer customer, int days, List<Film> films) {
         this();
         Film.validateFilmsAvailability(films, this::buildIllegalArgumentException);
-        this.setId(new RentalId(customer.getId(), System.nanoTime()));
+        this.setId(new RentalId(customer.getId(), DomainRegistry.idGenerator().nextId()));
         this.customer = customer;
         this.days = days;
         this.items = toRentalItemList(films);
-        this.payments.add(getPayment());
+        addPayment(getPayment());
+        this.isNew = true;
     }
 
     /**
@@ -70,6 +81,22 @@ public class Rental {
         return id;
     }
 
+    /**
+     * Gets the version of the Rental, which is incremented every time it is updated
+     * @return <p>the Rental version, or null if it hasn't been persisted yet</p>
+     */
+    public Integer getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the Rental
+     * @param version <p>the Rental version to set</p>
+     */
+    void setVersion(Integer version) {
+        this.version = version;
+    }
+
 
     /**
      * Sets the unique identifier of a Rental
@@ -79,6 +106,24 @@ public class Rental {
         this.id = id;
     }
 
+    /**
+     * Checks whether the Rental has just been created, and hasn't been persisted yet
+     * @return <ul><li>True, if the Rental has not been persisted yet</li><li>False otherwise</li></ul>
+     */
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    /**
+     * Marks the Rental as no longer new, once it has been either persisted or loaded
+     */
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        this.isNew = false;
+    }
+
     /**
      * Gets the Rental associated Customer
      * @return <p>the associated Customer</p>
@@ -122,10 +167,18 @@ public class Rental {
 
     /**
      * Gets the Payments associated with a Rental
-     * @return <p>the list of Payments of a Rental</p>
+     * @return <p>the list of Payments of a Rental, which can't be modified</p>
      */
     public List<Payment> getPayments() {
-        return payments;
+        return Collections.unmodifiableList(payments);
+    }
+
+    /**
+     * Gets the PENDING Payments of a Rental, in the same order as they were added to it
+     * @return <p>the PENDING Payments of a Rental, which can't be modified</p>
+     */
+    public Collection<Payment> getPendingPayments() {
+        return Collections.unmodifiableCollection(getPendingPaymentsById().values());
     }
 
     /**
@@ -153,11 +206,48 @@ public class Rental {
     }
 
     /**
-     * Gets the overdue status of a Rental. This is, if the Rental duration was past
+     * Gets the date a Rental became overdue on, as last found by {@link #updateOverdueStatus(LocalDate)}
+     * @return <p>the date the Rental became overdue on, or null in case it wasn't found overdue yet</p>
+     */
+    public Date getOverdueSince() {
+        return overdueSince;
+    }
+
+    /**
+     * Gets the surcharge a Rental had accrued for being overdue, as last found by
+     * {@link #updateOverdueStatus(LocalDate)}
+     * @return <p>the surcharge the Rental had accrued, or null in case it wasn't found overdue yet</p>
+     */
+    public Long getOverdueSurcharge() {
+        return overdueSurcharge;
+    }
+
+    /**
+     * Gets the overdue status of a Rental. This is, if the Rental duration was past. Rentals already found overdue
+     * don't need their duration checked again
      * @return <p>the overdue Rental status</p>
      */
     public boolean isOverdue() {
-        return isOverdue(LocalDate.now());
+        return overdueSince != null || isOverdue(LocalDate.now());
+    }
+
+    /**
+     * Finds out whether a PAID Rental is overdue on the given date, and records the date it became overdue on and the
+     * surcharge it has accrued by then, so that they don't need to be calculated again when reading the Rental
+     * @param currentDate <p>the date to check the Rental against</p>
+     * @return <ul><li>True, if the Rental is PAID and overdue on the given date</li><li>False otherwise</li></ul>
+     */
+    public boolean updateOverdueStatus(LocalDate currentDate) {
+        if (!RentalStatus.PAID.equals(status) || !isOverdue(currentDate)) {
+            return false;
+        }
+        if (overdueSince == null) {
+            LocalDate startDate = rentalStartDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+            overdueSince = Date.from(startDate.plusDays(days + 1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        }
+        overdueSurcharge = DomainRegistry.rentalPriceCalculatorService()
+                .getSurchargePrice(this, getEffectiveDaysRented(currentDate));
+        return true;
     }
 
     /**
@@ -174,7 +264,7 @@ public class Rental {
      * @return <ul><li>True, if the Rental has PENDING Payments</li><li>False otherwise</li></ul>
      */
     public boolean hasPendingPayments() {
-        return payments.stream().anyMatch(p -> p.getStatus().equals(PaymentStatus.PENDING));
+        return !getPendingPaymentsById().isEmpty();
     }
 
     /**
@@ -258,7 +348,7 @@ public class Rental {
      * Gets the bonus points that should be rewarded for this rental
      */
     public long getBonusPoints() {
-        long bonusPointsForRental = bonusPointsCalculatorService.getBonusPointsForRental(this);
+        long bonusPointsForRental = DomainRegistry.bonusPointsCalculatorService().getBonusPointsForRental(this);
         return bonusPointsForRental;
     }
 
@@ -270,7 +360,7 @@ public class Rental {
     }
 
     private Payment getPaymentById(final PaymentId paymentId) {
-        Optional<Payment> paymentWithId = getPayments().stream().filter(p -> p.getId().equals(paymentId)).findFirst();
+        Optional<Payment> paymentWithId = Optional.ofNullable(getPaymentsById().get(paymentId));
         return paymentWithId.get();
     }
 
@@ -298,7 +388,7 @@ public class Rental {
     void handleReturnInPaidStatus() {
         if (isOverdue()) {
             Payment surchargePayment = getPaymentForSurcharge();
-            getPayments().add(surchargePayment);
+            addPayment(surchargePayment);
             setStatus(RentalStatus.AWAITING_PAYMENT_OVERDUE);
             throw new IllegalStateException(RETURN_OVERDUE_RENTAL_FAILURE_MESSAGE);
         } else {
@@ -313,7 +403,7 @@ public class Rental {
      * @return <p>a Payment with the total surcharge amount of the given Rental</p>
      */
     public Payment getPaymentForSurcharge() {
-        long rentalSurchargePrice = rentalPriceCalculatorService.getSurchargePrice(this);
+        long rentalSurchargePrice = DomainRegistry.rentalPriceCalculatorService().getSurchargePrice(this);
         return getPaymentForRentalWithPrice(rentalSurchargePrice);
     }
 
@@ -339,7 +429,7 @@ public class Rental {
      */
     void updatePendingPaymentPriceForRental() {
         Payment pendingPayment = getPendingPayment();
-        long updatedRentalPrice = rentalPriceCalculatorService.getPrice(this);
+        long updatedRentalPrice = DomainRegistry.rentalPriceCalculatorService().getPrice(this);
         pendingPayment.setAmount(updatedRentalPrice);
     }
 
@@ -349,9 +439,68 @@ public class Rental {
      * @throws NoSuchElementException <p>in case the Payment could not be found</p>
      */
     Payment getPendingPayment() {
-        Optional<Payment> payment =
-                getPayments().stream().filter(p -> p.getStatus().equals(PaymentStatus.PENDING)).findFirst();
-        return payment.get();
+        return getPendingPaymentsById().values().iterator().next();
+    }
+
+    /**
+     * Adds a Payment to a Rental, indexing it along with the rest of its Payments
+     * @param payment <p>the Payment to add</p>
+     */
+    void addPayment(Payment payment) {
+        payments.add(payment);
+        if (paymentsById != null) {
+            indexPayment(payment);
+        }
+    }
+
+    /**
+     * Updates the index of PENDING Payments of a Rental, once the status of one of its Payments has changed
+     * @param payment <p>the Payment whose status has changed</p>
+     */
+    void paymentStatusChanged(Payment payment) {
+        if (pendingPaymentsById != null) {
+            if (payment.getStatus().equals(PaymentStatus.PENDING)) {
+                pendingPaymentsById.put(payment.getId(), payment);
+            } else {
+                pendingPaymentsById.remove(payment.getId());
+            }
+        }
+    }
+
+    /**
+     * Gets the Payments of a Rental by their identifiers. Payments are indexed the first time they are looked up,
+     * rather than when the Rental is loaded, so that Rentals whose Payments are never looked up don't load them
+     * @return <p>the Payments of a Rental by their identifiers</p>
+     */
+    private Map<PaymentId, Payment> getPaymentsById() {
+        if (paymentsById == null) {
+            indexPayments();
+        }
+        return paymentsById;
+    }
+
+    /**
+     * Gets the PENDING Payments of a Rental by their identifiers, in the same order as they were added to it
+     * @return <p>the PENDING Payments of a Rental by their identifiers</p>
+     */
+    private Map<PaymentId, Payment> getPendingPaymentsById() {
+        if (pendingPaymentsById == null) {
+            indexPayments();
+        }
+        return pendingPaymentsById;
+    }
+
+    private void indexPayments() {
+        paymentsById = new HashMap<>();
+        pendingPaymentsById = new LinkedHashMap<>();
+        payments.forEach(this::indexPayment);
+    }
+
+    private void indexPayment(Payment payment) {
+        paymentsById.put(payment.getId(), payment);
+        if (payment.getStatus().equals(PaymentStatus.PENDING)) {
+            pendingPaymentsById.put(payment.getId(), payment);
+        }
     }
 
     /**
@@ -366,20 +515,34 @@ public class Rental {
     }
 
     /**
-     * Replaces all Rental Items in a Rental, with new ones corresponding to the new selection of Films
+     * Replaces all Rental Items in a Rental, with the ones corresponding to the new selection of Films. Rental Items
+     * whose Films are still selected are kept as they are, so only the Rental Items of the Films no longer selected are
+     * deleted, and only those of the newly selected Films are inserted. A Film selected more than once keeps as many
+     * Rental Items
      * @param films <p>the new selection of Films used to replace the old Rental Items</p>
      */
     private void replaceAllRentalItemsInRental(List<Film> films) {
-        List<RentalItem> rentalItems = toRentalItemList(films);
-        removeAllRentalItems();
-        getItems().addAll(rentalItems);
+        Map<Long, Integer> unmatchedFilmCounts = new HashMap<>();
+        films.forEach(f -> unmatchedFilmCounts.merge(f.getId(), 1, Integer::sum));
+        getItems().removeIf(i -> !matchFilm(unmatchedFilmCounts, i.getFilm().getId()));
+        films.stream().filter(f -> matchFilm(unmatchedFilmCounts, f.getId()))
+                .forEach(f -> getItems().add(RentalItem.from(f, this)));
     }
 
     /**
-     * Removes all Rental Items from a Rental
+     * Matches a Film against the Films which are still unmatched, if any of them has the same identifier
+     * @param unmatchedFilmCounts <p>the number of Films still unmatched, by Film identifier</p>
+     * @param filmId <p>the identifier of the Film to match</p>
+     * @return <ul><li>True, if there was a Film still unmatched with the given identifier, which is now matched</li>
+     * <li>False otherwise</li></ul>
      */
-    void removeAllRentalItems() {
-        IntStream.range(0, getItems().size()).forEach(idx -> getItems().remove(0));
+    private static boolean matchFilm(Map<Long, Integer> unmatchedFilmCounts, Long filmId) {
+        Integer unmatchedFilmCount = unmatchedFilmCounts.get(filmId);
+        if (unmatchedFilmCount == null || unmatchedFilmCount == 0) {
+            return false;
+        }
+        unmatchedFilmCounts.put(filmId, unmatchedFilmCount - 1);
+        return true;
     }
 
     /**
@@ -398,18 +561,19 @@ public class Rental {
      * @return <p>a Payment with the total amount of the given Rental</p>
      */
     private Payment getPayment() {
-        long rentalPrice = rentalPriceCalculatorService.getPrice(this);
+        long rentalPrice = DomainRegistry.rentalPriceCalculatorService().getPrice(this);
         return getPaymentForRentalWithPrice(rentalPrice);
     }
 
     private Payment getPaymentForRentalWithPrice(long rentalPrice) {
         Payment payment = new Payment();
-        PaymentId paymentId = new PaymentId(getId().getCustomerId(), getId().getId(), System.nanoTime());
+        PaymentId paymentId = new PaymentId(getId().getCustomerId(), getId().getId(),
+                DomainRegistry.idGenerator().nextId());
         payment.setId(paymentId);
         payment.setRental(this);
         payment.setAmount(rentalPrice);
         payment.setDate(new Date());
-        payment.setCurrency(rentalPriceCalculatorService.getPriceCurrency().toString());
+        payment.setCurrency(DomainRegistry.rentalPriceCalculatorService().getPriceCurrency().toString());
         return payment;
     }
 
@@ -18,6 +18,7 @@ public class RentalId implements Serializable {
     private Long customerId;
     @Column(name="ID")
     private Long id;
+    private transient String formatted;
 
     protected RentalId() {
     }
@@ -55,21 +56,11 @@ public class RentalId implements Serializable {
             throw new IllegalArgumentException(RENTAL_ID_PARSING_ERROR_MESSAGE);
         }
 
-        String rentalIdParts[] = rentalIdString.split("\\.");
-        if (rentalIdParts.length != 2) {
-            throw new IllegalArgumentException(RENTAL_ID_PARSING_ERROR_MESSAGE);
-        }
-
-        try {
-            String rentalIdPart = rentalIdParts[0];
-            String idPart = rentalIdParts[1];
-            Long rentalId = Long.parseLong(rentalIdPart);
-            Long id = Long.parseLong(idPart);
-            return new RentalId(rentalId, id);
-        } catch (NumberFormatException nfe) {
-            throw new IllegalArgumentException(RENTAL_ID_PARSING_ERROR_MESSAGE);
-        }
-
+        int customerIdEnd = CompositeIds.indexOfSeparator(rentalIdString, 0, RENTAL_ID_PARSING_ERROR_MESSAGE);
+        long customerId = CompositeIds.parsePart(rentalIdString, 0, customerIdEnd, RENTAL_ID_PARSING_ERROR_MESSAGE);
+        long id = CompositeIds.parsePart(rentalIdString, customerIdEnd + 1, rentalIdString.length(),
+                RENTAL_ID_PARSING_ERROR_MESSAGE);
+        return new RentalId(customerId, id);
     }
 
     @Override
@@ -83,11 +74,19 @@ public class RentalId implements Serializable {
 
     @Override
     public int hashCode() {
-        return Objects.hash(getId(), getCustomerId());
+        return 31 * Objects.hashCode(customerId) + Objects.hashCode(id);
     }
 
     @Override
     public String toString() {
-        return getCustomerId() + "." + getId();
+        String formatted = this.formatted;
+        if (formatted == null) {
+            if (customerId == null || id == null) {
+                return customerId + "." + id;
+            }
+            formatted = CompositeIds.format(customerId, id);
+            this.formatted = formatted;
+        }
+        return formatted;
     }
 }
@@ -79,8 +79,8 @@ public class RentalItem {
      */
     public static RentalItem from(Film film, Rental rental) {
         RentalItem rentalItem = new RentalItem();
-        RentalItemId rentalItemId =
-                new RentalItemId(rental.getId().getCustomerId(), rental.getId().getId(), System.nanoTime());
+        RentalItemId rentalItemId = new RentalItemId(rental.getId().getCustomerId(), rental.getId().getId(),
+                DomainRegistry.idGenerator().nextId());
         rentalItem.setId(rentalItemId);
         rentalItem.setFilm(film);
         rentalItem.setRental(rental);
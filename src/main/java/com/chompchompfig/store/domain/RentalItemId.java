@@ -20,6 +20,7 @@ public class RentalItemId implements Serializable {
     private Long rentalId;
     @Column(name="ID")
     private Long id;
+    private transient String formatted;
 
     protected RentalItemId() {
     }
@@ -66,24 +67,16 @@ public class RentalItemId implements Serializable {
             throw new IllegalArgumentException(RENTAL_ITEM_ID_PARSING_ERROR_MESSAGE);
         }
 
-        String rentalItemIdParts[] = rentalItemIdString.split("\\.");
-        if (rentalItemIdParts.length != 3) {
-            throw new IllegalArgumentException(RENTAL_ITEM_ID_PARSING_ERROR_MESSAGE);
-        }
-
-        try {
-            String rentalItemCustomerIdPart = rentalItemIdParts[0];
-            String rentalItemRentalIdPart = rentalItemIdParts[1];
-            String idPart = rentalItemIdParts[2];
-
-            Long rentalItemCustomerId = Long.parseLong(rentalItemCustomerIdPart);
-            Long rentalItemRentalId = Long.parseLong(rentalItemRentalIdPart);
-            Long id = Long.parseLong(idPart);
-            return new RentalItemId(rentalItemCustomerId, rentalItemRentalId, id);
-        } catch (NumberFormatException nfe) {
-            throw new IllegalArgumentException(RENTAL_ITEM_ID_PARSING_ERROR_MESSAGE);
-        }
-
+        int customerIdEnd = CompositeIds.indexOfSeparator(rentalItemIdString, 0, RENTAL_ITEM_ID_PARSING_ERROR_MESSAGE);
+        long customerId = CompositeIds.parsePart(rentalItemIdString, 0, customerIdEnd,
+                RENTAL_ITEM_ID_PARSING_ERROR_MESSAGE);
+        int rentalIdEnd = CompositeIds.indexOfSeparator(rentalItemIdString, customerIdEnd + 1,
+                RENTAL_ITEM_ID_PARSING_ERROR_MESSAGE);
+        long rentalId = CompositeIds.parsePart(rentalItemIdString, customerIdEnd + 1, rentalIdEnd,
+                RENTAL_ITEM_ID_PARSING_ERROR_MESSAGE);
+        long id = CompositeIds.parsePart(rentalItemIdString, rentalIdEnd + 1, rentalItemIdString.length(),
+                RENTAL_ITEM_ID_PARSING_ERROR_MESSAGE);
+        return new RentalItemId(customerId, rentalId, id);
     }
 
     @Override
@@ -97,13 +90,19 @@ public class RentalItemId implements Serializable {
 
     @Override
     public int hashCode() {
-        return Objects.hash(getId(), getRentalId(), getCustomerId());
+        return 31 * (31 * Objects.hashCode(customerId) + Objects.hashCode(rentalId)) + Objects.hashCode(id);
     }
 
     @Override
     public String toString() {
-        return getCustomerId() + "." + getRentalId() + "." + getId();
+        String formatted = this.formatted;
+        if (formatted == null) {
+            if (customerId == null || rentalId == null || id == null) {
+                return customerId + "." + rentalId + "." + id;
+            }
+            formatted = CompositeIds.format(customerId, rentalId, id);
+            this.formatted = formatted;
+        }
+        return formatted;
     }
-
 }
-
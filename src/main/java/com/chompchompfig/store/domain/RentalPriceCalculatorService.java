@@ -7,6 +7,12 @@ import java.util.Currency;
  */
 public interface RentalPriceCalculatorService {
 
+    /**
+     * The property picking the RentalPriceCalculatorService in use, either "category-based", the default when the
+     * property isn't set, "precomputed", or "rule-table", the one configured in application.properties
+     */
+    String PRICING_ENGINE_PROPERTY = "store.pricing.engine";
+
     /**
      * Gets the Currency used by all operations of this service
      * @return <p>the Currency in which all prices will be calculated by this service</p>
@@ -36,4 +42,12 @@ public interface RentalPriceCalculatorService {
      */
     long getSurchargePrice(Rental rental);
 
+    /**
+     * Gets the total surcharge price of renting a list of Films in a Rental, had the Rental lasted the given number of
+     * days
+     * @param rental <p>the Rental for which we would like to calculate the Rental surcharge price</p>
+     * @param effectiveRentalDays <p>the effective number of days that the Rental lasted</p>
+     * @return <p>the total surcharge price of renting all Films in a Rental for the given effective number of days</p>
+     */
+    long getSurchargePrice(Rental rental, int effectiveRentalDays);
 }
@@ -0,0 +1,99 @@
+package com.chompchompfig.store.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A RentalPriceCalculatorService charging the prices set by a table of rules, read from a properties file outside of
+ * the application. See {@link PricingRules#from(Properties)} for the format of the file. The file is read again every
+ * so often, and its rules compiled into a new PricingRules snapshot, which replaces the one in use as a whole. Prices
+ * are therefore changed without redeploying, and calculating them never takes a lock. Should the file turn out to be
+ * invalid, the rules in use are kept until it is fixed. Until the file is created, the rules shipped with the
+ * application are charged instead
+ */
+@Service
+@ConditionalOnProperty(name = RentalPriceCalculatorService.PRICING_ENGINE_PROPERTY, havingValue = "rule-table")
+public class RuleTableRentalPriceCalculatorService extends PrecomputedRentalPriceCalculatorService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RuleTableRentalPriceCalculatorService.class);
+
+    private final Resource pricingRulesResource;
+    private final AtomicReference<PricingRules> pricingRules = new AtomicReference<>();
+
+    /**
+     * Creates a new RuleTableRentalPriceCalculatorService with the rules in the given file, or with the fallback
+     * rules in case the file doesn't exist yet
+     * @param pricingRulesResource <p>the properties file holding the pricing rules, which is read again every so
+     * often</p>
+     * @param fallbackPricingRulesResource <p>the properties file holding the rules to charge until the pricing rules
+     * file is created, which is only read on creation</p>
+     * @throws IOException <p>in case the file in use can't be read</p>
+     * @throws IllegalArgumentException <p>in case the rules in the file in use are invalid</p>
+     */
+    @Autowired
+    public RuleTableRentalPriceCalculatorService(
+            @Value("${store.pricing.rules-location:file:./config/pricing-rules.properties}")
+                    Resource pricingRulesResource,
+            @Value("${store.pricing.fallback-rules-location:classpath:pricing-rules.properties}")
+                    Resource fallbackPricingRulesResource) throws IOException {
+        this.pricingRulesResource = pricingRulesResource;
+        if (pricingRulesResource.exists()) {
+            this.pricingRules.set(loadPricingRules(pricingRulesResource));
+        } else {
+            LOGGER.info("Can't find the pricing rules at {}, charging those from {} until it is created",
+                    pricingRulesResource.getDescription(), fallbackPricingRulesResource.getDescription());
+            this.pricingRules.set(loadPricingRules(fallbackPricingRulesResource));
+        }
+    }
+
+    /**
+     * @see PrecomputedRentalPriceCalculatorService#getPricingRules()
+     */
+    @Override
+    protected PricingRules getPricingRules() {
+        return pricingRules.get();
+    }
+
+    /**
+     * Reads the pricing rules file again, and starts charging its prices in case they changed. The rules in use are
+     * kept in case the file doesn't exist, can't be read or is invalid
+     * @return <p>the PricingRules in use after reloading</p>
+     */
+    @Scheduled(fixedDelayString = "${store.pricing.reload-interval:60000}",
+            initialDelayString = "${store.pricing.reload-interval:60000}")
+    public PricingRules reloadPricingRules() {
+        if (!pricingRulesResource.exists()) {
+            return pricingRules.get();
+        }
+        try {
+            PricingRules reloadedPricingRules = loadPricingRules(pricingRulesResource);
+            if (!reloadedPricingRules.equals(pricingRules.get())) {
+                pricingRules.set(reloadedPricingRules);
+                LOGGER.info("Reloaded the pricing rules from {}", pricingRulesResource.getDescription());
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.error("Can't reload the pricing rules from {}, keeping the current ones",
+                    pricingRulesResource.getDescription(), e);
+        }
+        return pricingRules.get();
+    }
+
+    private static PricingRules loadPricingRules(Resource resource) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream inputStream = resource.getInputStream()) {
+            properties.load(inputStream);
+        }
+        return PricingRules.from(properties);
+    }
+}
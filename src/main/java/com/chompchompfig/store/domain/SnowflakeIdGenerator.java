@@ -0,0 +1,79 @@
+package com.chompchompfig.store.domain;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A Snowflake style IdGenerator. Identifiers are made of 41 bits with the milliseconds elapsed since the
+ * {@link #EPOCH}, 10 bits with the identifier of the node generating them, and 12 bits with a sequence number
+ * discriminating the identifiers generated within the same millisecond. Identifiers are therefore unique across up to
+ * 1024 nodes, and grow monotonically within each node.
+ * <p>
+ * The last timestamp and sequence number handed out are kept together in a single AtomicLong, and updated with a
+ * compare and set, so no locks are taken and nothing is allocated when generating identifiers. Should the sequence
+ * run out within a millisecond, or should the clock go backwards, the generator borrows the following milliseconds
+ * rather than waiting for the clock to catch up
+ * @see IdGenerator
+ */
+@Component
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    public static final long EPOCH = 1514764800000l; // 2018-01-01T00:00:00Z
+    public static final int TIMESTAMP_BITS = 41;
+    public static final int NODE_ID_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final long MAX_NODE_ID = (1l << NODE_ID_BITS) - 1;
+    public static final long MAX_TIMESTAMP = (1l << TIMESTAMP_BITS) - 1;
+    public static final long SEQUENCE_MASK = (1l << SEQUENCE_BITS) - 1;
+    public static final String INVALID_NODE_ID_MESSAGE = "The node identifier must be between 0 and " + MAX_NODE_ID;
+    public static final String EXHAUSTED_IDS_MESSAGE = "No more identifiers can be generated past the year 2087";
+
+    private final long nodeIdBits;
+    private final LongSupplier clock;
+    private final AtomicLong lastTimestampAndSequence = new AtomicLong();
+
+    /**
+     * Creates a new SnowflakeIdGenerator for the given node
+     * @param nodeId <p>the identifier of the node, unique among all the nodes running the store</p>
+     * @throws IllegalArgumentException <p>in case the node identifier is out of range</p>
+     */
+    @Autowired
+    public SnowflakeIdGenerator(@Value("${store.id-generator.node-id:0}") long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException(INVALID_NODE_ID_MESSAGE);
+        }
+        this.nodeIdBits = nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    /**
+     * @see IdGenerator#nextId()
+     */
+    @Override
+    public long nextId() {
+        long last;
+        long next;
+        do {
+            last = lastTimestampAndSequence.get();
+            long timestamp = clock.getAsLong() - EPOCH;
+            next = timestamp > (last >>> SEQUENCE_BITS) ? timestamp << SEQUENCE_BITS : last + 1;
+        } while (!lastTimestampAndSequence.compareAndSet(last, next));
+        return toId(next);
+    }
+
+    private long toId(long timestampAndSequence) {
+        long timestamp = timestampAndSequence >>> SEQUENCE_BITS;
+        if (timestamp > MAX_TIMESTAMP) {
+            throw new IllegalStateException(EXHAUSTED_IDS_MESSAGE);
+        }
+        return timestamp << (NODE_ID_BITS + SEQUENCE_BITS) | nodeIdBits | (timestampAndSequence & SEQUENCE_MASK);
+    }
+}
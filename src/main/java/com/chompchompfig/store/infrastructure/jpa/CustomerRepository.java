@@ -1,17 +1,80 @@
 package com.chompchompfig.store.infrastructure.jpa;
 
 import com.chompchompfig.store.domain.Customer;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 /**
- * A Repository of Customers, as per DDD
+ * A Repository of Customers, as per DDD. Pages of Customers are loaded read-only, as they are only meant to be listed,
+ * while the Rentals listed along with them are queried as {@link RentalSummary} projections
  */
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
     List<Customer> findAll();
 
+    /**
+     * Finds a Customer together with its Rentals, in a single query
+     * @param id <p>the identifier of the Customer to find</p>
+     * @return <p>the Customer with its Rentals already loaded, if found</p>
+     */
+    @EntityGraph(Customer.WITH_RENTALS_GRAPH)
+    Optional<Customer> findWithRentalsById(Long id);
+
+    /**
+     * Counts the Rentals of a Customer, through the primary key of Rentals, without loading any of them
+     * @param id <p>the identifier of the Customer whose Rentals to count</p>
+     * @return <p>the number of Rentals of the Customer</p>
+     */
+    @Query("select count(r) from Rental r where r.id.customerId = :id")
+    long countRentalsById(@Param("id") Long id);
+
+    /**
+     * Finds the summaries of the Rentals of the given Customers, reading just the primary key of their Rentals, in
+     * ascending RentalId order
+     * @param customerIds <p>the identifiers of the Customers whose Rentals to find, which must not be empty</p>
+     * @return <p>the summaries of the Rentals of the Customers</p>
+     */
+    @Query("select new com.chompchompfig.store.infrastructure.jpa.RentalSummary(r.id.customerId, r.id.id) " +
+            "from Rental r where r.id.customerId in :customerIds order by r.id.customerId asc, r.id.id asc")
+    List<RentalSummary> findRentalSummariesByCustomerIdIn(@Param("customerIds") Collection<Long> customerIds);
+
+    /**
+     * Finds the first Customers, in ascending identifier order
+     * @param pageable <p>the number of Customers to fetch</p>
+     * @return <p>the first Customers</p>
+     */
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    List<Customer> findAllByOrderByIdAsc(Pageable pageable);
+
+    /**
+     * Finds the Customers whose identifier comes right after the given one, in ascending identifier order
+     * @param id <p>the identifier to seek from</p>
+     * @param pageable <p>the number of Customers to fetch</p>
+     * @return <p>the Customers after the given identifier</p>
+     */
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    List<Customer> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Finds the Customers whose identifier comes right before the given one, in descending identifier order
+     * @param id <p>the identifier to seek from</p>
+     * @param pageable <p>the number of Customers to fetch</p>
+     * @return <p>the Customers before the given identifier</p>
+     */
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    List<Customer> findByIdLessThanOrderByIdDesc(Long id, Pageable pageable);
+
 }
@@ -1,6 +1,7 @@
 package com.chompchompfig.store.infrastructure.jpa;
 
 import com.chompchompfig.store.domain.Film;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,8 +11,39 @@ import java.util.List;
  * A Repository of Films, as per DDD
  */
 @Repository
-public interface FilmRepository extends CrudRepository<Film, Long> {
+public interface FilmRepository extends CrudRepository<Film, Long>, FilmRepositoryCustom {
 
     List<Film> findAll();
 
+    /**
+     * Finds the first Films, in ascending identifier order
+     * @param pageable <p>the number of Films to fetch</p>
+     * @return <p>the first Films</p>
+     */
+    List<Film> findAllByOrderByIdAsc(Pageable pageable);
+
+    /**
+     * Finds the Films whose identifier comes right after the given one, in ascending identifier order
+     * @param id <p>the identifier to seek from</p>
+     * @param pageable <p>the number of Films to fetch</p>
+     * @return <p>the Films after the given identifier</p>
+     */
+    List<Film> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Finds the Films whose identifier comes right before the given one, in descending identifier order
+     * @param id <p>the identifier to seek from</p>
+     * @param pageable <p>the number of Films to fetch</p>
+     * @return <p>the Films before the given identifier</p>
+     */
+    List<Film> findByIdLessThanOrderByIdDesc(Long id, Pageable pageable);
+
+    /**
+     * Finds the Films which are available, or unavailable, for renting, through the index on their availability
+     * @param isAvailable <ul><li>True, to find the available Films</li><li>False, to find the unavailable ones</li>
+     * </ul>
+     * @return <p>the Films with the given availability</p>
+     */
+    List<Film> findByIsAvailable(boolean isAvailable);
+
 }
@@ -0,0 +1,32 @@
+package com.chompchompfig.store.infrastructure.jpa;
+
+import com.chompchompfig.store.domain.Film;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Custom Film Repository operations, which can't be derived by Spring Data
+ */
+public interface FilmRepositoryCustom {
+
+    /**
+     * Marks the given Films as unavailable, but only if they are available. Every Film is updated with its own
+     * conditional UPDATE, all of them sent in a single JDBC batch, so it is known exactly which Films were not
+     * available. Film versions are left untouched, as the Films claimed are expected to be marked as unavailable
+     * through their Entities later on in the same transaction. The updates bypass the second level cache, so the
+     * given Films are evicted from it
+     * @param filmIds <p>the identifiers of the Films to mark as unavailable</p>
+     * @return <p>the identifiers of the Films which were not available, and therefore were not updated</p>
+     */
+    List<Long> claimAvailable(Collection<Long> filmIds);
+
+    /**
+     * Finds the Films with the given identifiers, like findAllById does, but serving the Films in the second level
+     * cache straight from it. Only the Films missing from the cache are fetched, all of them in a single query, which
+     * puts them in the cache for later lookups
+     * @param filmIds <p>the identifiers of the Films to find</p>
+     * @return <p>the Films found with the given identifiers</p>
+     */
+    List<Film> findAllByIdCached(Collection<Long> filmIds);
+}
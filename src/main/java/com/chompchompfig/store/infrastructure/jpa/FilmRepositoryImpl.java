@@ -0,0 +1,76 @@
+package com.chompchompfig.store.infrastructure.jpa;
+
+import com.chompchompfig.store.domain.Film;
+import org.hibernate.Session;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * JDBC and second level cache aware implementation of the custom Film Repository operations
+ * @see FilmRepositoryCustom
+ */
+public class FilmRepositoryImpl implements FilmRepositoryCustom {
+
+    static final String CLAIM_AVAILABLE_FILM_SQL =
+            "UPDATE FILM SET IS_AVAILABLE = FALSE WHERE ID = ? AND IS_AVAILABLE = TRUE";
+    static final String FIND_FILMS_BY_IDS_JPQL = "select f from Film f where f.id in :ids";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * @see FilmRepositoryCustom#claimAvailable(Collection)
+     */
+    @Override
+    public List<Long> claimAvailable(Collection<Long> filmIds) {
+        List<Long> orderedFilmIds = new ArrayList<>(filmIds);
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        orderedFilmIds.forEach(filmId -> cache.evict(Film.class, filmId));
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(CLAIM_AVAILABLE_FILM_SQL)) {
+                for (Long filmId : orderedFilmIds) {
+                    statement.setLong(1, filmId);
+                    statement.addBatch();
+                }
+                int[] updateCounts = statement.executeBatch();
+                List<Long> unavailableFilmIds = new ArrayList<>();
+                for (int i = 0; i < updateCounts.length; i++) {
+                    if (updateCounts[i] == 0) {
+                        unavailableFilmIds.add(orderedFilmIds.get(i));
+                    }
+                }
+                return unavailableFilmIds;
+            }
+        });
+    }
+
+    /**
+     * @see FilmRepositoryCustom#findAllByIdCached(Collection)
+     */
+    @Override
+    public List<Film> findAllByIdCached(Collection<Long> filmIds) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        List<Film> films = new ArrayList<>(filmIds.size());
+        List<Long> uncachedFilmIds = new ArrayList<>();
+        for (Long filmId : new LinkedHashSet<>(filmIds)) {
+            Film film = cache.contains(Film.class, filmId) ? entityManager.find(Film.class, filmId) : null;
+            if (film != null) {
+                films.add(film);
+            } else {
+                uncachedFilmIds.add(filmId);
+            }
+        }
+        if (!uncachedFilmIds.isEmpty()) {
+            films.addAll(entityManager.createQuery(FIND_FILMS_BY_IDS_JPQL, Film.class)
+                    .setParameter("ids", uncachedFilmIds).getResultList());
+        }
+        return films;
+    }
+}
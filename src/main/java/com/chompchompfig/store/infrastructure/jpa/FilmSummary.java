@@ -0,0 +1,73 @@
+package com.chompchompfig.store.infrastructure.jpa;
+
+import com.chompchompfig.store.domain.Film;
+import com.chompchompfig.store.domain.RentalId;
+
+/**
+ * A read only projection of a Film rented in a Rental, holding just its identifier and name, for the views embedding
+ * the Films of Rentals. FilmSummaries are built by the Repositories straight out of the columns they query, so neither
+ * RentalItems nor Films get into the persistence context
+ */
+public class FilmSummary {
+
+    private final RentalId rentalId;
+    private final Long filmId;
+    private final String name;
+
+    /**
+     * Creates a new FilmSummary out of the columns of a RentalItem and its Film, as done by constructor expressions
+     * @param customerId <p>the identifier of the Customer the Rental belongs to</p>
+     * @param rentalId <p>the identifier of the Rental within those of its Customer</p>
+     * @param filmId <p>the identifier of the Film rented</p>
+     * @param name <p>the name of the Film rented</p>
+     */
+    public FilmSummary(Long customerId, Long rentalId, Long filmId, String name) {
+        this(new RentalId(customerId, rentalId), filmId, name);
+    }
+
+    /**
+     * Creates a new FilmSummary
+     * @param rentalId <p>the identifier of the Rental the Film was rented in</p>
+     * @param filmId <p>the identifier of the Film rented</p>
+     * @param name <p>the name of the Film rented</p>
+     */
+    public FilmSummary(RentalId rentalId, Long filmId, String name) {
+        this.rentalId = rentalId;
+        this.filmId = filmId;
+        this.name = name;
+    }
+
+    /**
+     * Creates a new FilmSummary out of a Film already loaded
+     * @param rentalId <p>the identifier of the Rental the Film was rented in</p>
+     * @param film <p>the Film to summarize</p>
+     * @return <p>the summary of the Film</p>
+     */
+    public static FilmSummary of(RentalId rentalId, Film film) {
+        return new FilmSummary(rentalId, film.getId(), film.getName());
+    }
+
+    /**
+     * Gets the identifier of the Rental the Film was rented in
+     * @return <p>the Rental unique identifier</p>
+     */
+    public RentalId getRentalId() {
+        return rentalId;
+    }
+
+    /**
+     * Gets the unique identifier of the Film
+     * @return <p>the Film unique identifier</p>
+     */
+    public Long getFilmId() {
+        return filmId;
+    }
+
+    /**
+     * Gets the name of the Film
+     * @return <p>the Film name</p>
+     */
+    public String getName() {
+        return name;
+    }
+}
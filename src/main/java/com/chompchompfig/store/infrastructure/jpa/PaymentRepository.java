@@ -2,17 +2,101 @@ package com.chompchompfig.store.infrastructure.jpa;
 
 import com.chompchompfig.store.domain.Payment;
 import com.chompchompfig.store.domain.PaymentId;
+import com.chompchompfig.store.domain.PaymentStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 /**
- * A Repository of Payments, as per DDD
+ * A Repository of Payments, as per DDD. Pages of Payments come with their Rentals and Customers fetched in the same
+ * query
  */
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, PaymentId> {
 
     List<Payment> findAll();
 
+    /**
+     * Finds the Payments of a Customer in the given status, with their Rentals, through the index on the status and
+     * Customer of Payments
+     * @param status <p>the status of the Payments to find</p>
+     * @param customerId <p>the identifier of the Customer whose Payments to find</p>
+     * @return <p>the Payments of the Customer in the given status, in ascending PaymentId order</p>
+     */
+    @Query("select p from Payment p join fetch p.rental r join fetch r.customer " +
+            "where p.status = :status and p.id.customerId = :customerId " +
+            "order by p.id.customerId asc, p.id.rentalId asc, p.id.id asc")
+    List<Payment> findByStatusAndCustomerId(@Param("status") PaymentStatus status,
+                                            @Param("customerId") Long customerId);
+
+    /**
+     * Finds the PENDING Payments of a Customer, with their Rentals. These are the Payments the Customer still has to
+     * perform
+     * @param customerId <p>the identifier of the Customer whose Payments to find</p>
+     * @return <p>the PENDING Payments of the Customer, in ascending PaymentId order</p>
+     */
+    default List<Payment> findPendingByCustomerId(Long customerId) {
+        return findByStatusAndCustomerId(PaymentStatus.PENDING, customerId);
+    }
+
+    /**
+     * Finds the first Payments, in ascending PaymentId order
+     * @param pageable <p>the number of Payments to fetch</p>
+     * @return <p>the first Payments</p>
+     */
+    @Query("select p from Payment p join fetch p.rental r join fetch r.customer " +
+            "order by p.id.customerId asc, p.id.rentalId asc, p.id.id asc")
+    List<Payment> findFirstPage(Pageable pageable);
+
+    /**
+     * Finds the Payments whose PaymentId comes right after the given one, in ascending PaymentId order
+     * @param after <p>the PaymentId to seek from</p>
+     * @param pageable <p>the number of Payments to fetch</p>
+     * @return <p>the Payments after the given PaymentId</p>
+     */
+    @Query("select p from Payment p join fetch p.rental r join fetch r.customer " +
+            "where p.id.customerId > :#{#after.customerId} or " +
+            "(p.id.customerId = :#{#after.customerId} and (p.id.rentalId > :#{#after.rentalId} or " +
+            "(p.id.rentalId = :#{#after.rentalId} and p.id.id > :#{#after.id}))) " +
+            "order by p.id.customerId asc, p.id.rentalId asc, p.id.id asc")
+    List<Payment> findPageAfter(@Param("after") PaymentId after, Pageable pageable);
+
+    /**
+     * Finds the Payments whose PaymentId comes right before the given one, in descending PaymentId order
+     * @param before <p>the PaymentId to seek from</p>
+     * @param pageable <p>the number of Payments to fetch</p>
+     * @return <p>the Payments before the given PaymentId</p>
+     */
+    @Query("select p from Payment p join fetch p.rental r join fetch r.customer " +
+            "where p.id.customerId < :#{#before.customerId} or " +
+            "(p.id.customerId = :#{#before.customerId} and (p.id.rentalId < :#{#before.rentalId} or " +
+            "(p.id.rentalId = :#{#before.rentalId} and p.id.id < :#{#before.id}))) " +
+            "order by p.id.customerId desc, p.id.rentalId desc, p.id.id desc")
+    List<Payment> findPageBefore(@Param("before") PaymentId before, Pageable pageable);
+
+    /**
+     * Streams the Payments dated within the given period, with their Rentals and Customers, in ascending PaymentId
+     * order. Rows are read from the database as the Stream is consumed, so it must be consumed, and closed, within
+     * a transaction. Payments are loaded read-only, as they are not meant to be modified
+     * @param from <p>the date the period starts at, inclusive. Null for no lower bound</p>
+     * @param to <p>the date the period ends at, exclusive. Null for no upper bound</p>
+     * @return <p>a Stream of the Payments dated within the given period</p>
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = RentalRepository.STREAM_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select p from Payment p join fetch p.rental r join fetch r.customer " +
+            "where (:from is null or p.date >= :from) and (:to is null or p.date < :to) " +
+            "order by p.id.customerId asc, p.id.rentalId asc, p.id.id asc")
+    Stream<Payment> streamAllByDate(@Param("from") Date from, @Param("to") Date to);
 }
@@ -0,0 +1,23 @@
+package com.chompchompfig.store.infrastructure.jpa;
+
+import com.chompchompfig.store.domain.PaymentRequest;
+import com.chompchompfig.store.domain.PaymentRequestStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * A Repository of PaymentRequests, keyed by their idempotency keys. The primary key on the idempotency key is what
+ * settles which one of the requests made at the same time with the same key gets to perform the Payment
+ */
+@Repository
+public interface PaymentRequestRepository extends JpaRepository<PaymentRequest, String> {
+
+    /**
+     * Finds the PaymentRequests in the given status, through the index on the status of PaymentRequests
+     * @param status <p>the status of the PaymentRequests to find</p>
+     * @return <p>the PaymentRequests in the given status</p>
+     */
+    List<PaymentRequest> findByStatus(PaymentRequestStatus status);
+}
@@ -2,17 +2,193 @@ package com.chompchompfig.store.infrastructure.jpa;
 
 import com.chompchompfig.store.domain.Rental;
 import com.chompchompfig.store.domain.RentalId;
+import com.chompchompfig.store.domain.RentalStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 /**
- * A Repository of Rentals, as per DDD
+ * A Repository of Rentals, as per DDD. Pages of Rentals come with their Customers fetched in the same query, and are
+ * loaded read-only. The Films of a page are queried as {@link FilmSummary} projections in a single query, while the
+ * Payments are batch fetched, so rendering a page costs the same number of queries no matter its size
  */
 @Repository
 public interface RentalRepository extends JpaRepository<Rental, RentalId> {
 
+    /**
+     * The number of rows fetched from the database at a time by the streaming queries
+     */
+    String STREAM_FETCH_SIZE = "100";
+
     List<Rental> findAll();
 
+    /**
+     * Finds a Rental which is about to be modified, incrementing its version when the transaction commits even if only
+     * its Items change. Items are not owned by the Rental row, so changing them wouldn't change its version otherwise
+     * @param id <p>the identifier of the Rental to find</p>
+     * @return <p>the Rental, if found</p>
+     */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    Optional<Rental> findForUpdateById(RentalId id);
+
+    /**
+     * Counts the Rentals in the given status. Rentals are counted through the index on their status and start date
+     * @param status <p>the status of the Rentals to count</p>
+     * @return <p>the number of Rentals in the given status</p>
+     */
+    long countByStatus(RentalStatus status);
+
+    /**
+     * Finds the Rentals in the given status, with their Customers, in ascending RentalId order. Rentals are looked up
+     * through the index on their status and start date
+     * @param status <p>the status of the Rentals to find</p>
+     * @param pageable <p>the number of Rentals to find</p>
+     * @return <p>the first Rentals in the given status</p>
+     */
+    @Query("select r from Rental r join fetch r.customer where r.status = :status " +
+            "order by r.id.customerId asc, r.id.id asc")
+    List<Rental> findByStatus(@Param("status") RentalStatus status, Pageable pageable);
+
+    /**
+     * Finds the first Rentals, in ascending RentalId order
+     * @param pageable <p>the number of Rentals to fetch</p>
+     * @return <p>the first Rentals</p>
+     */
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    @Query("select r from Rental r join fetch r.customer order by r.id.customerId asc, r.id.id asc")
+    List<Rental> findFirstPage(Pageable pageable);
+
+    /**
+     * Finds the Rentals whose RentalId comes right after the given one, in ascending RentalId order
+     * @param after <p>the RentalId to seek from</p>
+     * @param pageable <p>the number of Rentals to fetch</p>
+     * @return <p>the Rentals after the given RentalId</p>
+     */
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    @Query("select r from Rental r join fetch r.customer where r.id.customerId > :#{#after.customerId} or " +
+            "(r.id.customerId = :#{#after.customerId} and r.id.id > :#{#after.id}) " +
+            "order by r.id.customerId asc, r.id.id asc")
+    List<Rental> findPageAfter(@Param("after") RentalId after, Pageable pageable);
+
+    /**
+     * Finds the Rentals whose RentalId comes right before the given one, in descending RentalId order
+     * @param before <p>the RentalId to seek from</p>
+     * @param pageable <p>the number of Rentals to fetch</p>
+     * @return <p>the Rentals before the given RentalId</p>
+     */
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    @Query("select r from Rental r join fetch r.customer where r.id.customerId < :#{#before.customerId} or " +
+            "(r.id.customerId = :#{#before.customerId} and r.id.id < :#{#before.id}) " +
+            "order by r.id.customerId desc, r.id.id desc")
+    List<Rental> findPageBefore(@Param("before") RentalId before, Pageable pageable);
+
+    /**
+     * Finds the summaries of the Films rented in the Rentals whose RentalIds are between the given ones, both
+     * included, reading just the keys of their Items and the identifiers and names of their Films
+     * @param from <p>the lowest RentalId whose Films to find</p>
+     * @param to <p>the highest RentalId whose Films to find</p>
+     * @return <p>the summaries of the Films rented, in ascending RentalItemId order</p>
+     */
+    @Query("select new com.chompchompfig.store.infrastructure.jpa.FilmSummary(" +
+            "ri.id.customerId, ri.id.rentalId, f.id, f.name) from RentalItem ri join ri.film f where " +
+            "(ri.id.customerId > :#{#from.customerId} or " +
+            "(ri.id.customerId = :#{#from.customerId} and ri.id.rentalId >= :#{#from.id})) and " +
+            "(ri.id.customerId < :#{#to.customerId} or " +
+            "(ri.id.customerId = :#{#to.customerId} and ri.id.rentalId <= :#{#to.id})) " +
+            "order by ri.id.customerId asc, ri.id.rentalId asc, ri.id.id asc")
+    List<FilmSummary> findFilmSummariesBetween(@Param("from") RentalId from, @Param("to") RentalId to);
+
+    /**
+     * Streams all the Rentals, with their Customers, in ascending RentalId order. Rows are read from the database as
+     * the Stream is consumed, so it must be consumed, and closed, within a transaction. Rentals are loaded read-only,
+     * as they are not meant to be modified
+     * @return <p>a Stream of all the Rentals</p>
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select r from Rental r join fetch r.customer order by r.id.customerId asc, r.id.id asc")
+    Stream<Rental> streamAll();
+
+    /**
+     * Finds the identifiers of the first Rentals in the given status started before the given date, in ascending
+     * RentalId order. Rentals are looked up through the index on their status and start date
+     * @param status <p>the status of the Rentals to find</p>
+     * @param startedBefore <p>the date the Rentals must have started before</p>
+     * @param pageable <p>the number of Rentals to find</p>
+     * @return <p>the identifiers of the first Rentals found</p>
+     */
+    @Query("select r.id from Rental r where r.status = :status and r.rentalStartDate < :startedBefore " +
+            "order by r.id.customerId asc, r.id.id asc")
+    List<RentalId> findIdsStartedBefore(@Param("status") RentalStatus status,
+                                        @Param("startedBefore") Date startedBefore, Pageable pageable);
+
+    /**
+     * Finds the identifiers of the Rentals in the given status started before the given date, whose RentalId comes
+     * right after the given one, in ascending RentalId order
+     * @param status <p>the status of the Rentals to find</p>
+     * @param startedBefore <p>the date the Rentals must have started before</p>
+     * @param after <p>the RentalId to seek from</p>
+     * @param pageable <p>the number of Rentals to find</p>
+     * @return <p>the identifiers of the Rentals found after the given RentalId</p>
+     */
+    @Query("select r.id from Rental r where r.status = :status and r.rentalStartDate < :startedBefore and " +
+            "(r.id.customerId > :#{#after.customerId} or " +
+            "(r.id.customerId = :#{#after.customerId} and r.id.id > :#{#after.id})) " +
+            "order by r.id.customerId asc, r.id.id asc")
+    List<RentalId> findIdsStartedBeforeAfter(@Param("status") RentalStatus status,
+                                             @Param("startedBefore") Date startedBefore,
+                                             @Param("after") RentalId after, Pageable pageable);
+
+    /**
+     * Finds the Rentals, with their Customers, in the given status started before the given date, whose RentalIds
+     * are between the given ones, both included. The Rentals are loaded read-only, so they are never flushed
+     * @param status <p>the status of the Rentals to find</p>
+     * @param startedBefore <p>the date the Rentals must have started before</p>
+     * @param from <p>the lowest RentalId to find</p>
+     * @param to <p>the highest RentalId to find</p>
+     * @return <p>the Rentals found between the given RentalIds</p>
+     */
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    @Query("select r from Rental r join fetch r.customer where r.status = :status and " +
+            "r.rentalStartDate < :startedBefore and " +
+            "(r.id.customerId > :#{#from.customerId} or " +
+            "(r.id.customerId = :#{#from.customerId} and r.id.id >= :#{#from.id})) and " +
+            "(r.id.customerId < :#{#to.customerId} or " +
+            "(r.id.customerId = :#{#to.customerId} and r.id.id <= :#{#to.id}))")
+    List<Rental> findStartedBeforeBetween(@Param("status") RentalStatus status,
+                                          @Param("startedBefore") Date startedBefore,
+                                          @Param("from") RentalId from, @Param("to") RentalId to);
+
+    /**
+     * Records when a Rental became overdue and the surcharge it has accrued, only in case it is still in the given
+     * status, incrementing its version. Nothing else in the Rental is written, so a Rental which changed its status in
+     * the meantime, e.g. because it was returned, is left as it is
+     * @param rentalId <p>the identifier of the Rental to update</p>
+     * @param status <p>the status the Rental must still be in</p>
+     * @param overdueSince <p>the date the Rental became overdue on</p>
+     * @param overdueSurcharge <p>the surcharge the Rental has accrued</p>
+     * @return <p>the number of Rentals updated, either 1 or 0 in case the Rental is no longer in the given status</p>
+     */
+    @Modifying
+    @Query("update Rental r set r.overdueSince = :overdueSince, r.overdueSurcharge = :overdueSurcharge, " +
+            "r.version = r.version + 1 " +
+            "where r.id.customerId = :#{#rentalId.customerId} and r.id.id = :#{#rentalId.id} and r.status = :status")
+    int updateOverdueStatus(@Param("rentalId") RentalId rentalId, @Param("status") RentalStatus status,
+                            @Param("overdueSince") Date overdueSince,
+                            @Param("overdueSurcharge") Long overdueSurcharge);
 }
@@ -0,0 +1,56 @@
+package com.chompchompfig.store.infrastructure.jpa;
+
+import com.chompchompfig.store.domain.Rental;
+import com.chompchompfig.store.domain.RentalId;
+
+/**
+ * A read only projection of a Rental, holding just its identifier, for the views listing the Rentals of Customers.
+ * RentalSummaries are built by the Repositories straight out of the columns they query, so they never get into the
+ * persistence context, unlike Rental Entities
+ */
+public class RentalSummary {
+
+    private final RentalId id;
+
+    /**
+     * Creates a new RentalSummary out of the columns of a Rental primary key, as done by constructor expressions
+     * @param customerId <p>the identifier of the Customer the Rental belongs to</p>
+     * @param id <p>the identifier of the Rental within those of its Customer</p>
+     */
+    public RentalSummary(Long customerId, Long id) {
+        this(new RentalId(customerId, id));
+    }
+
+    /**
+     * Creates a new RentalSummary
+     * @param id <p>the Rental unique identifier</p>
+     */
+    public RentalSummary(RentalId id) {
+        this.id = id;
+    }
+
+    /**
+     * Creates a new RentalSummary out of a Rental already loaded
+     * @param rental <p>the Rental to summarize</p>
+     * @return <p>the summary of the Rental</p>
+     */
+    public static RentalSummary of(Rental rental) {
+        return new RentalSummary(rental.getId());
+    }
+
+    /**
+     * Gets the unique identifier of the Rental
+     * @return <p>the Rental unique identifier</p>
+     */
+    public RentalId getId() {
+        return id;
+    }
+
+    /**
+     * Gets the identifier of the Customer the Rental belongs to
+     * @return <p>the Customer unique identifier</p>
+     */
+    public Long getCustomerId() {
+        return id.getCustomerId();
+    }
+}
@@ -0,0 +1,104 @@
+package com.chompchompfig.store.infrastructure.jpa;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The SQL statements run by the current thread, typically on behalf of a single HTTP request. That is, how many
+ * statements were prepared, how long it took to execute them, which one took the longest, and how many Entities were
+ * loaded, either out of their results or out of the second level cache. Statistics are only collected between
+ * {@link #start()} and {@link #stop()}, by the Hibernate hooks registered by the {@link SqlStatisticsConfiguration}
+ */
+public class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private int statementCount;
+    private long jdbcTimeNanos;
+    private int entitiesLoaded;
+    private String lastStatement;
+    private String slowestStatement;
+    private long slowestStatementNanos;
+
+    /**
+     * Starts collecting the statistics of the SQL statements run by the current thread, from scratch
+     * @return <p>the statistics of the current thread</p>
+     */
+    public static SqlStatistics start() {
+        SqlStatistics sqlStatistics = new SqlStatistics();
+        CURRENT.set(sqlStatistics);
+        return sqlStatistics;
+    }
+
+    /**
+     * Gets the statistics being collected for the current thread
+     * @return <p>the statistics of the current thread, or null if none are being collected</p>
+     */
+    public static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Stops collecting the statistics of the SQL statements run by the current thread
+     */
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    void statementPrepared(String sql) {
+        statementCount++;
+        lastStatement = sql;
+    }
+
+    void statementExecuted(long nanos) {
+        jdbcTimeNanos += nanos;
+        if (nanos > slowestStatementNanos) {
+            slowestStatementNanos = nanos;
+            slowestStatement = lastStatement;
+        }
+    }
+
+    void entityLoaded() {
+        entitiesLoaded++;
+    }
+
+    /**
+     * Gets the number of SQL statements prepared
+     * @return <p>the number of SQL statements prepared</p>
+     */
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    /**
+     * Gets the total time spent executing SQL statements, including the execution of JDBC batches
+     * @return <p>the total execution time in milliseconds</p>
+     */
+    public long getJdbcTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(jdbcTimeNanos);
+    }
+
+    /**
+     * Gets the number of Entities loaded, either out of the results of SQL statements or out of the second level cache
+     * @return <p>the number of Entities loaded</p>
+     */
+    public int getEntitiesLoaded() {
+        return entitiesLoaded;
+    }
+
+    /**
+     * Gets the SQL statement which took the longest to execute. In case of JDBC batches, the last statement added to
+     * the batch
+     * @return <p>the slowest SQL statement, or null if none was executed</p>
+     */
+    public String getSlowestStatement() {
+        return slowestStatement;
+    }
+
+    /**
+     * Gets the time it took to execute the slowest SQL statement
+     * @return <p>the execution time of the slowest SQL statement in milliseconds</p>
+     */
+    public long getSlowestStatementMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowestStatementNanos);
+    }
+}
@@ -0,0 +1,103 @@
+package com.chompchompfig.store.infrastructure.jpa;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.boot.Metadata;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Collections;
+
+/**
+ * Registers the Hibernate hooks collecting the {@link SqlStatistics} of the current thread. A StatementInspector counts
+ * the statements prepared, a session event listener times their execution, and a post load event listener counts the
+ * Entities loaded. Nothing is collected by threads which haven't started collecting their statistics
+ */
+@Configuration
+public class SqlStatisticsConfiguration {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatisticsHibernatePropertiesCustomizer() {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+                SqlStatistics sqlStatistics = SqlStatistics.current();
+                if (sqlStatistics != null) {
+                    sqlStatistics.statementPrepared(sql);
+                }
+                return sql;
+            });
+            hibernateProperties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, JdbcTimer.class.getName());
+            hibernateProperties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                    (IntegratorProvider) () -> Collections.singletonList(new EntityLoadCounter()));
+        };
+    }
+
+    /**
+     * A session event listener timing the execution of SQL statements and JDBC batches. Hibernate creates one of these
+     * for every session
+     */
+    public static class JdbcTimer extends BaseSessionEventListener {
+
+        private long startTime;
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            startTime = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            recordExecution();
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            startTime = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            recordExecution();
+        }
+
+        private void recordExecution() {
+            SqlStatistics sqlStatistics = SqlStatistics.current();
+            if (sqlStatistics != null) {
+                sqlStatistics.statementExecuted(System.nanoTime() - startTime);
+            }
+        }
+    }
+
+    /**
+     * An Integrator appending a post load event listener which counts the Entities loaded
+     */
+    static class EntityLoadCounter implements Integrator {
+
+        @Override
+        public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                              SessionFactoryServiceRegistry serviceRegistry) {
+            serviceRegistry.getService(EventListenerRegistry.class).appendListeners(EventType.POST_LOAD,
+                    (PostLoadEventListener) postLoadEvent -> {
+                        SqlStatistics sqlStatistics = SqlStatistics.current();
+                        if (sqlStatistics != null) {
+                            sqlStatistics.entityLoaded();
+                        }
+                    });
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory,
+                                 SessionFactoryServiceRegistry serviceRegistry) {
+        }
+    }
+}
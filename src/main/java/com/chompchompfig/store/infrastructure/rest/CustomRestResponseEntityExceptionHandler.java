@@ -1,5 +1,8 @@
 package com.chompchompfig.store.infrastructure.rest;
 
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -10,6 +13,7 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 
 import java.util.ConcurrentModificationException;
 import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
 
 @ControllerAdvice
 public class CustomRestResponseEntityExceptionHandler extends ResponseEntityExceptionHandler {
@@ -37,4 +41,36 @@ public class CustomRestResponseEntityExceptionHandler extends ResponseEntityExce
         return handleExceptionInternal(ex, ex.getMessage(),
                 new HttpHeaders(), HttpStatus.CONFLICT, request);
     }
-}
\ No newline at end of file
+
+    /**
+     * Reports the updates that lose an optimistic locking race, to an Entity some other request has changed in the
+     * meantime, the same way ConcurrentModificationExceptions are. This is, as 409 Conflict
+     */
+    @ExceptionHandler(value = { OptimisticLockingFailureException.class})
+    protected ResponseEntity<Object> handleOptimisticLockingFailure(RuntimeException ex, WebRequest request) {
+        return handleExceptionInternal(ex, ex.getMessage(),
+                new HttpHeaders(), HttpStatus.CONFLICT, request);
+    }
+
+    /**
+     * Reports the Payments which can't be queued to be performed asynchronously, because too many are waiting already,
+     * as 503 Service Unavailable, so that clients retry them later
+     */
+    @ExceptionHandler(value = { RejectedExecutionException.class})
+    protected ResponseEntity<Object> handleRejectedExecution(RuntimeException ex, WebRequest request) {
+        return handleExceptionInternal(ex, ex.getMessage(),
+                new HttpHeaders(), HttpStatus.SERVICE_UNAVAILABLE, request);
+    }
+
+    /**
+     * Reports the request parameters and path variables that can't be converted into their target types, like
+     * malformed RentalIds or PaymentIds, the same way IllegalArgumentExceptions are. This is, as 400 Bad Request with
+     * the message of the underlying parsing error as the body
+     */
+    @Override
+    protected ResponseEntity<Object> handleTypeMismatch(TypeMismatchException ex, HttpHeaders headers,
+                                                        HttpStatus status, WebRequest request) {
+        Throwable rootCause = NestedExceptionUtils.getMostSpecificCause(ex);
+        return handleExceptionInternal(ex, rootCause.getMessage(), headers, status, request);
+    }
+}
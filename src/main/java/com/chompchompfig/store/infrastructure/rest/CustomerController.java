@@ -1,6 +1,9 @@
 package com.chompchompfig.store.infrastructure.rest;
 
+import com.chompchompfig.store.application.ReadOnlyQueryService;
+import com.chompchompfig.store.domain.Customer;
 import com.chompchompfig.store.infrastructure.jpa.CustomerRepository;
+import com.chompchompfig.store.infrastructure.jpa.RentalSummary;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
@@ -11,9 +14,14 @@ import org.springframework.hateoas.Resources;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.Optional;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Api(value ="Video Rentals, Customers", description = "Customer API", tags = "{2}")
 @RestController
@@ -24,25 +32,59 @@ public class CustomerController {
     private CustomerRepository customerRepository;
     @Autowired
     private CustomerResourceAssembler resourceAssembler;
+    @Autowired
+    private KeysetPagination keysetPagination;
+    @Autowired
+    private ReadOnlyQueryService readOnlyQueryService;
 
-    @ApiOperation(value = "Get the list of registered Customers")
+    @ApiOperation(value = "Gets a page of the registered Customers")
     @ApiResponses(value = {
-            @ApiResponse(code = 200, message = "Successfully retrieved")
+            @ApiResponse(code = 200, message = "Successfully retrieved"),
+            @ApiResponse(code = 400, message = "Invalid page size or pagination cursors")
     })
     @GetMapping(value = "/customers", produces = MediaTypes.HAL_JSON_VALUE)
-    public Resources<CustomerResource> getCustomers() {
-        return new Resources(resourceAssembler.toResources(customerRepository.findAll()));
+    public Resources<CustomerResource> getCustomers(@RequestParam(required = false) Long after,
+                                                    @RequestParam(required = false) Long before,
+                                                    @RequestParam(required = false) Integer size) {
+        int pageSize = keysetPagination.getPageSize(size);
+        return readOnlyQueryService.query(() -> {
+            KeysetPage<Customer> page = keysetPagination.getPage(after, before, pageSize,
+                    customerRepository::findAllByOrderByIdAsc, customerRepository::findByIdGreaterThanOrderByIdAsc,
+                    customerRepository::findByIdLessThanOrderByIdDesc);
+            Map<Long, List<RentalSummary>> rentalsByCustomer = findRentalSummaries(
+                    page.getContent().stream().map(Customer::getId).collect(Collectors.toList()));
+            Resources<CustomerResource> resources = new Resources(page.getContent().stream()
+                    .map(c -> resourceAssembler.toResource(c, rentalsByCustomer.getOrDefault(c.getId(),
+                            Collections.emptyList()))).collect(Collectors.toList()));
+            keysetPagination.addPageLinks(resources, page, pageSize, c -> c.getId().toString());
+            return resources;
+        });
     }
 
     @ApiOperation(value = "Gets a registered Customer")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Successfully retrieved"),
+            @ApiResponse(code = 304, message = "The Customer hasn't changed since the version given in If-None-Match"),
             @ApiResponse(code = 404, message = "The selected Customer does not exist")
     })
     @GetMapping(value = "/customer/{id}", produces = MediaTypes.HAL_JSON_VALUE)
-    public CustomerResource getCustomer(@PathVariable Long id) {
-        Optional<CustomerResource> customerResource =
-                customerRepository.findById(id).map(c -> resourceAssembler.toResource(c));
-        return customerResource.get();
+    public CustomerResource getCustomer(@PathVariable Long id, WebRequest webRequest) {
+        return readOnlyQueryService.query(() -> {
+            Customer customer = customerRepository.findById(id).get();
+            if (webRequest.checkNotModified(CustomerResource.entityTagOf(customer,
+                    customerRepository.countRentalsById(id)))) {
+                return null;
+            }
+            return resourceAssembler.toResource(customer,
+                    findRentalSummaries(Collections.singletonList(id)).getOrDefault(id, Collections.emptyList()));
+        });
+    }
+
+    private Map<Long, List<RentalSummary>> findRentalSummaries(List<Long> customerIds) {
+        if (customerIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return customerRepository.findRentalSummariesByCustomerIdIn(customerIds).stream()
+                .collect(Collectors.groupingBy(RentalSummary::getCustomerId));
     }
 }
@@ -1,8 +1,8 @@
 package com.chompchompfig.store.infrastructure.rest;
 
 import com.chompchompfig.store.domain.Customer;
-import com.chompchompfig.store.domain.Rental;
 import com.chompchompfig.store.domain.RentalId;
+import com.chompchompfig.store.infrastructure.jpa.RentalSummary;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.fasterxml.jackson.annotation.JsonUnwrapped;
 import io.swagger.annotations.ApiModel;
@@ -16,19 +16,38 @@ import org.springframework.hateoas.core.Relation;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
-
 @ApiModel(description = "A representation of a Customer resource", value = "Customer")
 @Relation(collectionRelation = "customers", value = "customer")
 @JsonPropertyOrder({"customerId", "name", "lastName", "pointsInCard", "_embedded", "_links"})
 public class CustomerResource extends ResourceSupport {
 
     private Customer customer;
+    private List<RentalSummary> rentals;
 
     public CustomerResource(Customer customer) {
+        this(customer, customer.getRentals().stream().map(RentalSummary::of).collect(Collectors.toList()));
+    }
+
+    /**
+     * Creates a new CustomerResource listing the given Rentals, instead of those loaded with the Customer
+     * @param customer <p>the Customer to represent</p>
+     * @param rentals <p>the summaries of the Rentals of the Customer</p>
+     */
+    public CustomerResource(Customer customer, List<RentalSummary> rentals) {
         this.customer = customer;
-        this.add(linkTo(methodOn(CustomerController.class).getCustomer(this.customer.getId())).withSelfRel());
+        this.rentals = rentals;
+        this.add(ResourceLinks.CUSTOMER.toSelfLink(this.customer.getId()));
+    }
+
+    /**
+     * Gets the entity tag of the representation of a Customer. New Rentals are persisted on their own, leaving the
+     * Customer version untouched, so the number of Rentals of the Customer is part of the tag too
+     * @param customer <p>the Customer to get the entity tag of</p>
+     * @param rentals <p>the number of Rentals of the Customer</p>
+     * @return <p>the entity tag, derived from the Customer version and its number of Rentals</p>
+     */
+    public static String entityTagOf(Customer customer, long rentals) {
+        return customer.getVersion() + "." + rentals;
     }
 
     @ApiModelProperty(notes = "the customer's unique identifier")
@@ -55,7 +74,7 @@ public class CustomerResource extends ResourceSupport {
     @JsonUnwrapped
     public Resources<EmbeddedWrapper> getRentals() {
         EmbeddedWrappers wrappers = new EmbeddedWrappers(true);
-        List<EmbeddedWrapper> rentals = this.customer.getRentals()
+        List<EmbeddedWrapper> rentals = this.rentals
                 .stream().map(r -> wrappers.wrap(new LightWeightRentalResourceRepresentation(r), "rentals"))
                         .collect(Collectors.toList());
         return new Resources(rentals);
@@ -65,11 +84,11 @@ public class CustomerResource extends ResourceSupport {
     @JsonPropertyOrder({"rentalId", "_links"})
     public static class LightWeightRentalResourceRepresentation extends ResourceSupport {
 
-        private Rental rental;
+        private RentalSummary rental;
 
-        public LightWeightRentalResourceRepresentation(Rental rental) {
+        public LightWeightRentalResourceRepresentation(RentalSummary rental) {
             this.rental = rental;
-            this.add(linkTo(methodOn(RentalController.class).getRental(this.rental.getId().toString())).withSelfRel());
+            this.add(ResourceLinks.RENTAL.toSelfLink(this.rental.getId()));
         }
 
         public RentalId getRentalId() {
@@ -1,9 +1,12 @@
 package com.chompchompfig.store.infrastructure.rest;
 
 import com.chompchompfig.store.domain.Customer;
+import com.chompchompfig.store.infrastructure.jpa.RentalSummary;
 import org.springframework.hateoas.mvc.ResourceAssemblerSupport;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 public class CustomerResourceAssembler extends ResourceAssemblerSupport<Customer, CustomerResource> {
 
@@ -15,4 +18,8 @@ public class CustomerResourceAssembler extends ResourceAssemblerSupport<Customer
     public CustomerResource toResource(Customer customer) {
         return new CustomerResource(customer);
     }
+
+    public CustomerResource toResource(Customer customer, List<RentalSummary> rentals) {
+        return new CustomerResource(customer, rentals);
+    }
 }
@@ -1,5 +1,9 @@
 package com.chompchompfig.store.infrastructure.rest;
 
+import com.chompchompfig.store.application.FilmAvailabilityIndex;
+import com.chompchompfig.store.application.ReadOnlyQueryService;
+import com.chompchompfig.store.domain.Film;
+import com.chompchompfig.store.domain.FilmCategory;
 import com.chompchompfig.store.infrastructure.jpa.FilmRepository;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -11,9 +15,15 @@ import org.springframework.hateoas.Resources;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.Optional;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Api(value ="Video Rentals, Films", description = "Film Inventory API", tags = "{3}")
 @RestController
@@ -24,25 +34,72 @@ public class FilmController {
     private FilmRepository filmRepository;
     @Autowired
     private FilmResourceAssembler resourceAssembler;
+    @Autowired
+    private KeysetPagination keysetPagination;
+    @Autowired
+    private FilmAvailabilityIndex filmAvailabilityIndex;
+    @Autowired
+    private ReadOnlyQueryService readOnlyQueryService;
 
-    @ApiOperation(value = "Gets the list of all Films in the Inventory")
+    @ApiOperation(value = "Gets a page of the Films in the Inventory, optionally narrowed by availability and Category")
     @ApiResponses(value = {
-            @ApiResponse(code = 200, message = "Successfully retrieved")
+            @ApiResponse(code = 200, message = "Successfully retrieved"),
+            @ApiResponse(code = 400, message = "Invalid page size, pagination cursors, availability or Category")
     })
     @GetMapping(value = "/films", produces = MediaTypes.HAL_JSON_VALUE)
-    public Resources<FilmResource> getFilms() {
-        return new Resources(resourceAssembler.toResources(filmRepository.findAll()));
+    public Resources<FilmResource> getFilms(@RequestParam(required = false) Boolean available,
+                                            @RequestParam(required = false) FilmCategory category,
+                                            @RequestParam(required = false) Long after,
+                                            @RequestParam(required = false) Long before,
+                                            @RequestParam(required = false) Integer size) {
+        int pageSize = keysetPagination.getPageSize(size);
+        return readOnlyQueryService.query(() -> {
+            KeysetPage<Film> page;
+            if (available == null && category == null) {
+                page = keysetPagination.getPage(after, before, pageSize,
+                        filmRepository::findAllByOrderByIdAsc, filmRepository::findByIdGreaterThanOrderByIdAsc,
+                        filmRepository::findByIdLessThanOrderByIdDesc);
+            } else {
+                page = keysetPagination.getPage(after, before, pageSize,
+                        pageable -> findFilmsInOrder(filmAvailabilityIndex.findFilmIdsAfter(available, category,
+                                null, pageable.getPageSize())),
+                        (filmId, pageable) -> findFilmsInOrder(filmAvailabilityIndex.findFilmIdsAfter(available,
+                                category, filmId, pageable.getPageSize())),
+                        (filmId, pageable) -> findFilmsInOrder(filmAvailabilityIndex.findFilmIdsBefore(available,
+                                category, filmId, pageable.getPageSize())));
+            }
+            Resources<FilmResource> resources = new Resources(resourceAssembler.toResources(page.getContent()));
+            keysetPagination.addPageLinks(resources, page, pageSize, f -> f.getId().toString());
+            return resources;
+        });
     }
 
     @ApiOperation(value = "Gets a Film from the Inventory")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Successfully retrieved"),
+            @ApiResponse(code = 304, message = "The Film hasn't changed since the version given in If-None-Match"),
             @ApiResponse(code = 404, message = "The selected Film does not exist")
     })
     @GetMapping(value = "/film/{id}", produces = MediaTypes.HAL_JSON_VALUE)
-    public FilmResource getFilm(@PathVariable Long id) {
-        Optional<FilmResource> filmResource = filmRepository.findById(id).map(f -> resourceAssembler.toResource(f));
-        return filmResource.get();
+    public FilmResource getFilm(@PathVariable Long id, WebRequest webRequest) {
+        return readOnlyQueryService.query(() -> {
+            Film film = filmRepository.findById(id).get();
+            if (webRequest.checkNotModified(FilmResource.entityTagOf(film))) {
+                return null;
+            }
+            return resourceAssembler.toResource(film);
+        });
+    }
+
+    /**
+     * Finds the Films with the given identifiers, mostly out of the second level cache, in the order of the identifiers
+     * @param filmIds <p>the identifiers of the Films to find, as found in the FilmAvailabilityIndex</p>
+     * @return <p>the Films found, in the same order as their identifiers</p>
+     */
+    private List<Film> findFilmsInOrder(List<Long> filmIds) {
+        Map<Long, Film> filmsById = filmRepository.findAllByIdCached(filmIds).stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+        return filmIds.stream().map(filmsById::get).filter(Objects::nonNull).collect(Collectors.toList());
     }
 
 }
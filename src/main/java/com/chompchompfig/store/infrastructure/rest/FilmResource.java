@@ -7,9 +7,6 @@ import io.swagger.annotations.ApiModelProperty;
 import org.springframework.hateoas.ResourceSupport;
 import org.springframework.hateoas.core.Relation;
 
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
-
 @ApiModel(description = "A representation of a Film resource", value = "Film")
 @Relation(collectionRelation = "films", value = "film")
 @JsonPropertyOrder({"filmId", "name", "category", "available", "_links"})
@@ -19,7 +16,16 @@ public class FilmResource extends ResourceSupport {
 
     public FilmResource(Film film) {
         this.film = film;
-        this.add(linkTo(methodOn(FilmController.class).getFilm(this.film.getId())).withSelfRel());
+        this.add(ResourceLinks.FILM.toSelfLink(this.film.getId()));
+    }
+
+    /**
+     * Gets the entity tag of the representation of a Film, which changes whenever any of its attributes do
+     * @param film <p>the Film to get the entity tag of</p>
+     * @return <p>the entity tag, derived from the Film version</p>
+     */
+    public static String entityTagOf(Film film) {
+        return String.valueOf(film.getVersion());
     }
 
     @ApiModelProperty(notes = "the Film's unique identifier")
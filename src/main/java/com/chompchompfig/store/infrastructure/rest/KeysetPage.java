@@ -0,0 +1,91 @@
+package com.chompchompfig.store.infrastructure.rest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A page of a keyset (a.k.a. seek or cursor) paginated collection. Pages are always fetched with one row more than
+ * the requested page size. The presence of that extra row tells whether there are more rows in the direction of the
+ * scan, without having to issue any COUNT or OFFSET queries. Pages scanned backwards are fetched in descending order,
+ * and are reversed here so that clients always get the rows in ascending order
+ * @param <T> <p>the type of the rows in the page</p>
+ */
+public class KeysetPage<T> {
+
+    private final List<T> content;
+    private final boolean hasNext;
+    private final boolean hasPrevious;
+
+    private KeysetPage(List<T> content, boolean hasNext, boolean hasPrevious) {
+        this.content = content;
+        this.hasNext = hasNext;
+        this.hasPrevious = hasPrevious;
+    }
+
+    /**
+     * Builds a page out of the rows fetched scanning forwards. This is, in ascending order
+     * @param rows <p>the rows fetched, at most one more than the page size</p>
+     * @param pageSize <p>the number of rows in a page</p>
+     * @param fromCursor <p>whether the scan started after a given cursor, or from the very beginning</p>
+     * @return <p>a page with the rows fetched in ascending order</p>
+     */
+    static <T> KeysetPage<T> forward(List<T> rows, int pageSize, boolean fromCursor) {
+        boolean hasMoreRows = rows.size() > pageSize;
+        List<T> content = hasMoreRows ? rows.subList(0, pageSize) : rows;
+        return new KeysetPage<>(content, hasMoreRows, fromCursor && !content.isEmpty());
+    }
+
+    /**
+     * Builds a page out of the rows fetched scanning backwards. This is, in descending order
+     * @param rows <p>the rows fetched, at most one more than the page size</p>
+     * @param pageSize <p>the number of rows in a page</p>
+     * @return <p>a page with the rows fetched in ascending order</p>
+     */
+    static <T> KeysetPage<T> backward(List<T> rows, int pageSize) {
+        boolean hasMoreRows = rows.size() > pageSize;
+        List<T> content = new ArrayList<>(hasMoreRows ? rows.subList(0, pageSize) : rows);
+        Collections.reverse(content);
+        return new KeysetPage<>(content, !content.isEmpty(), hasMoreRows);
+    }
+
+    /**
+     * Gets the rows in the page, in ascending order
+     * @return <p>the rows in the page</p>
+     */
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * Checks whether there are rows after the last row in this page
+     * @return <ul><li>True, if there is a next page</li><li>False otherwise</li></ul>
+     */
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    /**
+     * Checks whether there are rows before the first row in this page
+     * @return <ul><li>True, if there is a previous page</li><li>False otherwise</li></ul>
+     */
+    public boolean hasPrevious() {
+        return hasPrevious;
+    }
+
+    /**
+     * Gets the first row in the page, which is the cursor used to fetch the previous page
+     * @return <p>the first row in the page</p>
+     */
+    public T getFirst() {
+        return content.get(0);
+    }
+
+    /**
+     * Gets the last row in the page, which is the cursor used to fetch the next page
+     * @return <p>the last row in the page</p>
+     */
+    public T getLast() {
+        return content.get(content.size() - 1);
+    }
+}
@@ -0,0 +1,109 @@
+package com.chompchompfig.store.infrastructure.rest;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.Resources;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Keyset (a.k.a. seek or cursor) pagination support for the collection resources. Clients walk a collection passing
+ * the identifier of the last (or first) element they have seen as the "after" (or "before") cursor. Repositories seek
+ * straight to the cursor through the primary key index, instead of skipping rows with an OFFSET, so every page costs
+ * the same regardless of how deep into the collection it is. Page sizes are capped to a configurable maximum
+ */
+@Component
+public class KeysetPagination {
+
+    public static final String AFTER_PARAMETER_NAME = "after";
+    public static final String BEFORE_PARAMETER_NAME = "before";
+    public static final String SIZE_PARAMETER_NAME = "size";
+    public static final String INVALID_PAGE_SIZE_MESSAGE = "The page size must be a non-zero positive integer";
+    public static final String INVALID_CURSORS_MESSAGE = "Only one of the after or before cursors can be supplied";
+
+    @Value("${store.pagination.default-page-size:20}")
+    private int defaultPageSize;
+    @Value("${store.pagination.max-page-size:100}")
+    private int maxPageSize;
+
+    /**
+     * Gets the effective page size for a request. This is, the requested one capped to the maximum page size, or the
+     * default page size if none was requested
+     * @param requestedPageSize <p>the page size requested by the client, if any</p>
+     * @return <p>the number of rows to include in the page</p>
+     * @throws IllegalArgumentException <p>in case the requested page size is not a positive integer</p>
+     */
+    public int getPageSize(Integer requestedPageSize) {
+        if (requestedPageSize == null) {
+            return Math.min(defaultPageSize, maxPageSize);
+        }
+        if (requestedPageSize <= 0) {
+            throw new IllegalArgumentException(INVALID_PAGE_SIZE_MESSAGE);
+        }
+        return Math.min(requestedPageSize, maxPageSize);
+    }
+
+    /**
+     * Fetches a page of rows, seeking forwards from the "after" cursor, backwards from the "before" cursor, or from the
+     * beginning of the collection when no cursor is given
+     * @param after <p>the cursor after which the page starts, if any</p>
+     * @param before <p>the cursor before which the page ends, if any</p>
+     * @param pageSize <p>the number of rows in a page</p>
+     * @param firstPage <p>a query fetching the first rows of the collection, in ascending order</p>
+     * @param pageAfter <p>a query fetching the rows after a cursor, in ascending order</p>
+     * @param pageBefore <p>a query fetching the rows before a cursor, in descending order</p>
+     * @return <p>the page of rows</p>
+     * @throws IllegalArgumentException <p>in case both cursors are given</p>
+     */
+    public <C, T> KeysetPage<T> getPage(C after, C before, int pageSize, Function<Pageable, List<T>> firstPage,
+                                        BiFunction<C, Pageable, List<T>> pageAfter,
+                                        BiFunction<C, Pageable, List<T>> pageBefore) {
+        if (after != null && before != null) {
+            throw new IllegalArgumentException(INVALID_CURSORS_MESSAGE);
+        }
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        KeysetPage<T> page;
+        if (after != null) {
+            page = KeysetPage.forward(pageAfter.apply(after, pageable), pageSize, true);
+        } else if (before != null) {
+            page = KeysetPage.backward(pageBefore.apply(before, pageable), pageSize);
+        } else {
+            page = KeysetPage.forward(firstPage.apply(pageable), pageSize, false);
+        }
+        return page;
+    }
+
+    /**
+     * Adds the HAL next and prev links to a collection resource, pointing at the pages around the given one
+     * @param resources <p>the collection resource the links will be added to</p>
+     * @param page <p>the page of rows the collection resource was built from</p>
+     * @param pageSize <p>the number of rows in a page</p>
+     * @param cursorOf <p>a Function extracting the cursor of a given row. Typically its identifier</p>
+     */
+    public <T> void addPageLinks(Resources<?> resources, KeysetPage<T> page, int pageSize,
+                                 Function<T, String> cursorOf) {
+        if (page.hasNext()) {
+            String cursor = cursorOf.apply(page.getLast());
+            resources.add(new Link(getPageHref(AFTER_PARAMETER_NAME, cursor, pageSize), Link.REL_NEXT));
+        }
+        if (page.hasPrevious()) {
+            String cursor = cursorOf.apply(page.getFirst());
+            resources.add(new Link(getPageHref(BEFORE_PARAMETER_NAME, cursor, pageSize), Link.REL_PREVIOUS));
+        }
+    }
+
+    private String getPageHref(String cursorParameterName, String cursor, int pageSize) {
+        return ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam(AFTER_PARAMETER_NAME)
+                .replaceQueryParam(BEFORE_PARAMETER_NAME)
+                .replaceQueryParam(cursorParameterName, cursor)
+                .replaceQueryParam(SIZE_PARAMETER_NAME, pageSize)
+                .build().toUriString();
+    }
+}
@@ -0,0 +1,88 @@
+package com.chompchompfig.store.infrastructure.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Exports the rows of a streaming query as newline delimited JSON (NDJSON), one JSON document per line. Rows are
+ * written to the response as they are read from the database, in a read-only transaction of their own, and detached
+ * from the persistence context in chunks, so exports take the same memory no matter how many rows there are. Rows of
+ * a chunk are all loaded before writing any of them, which lets their lazy associations be batch fetched together
+ */
+@Component
+public class NdjsonExporter {
+
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Value("${store.export.chunk-size:100}")
+    private int chunkSize;
+
+    /**
+     * Builds a response body streaming the rows of a query as newline delimited JSON
+     * @param rows <p>the query whose rows will be exported. It is run once the response starts being written</p>
+     * @param toRepresentation <p>a Function turning every row into the representation to write as JSON</p>
+     * @return <p>the response body streaming the rows</p>
+     */
+    public <T> StreamingResponseBody export(Supplier<Stream<T>> rows, Function<T, ?> toRepresentation) {
+        return outputStream -> {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setReadOnly(true);
+            transactionTemplate.execute(status -> {
+                try (Stream<T> rowStream = rows.get()) {
+                    write(rowStream.iterator(), toRepresentation, outputStream);
+                } catch (IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                }
+                return null;
+            });
+        };
+    }
+
+    private <T> void write(Iterator<T> rows, Function<T, ?> toRepresentation, OutputStream outputStream)
+            throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            List<T> chunk = new ArrayList<>(chunkSize);
+            while (rows.hasNext()) {
+                chunk.add(rows.next());
+                if (chunk.size() == chunkSize || !rows.hasNext()) {
+                    for (T row : chunk) {
+                        writer.writeValue(generator, toRepresentation.apply(row));
+                        generator.writeRaw('\n');
+                    }
+                    generator.flush();
+                    chunk.clear();
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+}
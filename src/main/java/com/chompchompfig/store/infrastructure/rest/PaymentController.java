@@ -2,69 +2,189 @@ package com.chompchompfig.store.infrastructure.rest;
 
 import com.chompchompfig.store.domain.Payment;
 import com.chompchompfig.store.domain.PaymentId;
+import com.chompchompfig.store.domain.PaymentRequestStatus;
+import com.chompchompfig.store.domain.PaymentStatus;
 import com.chompchompfig.store.infrastructure.jpa.PaymentRepository;
+import com.chompchompfig.store.infrastructure.jpa.PaymentRequestRepository;
+import com.chompchompfig.store.application.PaymentRequestProcessor;
+import com.chompchompfig.store.application.ReadOnlyQueryService;
 import com.chompchompfig.store.application.VideoRentalService;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.hateoas.MediaTypes;
+import org.springframework.hateoas.ResourceSupport;
 import org.springframework.hateoas.Resources;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Optional;
+import java.net.URI;
+import java.util.Date;
+import java.util.UUID;
 
 @Api(value ="Video Rentals, Payments", description = "Payment of Rentals API", tags = "{5}")
 @RestController
 @RequestMapping("/store")
 public class PaymentController {
 
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String PREFER_HEADER = "Prefer";
+    public static final String PREFERENCE_APPLIED_HEADER = "Preference-Applied";
+    public static final String RESPOND_ASYNC_PREFERENCE = "respond-async";
+
     @Autowired
     private PaymentRepository paymentRepository;
     @Autowired
     private VideoRentalService videoRentalService;
     @Autowired
+    private PaymentRequestProcessor paymentRequestProcessor;
+    @Autowired
+    private PaymentRequestRepository paymentRequestRepository;
+    @Autowired
     private PaymentResourceAssembler resourceAssembler;
+    @Autowired
+    private KeysetPagination keysetPagination;
+    @Autowired
+    private NdjsonExporter ndjsonExporter;
+    @Autowired
+    private ReadOnlyQueryService readOnlyQueryService;
 
-    @ApiOperation(value = "Gets the list of all Payments in the ledger")
+    @ApiOperation(value = "Gets a page of the Payments in the ledger")
     @ApiResponses(value = {
-            @ApiResponse(code = 200, message = "Successfully retrieved")
+            @ApiResponse(code = 200, message = "Successfully retrieved"),
+            @ApiResponse(code = 400, message = "Invalid page size or pagination cursors")
     })
     @GetMapping(value = "/payments", produces = MediaTypes.HAL_JSON_VALUE)
-    public Resources<PaymentResource> getPayments() {
-        return new Resources(resourceAssembler.toResources(paymentRepository.findAll()));
+    public Resources<PaymentResource> getPayments(@RequestParam(required = false) PaymentId after,
+                                                  @RequestParam(required = false) PaymentId before,
+                                                  @RequestParam(required = false) Integer size) {
+        int pageSize = keysetPagination.getPageSize(size);
+        return readOnlyQueryService.query(() -> {
+            KeysetPage<Payment> page = keysetPagination.getPage(after, before, pageSize,
+                    paymentRepository::findFirstPage, paymentRepository::findPageAfter,
+                    paymentRepository::findPageBefore);
+            Resources<PaymentResource> resources = new Resources(resourceAssembler.toResources(page.getContent()));
+            keysetPagination.addPageLinks(resources, page, pageSize, p -> p.getId().toString());
+            return resources;
+        });
+    }
+
+    @ApiOperation(value = "Exports the Payments in the ledger as newline delimited JSON, one Payment per line, " +
+            "optionally only those dated within the given period")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully exported"),
+            @ApiResponse(code = 400, message = "Invalid period dates. They must be ISO dates like 2018-06-30")
+    })
+    @GetMapping(value = "/payments:export", produces = NdjsonExporter.NDJSON_MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date to) {
+        StreamingResponseBody body = ndjsonExporter.export(() -> paymentRepository.streamAllByDate(from, to),
+                PaymentExportRepresentation::new);
+        return ResponseEntity.ok().contentType(MediaType.valueOf(NdjsonExporter.NDJSON_MEDIA_TYPE)).body(body);
     }
 
     @ApiOperation(value = "Gets a Payment from the ledger")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Successfully retrieved"),
+            @ApiResponse(code = 304, message = "The Payment hasn't changed since the version given in If-None-Match"),
             @ApiResponse(code = 404, message = "The selected Payment does not exist")
     })
     @GetMapping(value = "/payment/{id}", produces = MediaTypes.HAL_JSON_VALUE)
-    public PaymentResource getPayment(@PathVariable String id) {
-        PaymentId paymentId = PaymentId.from(id);
-        Optional<PaymentResource> paymentResource =
-                paymentRepository.findById(paymentId).map(p -> resourceAssembler.toResource(p));
-        return paymentResource.get();
+    public PaymentResource getPayment(@PathVariable PaymentId id, WebRequest webRequest) {
+        return readOnlyQueryService.query(() -> {
+            Payment payment = paymentRepository.findById(id).get();
+            if (webRequest.checkNotModified(PaymentResource.entityTagOf(payment))) {
+                return null;
+            }
+            return resourceAssembler.toResource(payment);
+        });
     }
 
-    @ApiOperation(value = "Performs a payment which is associated with a Rental", response = PaymentResource.class)
+    @ApiOperation(value = "Performs a payment which is associated with a Rental. Requests made with an " +
+            "Idempotency-Key header are performed once, and retries with the same key get the outcome of the first " +
+            "request. Requests made with a Prefer: respond-async header are queued, and answered right away with a " +
+            "link to the status of the request", response = PaymentResource.class)
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Successfully performed"),
+            @ApiResponse(code = 202, message = "Accepted to be performed asynchronously. The Location header links " +
+                    "to the status of the request"),
+            @ApiResponse(code = 400, message = "Invalid Idempotency-Key, or already used for a different Payment"),
             @ApiResponse(code = 404, message = "The selected Payment does not exist, and can't be performed"),
             @ApiResponse(code = 405, message = "The selected Payment can't be performed due to the Rental current " +
                     "state. The Rental must be in AWAITING_PAYMENT or AWAITING_PAYMENT_OVERDUE state in order to" +
                     "proceed"),
             @ApiResponse(code = 409, message = "The selected Payment can't be performed due to the Rental current " +
                     "state. Probably some Films included in the Rental are no longer available to rent. You should " +
-                    "either cancel or modify the Rental to get rid of those Films")
+                    "either cancel or modify the Rental to get rid of those Films. Also returned while a request " +
+                    "with the same Idempotency-Key is still being performed"),
+            @ApiResponse(code = 503, message = "Too many Payments waiting to be performed asynchronously")
     })
     @PostMapping(value = "/payment/{id}", produces = MediaTypes.HAL_JSON_VALUE)
-    public PaymentResource fulfillPayment(@PathVariable String id) {
-        PaymentId paymentId = PaymentId.from(id);
-        Payment paymentPerformed = videoRentalService.performPayment(paymentId);
-        return resourceAssembler.toResource(paymentPerformed);
+    public ResponseEntity<ResourceSupport> fulfillPayment(@PathVariable PaymentId id,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestHeader(value = PREFER_HEADER, required = false) String prefer) {
+        if (prefer != null && prefer.contains(RESPOND_ASYNC_PREFERENCE)) {
+            String requestKey = idempotencyKey != null ? idempotencyKey : UUID.randomUUID().toString();
+            PaymentRequestResource paymentRequestResource =
+                    new PaymentRequestResource(paymentRequestProcessor.submit(requestKey, id));
+            HttpStatus status = paymentRequestResource.getStatus() == PaymentRequestStatus.PENDING ?
+                    HttpStatus.ACCEPTED : HttpStatus.OK;
+            return ResponseEntity.status(status).location(URI.create(paymentRequestResource.getId().getHref()))
+                    .header(PREFERENCE_APPLIED_HEADER, RESPOND_ASYNC_PREFERENCE).body(paymentRequestResource);
+        }
+        Payment paymentPerformed = idempotencyKey != null ? paymentRequestProcessor.perform(idempotencyKey, id) :
+                videoRentalService.performPayment(id);
+        return ResponseEntity.ok(resourceAssembler.toResource(paymentPerformed));
+    }
+
+    @ApiOperation(value = "Gets the status of a request to perform a Payment, made with an Idempotency-Key header " +
+            "or asynchronously")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved"),
+            @ApiResponse(code = 404, message = "No Payment was requested with the selected key")
+    })
+    @GetMapping(value = "/payment-request/{idempotencyKey}", produces = MediaTypes.HAL_JSON_VALUE)
+    public PaymentRequestResource getPaymentRequest(@PathVariable String idempotencyKey) {
+        return readOnlyQueryService.query(() ->
+                new PaymentRequestResource(paymentRequestRepository.findById(idempotencyKey).get()));
     }
 
+    /**
+     * A flat representation of a Payment made for exporting purposes. Unlike Payment resources, it carries no links,
+     * so that it can be written without building any URIs
+     */
+    @JsonPropertyOrder({"paymentId", "status", "amount", "currency", "date"})
+    public static class PaymentExportRepresentation {
+
+        private final Payment payment;
+
+        public PaymentExportRepresentation(Payment payment) {
+            this.payment = payment;
+        }
+
+        public PaymentId getPaymentId() {
+            return payment.getId();
+        }
+        public PaymentStatus getStatus() {
+            return payment.getStatus();
+        }
+        public Long getAmount() {
+            return payment.getAmount();
+        }
+        public String getCurrency() {
+            return payment.getCurrency();
+        }
+        public Date getDate() {
+            return payment.getDate();
+        }
+    }
 }
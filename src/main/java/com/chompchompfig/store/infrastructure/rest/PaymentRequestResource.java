@@ -0,0 +1,65 @@
+package com.chompchompfig.store.infrastructure.rest;
+
+import com.chompchompfig.store.domain.PaymentId;
+import com.chompchompfig.store.domain.PaymentRequest;
+import com.chompchompfig.store.domain.PaymentRequestStatus;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import org.springframework.hateoas.ResourceSupport;
+import org.springframework.hateoas.core.Relation;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+@ApiModel(description = "A representation of a request to perform a Payment, made with an idempotency key",
+        value = "PaymentRequest")
+@Relation(collectionRelation = "paymentRequests", value = "paymentRequest")
+@JsonPropertyOrder({"idempotencyKey", "paymentId", "status", "message", "date", "_links"})
+public class PaymentRequestResource extends ResourceSupport {
+
+    public static final String PAYMENT_REL_NAME = "payment";
+
+    private PaymentRequest paymentRequest;
+
+    public PaymentRequestResource(PaymentRequest paymentRequest) {
+        this.paymentRequest = paymentRequest;
+        this.add(ResourceLinks.PAYMENT_REQUEST.toSelfLink(toPathSegment(paymentRequest.getIdempotencyKey())));
+        this.add(ResourceLinks.PAYMENT.toLink(paymentRequest.getPaymentId(), PAYMENT_REL_NAME));
+    }
+
+    /**
+     * Encodes an idempotency key, which is chosen by the client, so that it can be used as a path segment
+     * @param idempotencyKey <p>the idempotency key to encode</p>
+     * @return <p>the encoded idempotency key</p>
+     */
+    static String toPathSegment(String idempotencyKey) {
+        return UriUtils.encodePathSegment(idempotencyKey, StandardCharsets.UTF_8);
+    }
+
+    @ApiModelProperty(notes = "the idempotency key identifying the request")
+    public String getIdempotencyKey() {
+        return this.paymentRequest.getIdempotencyKey();
+    }
+
+    @ApiModelProperty(notes = "the unique identifier of the Payment requested")
+    public PaymentId getPaymentId() {
+        return this.paymentRequest.getPaymentId();
+    }
+
+    @ApiModelProperty(notes = "the request status. Could be PENDING, DONE or FAILED")
+    public PaymentRequestStatus getStatus() {
+        return this.paymentRequest.getStatus();
+    }
+
+    @ApiModelProperty(notes = "the reason why the Payment could not be performed, if the request FAILED")
+    public String getMessage() {
+        return this.paymentRequest.getMessage();
+    }
+
+    @ApiModelProperty(notes = "the date the request was first made")
+    public Date getDate() {
+        return this.paymentRequest.getDate();
+    }
+}
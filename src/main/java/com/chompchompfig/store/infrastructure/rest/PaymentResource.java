@@ -10,9 +10,6 @@ import io.swagger.annotations.ApiModelProperty;
 import org.springframework.hateoas.ResourceSupport;
 import org.springframework.hateoas.core.Relation;
 
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
-
 @ApiModel(description = "A representation of a Payment resource", value = "Payment")
 @Relation(collectionRelation = "payments", value = "payment")
 @JsonPropertyOrder({"paymentId", "status", "amount", "currency", "_links"})
@@ -22,7 +19,16 @@ public class PaymentResource extends ResourceSupport {
 
     public PaymentResource(Payment payment) {
         this.payment = payment;
-        this.add(linkTo(methodOn(PaymentController.class).getPayment(this.payment.getId().toString())).withSelfRel());
+        this.add(ResourceLinks.PAYMENT.toSelfLink(this.payment.getId()));
+    }
+
+    /**
+     * Gets the entity tag of the representation of a Payment, which changes whenever any of its attributes do
+     * @param payment <p>the Payment to get the entity tag of</p>
+     * @return <p>the entity tag, derived from the Payment version</p>
+     */
+    public static String entityTagOf(Payment payment) {
+        return String.valueOf(payment.getVersion());
     }
 
     @ApiModelProperty(notes = "the Payment unique identifier")
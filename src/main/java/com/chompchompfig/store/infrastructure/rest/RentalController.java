@@ -1,9 +1,15 @@
 package com.chompchompfig.store.infrastructure.rest;
 
+import com.chompchompfig.store.application.RentalCreationRequest;
+import com.chompchompfig.store.application.ReadOnlyQueryService;
+import com.chompchompfig.store.application.RentalCreationResult;
 import com.chompchompfig.store.domain.Rental;
 import com.chompchompfig.store.domain.RentalId;
+import com.chompchompfig.store.domain.RentalStatus;
+import com.chompchompfig.store.infrastructure.jpa.FilmSummary;
 import com.chompchompfig.store.infrastructure.jpa.RentalRepository;
 import com.chompchompfig.store.application.VideoRentalService;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
@@ -11,10 +17,18 @@ import io.swagger.annotations.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.hateoas.MediaTypes;
 import org.springframework.hateoas.Resources;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Api(value ="Video Rentals, Rentals", description = "Film Rentals API", tags = "{4}")
 @RestController
@@ -27,27 +41,61 @@ public class RentalController {
     private VideoRentalService videoRentalService;
     @Autowired
     private RentalResourceAssembler resourceAssembler;
+    @Autowired
+    private KeysetPagination keysetPagination;
+    @Autowired
+    private NdjsonExporter ndjsonExporter;
+    @Autowired
+    private ReadOnlyQueryService readOnlyQueryService;
 
-    @ApiOperation(value = "Gets the list of all Rentals registered in the system")
+    @ApiOperation(value = "Gets a page of the Rentals registered in the system")
     @ApiResponses(value = {
-            @ApiResponse(code = 200, message = "Successfully retrieved")
+            @ApiResponse(code = 200, message = "Successfully retrieved"),
+            @ApiResponse(code = 400, message = "Invalid page size or pagination cursors")
     })
     @GetMapping(value = "/rentals", produces = MediaTypes.HAL_JSON_VALUE)
-    public Resources<RentalResource> getRentals() {
-        return new Resources(resourceAssembler.toResources(rentalRepository.findAll()));
+    public Resources<RentalResource> getRentals(@RequestParam(required = false) RentalId after,
+                                                @RequestParam(required = false) RentalId before,
+                                                @RequestParam(required = false) Integer size) {
+        int pageSize = keysetPagination.getPageSize(size);
+        return readOnlyQueryService.query(() -> {
+            KeysetPage<Rental> page = keysetPagination.getPage(after, before, pageSize,
+                    rentalRepository::findFirstPage, rentalRepository::findPageAfter,
+                    rentalRepository::findPageBefore);
+            Map<RentalId, List<FilmSummary>> filmsByRental = findFilmSummaries(page.getContent());
+            Resources<RentalResource> resources = new Resources(page.getContent().stream()
+                    .map(r -> resourceAssembler.toResource(r, filmsByRental.getOrDefault(r.getId(),
+                            Collections.emptyList()))).collect(Collectors.toList()));
+            keysetPagination.addPageLinks(resources, page, pageSize, r -> r.getId().toString());
+            return resources;
+        });
+    }
+
+    @ApiOperation(value = "Exports the Rentals registered in the system as newline delimited JSON, one Rental per line")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully exported")
+    })
+    @GetMapping(value = "/rentals:export", produces = NdjsonExporter.NDJSON_MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportRentals() {
+        StreamingResponseBody body = ndjsonExporter.export(rentalRepository::streamAll, RentalExportRepresentation::new);
+        return ResponseEntity.ok().contentType(MediaType.valueOf(NdjsonExporter.NDJSON_MEDIA_TYPE)).body(body);
     }
 
     @ApiOperation(value = "Gets a Rental from the system")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Successfully retrieved"),
+            @ApiResponse(code = 304, message = "The Rental hasn't changed since the version given in If-None-Match"),
             @ApiResponse(code = 404, message = "The selected Rental does not exist")
     })
     @GetMapping(value = "/rental/{id}", produces = MediaTypes.HAL_JSON_VALUE)
-    public RentalResource getRental(@PathVariable String id) {
-        RentalId rentalId = RentalId.from(id);
-        Optional<Rental> rental = rentalRepository.findById(rentalId);
-        Optional<RentalResource> rentalResource = rental.map(r -> new RentalResource(r));
-        return rentalResource.get();
+    public RentalResource getRental(@PathVariable RentalId id, WebRequest webRequest) {
+        return readOnlyQueryService.query(() -> {
+            Rental rental = rentalRepository.findById(id).get();
+            if (webRequest.checkNotModified(RentalResource.entityTagOf(rental))) {
+                return null;
+            }
+            return new RentalResource(rental);
+        });
     }
 
     @ApiOperation(value = "Returns a Rental. All Films rented are returned and made available again")
@@ -61,9 +109,8 @@ public class RentalController {
                     "Rental to be successfully RETURNED, which will then be done automatically")
     })
     @DeleteMapping(value ="/rental/{id}", produces = MediaTypes.HAL_JSON_VALUE)
-    public RentalResource returnRental(@PathVariable String id) {
-        RentalId rentalId = RentalId.from(id);
-        Rental returnedRental = videoRentalService.returnRental(rentalId);
+    public RentalResource returnRental(@PathVariable RentalId id) {
+        Rental returnedRental = videoRentalService.returnRental(id);
         return new RentalResource(returnedRental);
     }
 
@@ -80,16 +127,85 @@ public class RentalController {
         return new RentalResource(rental);
     }
 
+    @ApiOperation(value = "Creates many new Rentals at once, each one with some Films")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully processed. Every Rental is reported as either CREATED or " +
+                    "FAILED, in the same order as requested"),
+            @ApiResponse(code = 400, message = "Too many Rentals in a single batch"),
+            @ApiResponse(code = 500, message = "The Rentals couldn't be written. None of them was created, and no " +
+                    "outcome is reported for any of them")
+    })
+    @PostMapping(value = "/rentals:batch", consumes= "application/json", produces = MediaTypes.HAL_JSON_VALUE)
+    public Resources<RentalCreationResultResource> addRentals(
+            @RequestBody List<RentalResourceCreationRepresentation> rentalResourceRepresentations) {
+        List<RentalCreationRequest> requests = rentalResourceRepresentations.stream()
+                .map(r -> new RentalCreationRequest(r.getCustomerId(), r.getDays(), r.getFilmIds()))
+                .collect(Collectors.toList());
+        List<RentalCreationResult> results = videoRentalService.newRentals(requests);
+        return new Resources<>(results.stream().map(RentalCreationResultResource::new).collect(Collectors.toList()));
+    }
 
     @PostMapping(value ="/rental/{id}", consumes = "application/json", produces = MediaTypes.HAL_JSON_VALUE)
-    public RentalResource updateRental(@PathVariable String id,
+    public RentalResource updateRental(@PathVariable RentalId id,
                                        @RequestBody RentalResourceUpdateRepresentation rentalResourceRepresentation) {
-        RentalId rentalId = RentalId.from(id);
-        Rental rental = videoRentalService.updateRental(rentalId,
+        Rental rental = videoRentalService.updateRental(id,
                 rentalResourceRepresentation.days, rentalResourceRepresentation.getFilmIds());
         return new RentalResource(rental);
     }
 
+    private Map<RentalId, List<FilmSummary>> findFilmSummaries(List<Rental> rentals) {
+        if (rentals.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        // Pages hold every Rental between their first and last RentalIds, so their Films are found by range
+        Comparator<RentalId> rentalIdOrder =
+                Comparator.comparing(RentalId::getCustomerId).thenComparing(RentalId::getId);
+        List<RentalId> rentalIds = rentals.stream().map(Rental::getId).collect(Collectors.toList());
+        return rentalRepository.findFilmSummariesBetween(Collections.min(rentalIds, rentalIdOrder),
+                Collections.max(rentalIds, rentalIdOrder)).stream()
+                .collect(Collectors.groupingBy(FilmSummary::getRentalId));
+    }
+
+    /**
+     * A flat representation of a Rental made for exporting purposes. Unlike Rental resources, it carries no links, so
+     * that it can be written without building any URIs
+     */
+    @JsonPropertyOrder({"rentalId", "status", "rentalStartDate", "days", "overdue", "overdueSince", "overdueSurcharge",
+            "filmIds"})
+    public static class RentalExportRepresentation {
+
+        private final Rental rental;
+
+        public RentalExportRepresentation(Rental rental) {
+            this.rental = rental;
+        }
+
+        public RentalId getRentalId() {
+            return rental.getId();
+        }
+        public RentalStatus getStatus() {
+            return rental.getStatus();
+        }
+        public Date getRentalStartDate() {
+            return rental.getRentalStartDate();
+        }
+        public int getDays() {
+            return rental.getDays();
+        }
+        public boolean isOverdue() {
+            return rental.isOverdue();
+        }
+        public Date getOverdueSince() {
+            return rental.getOverdueSince();
+        }
+        public Long getOverdueSurcharge() {
+            return rental.getOverdueSurcharge();
+        }
+        public List<Long> getFilmIds() {
+            return rental.getItems().stream().map(i -> i.getFilm().getId()).collect(Collectors.toList());
+        }
+    }
+
     /**
      * A trimmed down representation of a Rental resource made for updating purposes. It just contains a handful of
      * attributes which are required. The rest are derived internally
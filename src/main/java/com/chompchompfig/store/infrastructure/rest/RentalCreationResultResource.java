@@ -0,0 +1,44 @@
+package com.chompchompfig.store.infrastructure.rest;
+
+import com.chompchompfig.store.application.RentalCreationResult;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import org.springframework.hateoas.ResourceSupport;
+import org.springframework.hateoas.core.Relation;
+
+@ApiModel(description = "A representation of the outcome of a Rental creation request in a batch",
+        value = "RentalCreationResult")
+@Relation(collectionRelation = "results", value = "result")
+@JsonPropertyOrder({"index", "status", "message", "rental"})
+public class RentalCreationResultResource extends ResourceSupport {
+
+    public static final String CREATED_STATUS = "CREATED";
+    public static final String FAILED_STATUS = "FAILED";
+
+    private RentalCreationResult result;
+
+    public RentalCreationResultResource(RentalCreationResult result) {
+        this.result = result;
+    }
+
+    @ApiModelProperty(notes = "the position of the request in the batch")
+    public int getIndex() {
+        return this.result.getIndex();
+    }
+
+    @ApiModelProperty(notes = "whether the Rental was CREATED or FAILED to be created")
+    public String getStatus() {
+        return this.result.isCreated() ? CREATED_STATUS : FAILED_STATUS;
+    }
+
+    @ApiModelProperty(notes = "the reason why the Rental could not be created, if it FAILED")
+    public String getMessage() {
+        return this.result.getFailureMessage();
+    }
+
+    @ApiModelProperty(notes = "the Rental created, if it was CREATED")
+    public RentalResource getRental() {
+        return this.result.isCreated() ? new RentalResource(this.result.getRental()) : null;
+    }
+}
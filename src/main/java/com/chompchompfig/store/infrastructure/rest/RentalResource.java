@@ -1,6 +1,7 @@
 package com.chompchompfig.store.infrastructure.rest;
 
 import com.chompchompfig.store.domain.*;
+import com.chompchompfig.store.infrastructure.jpa.FilmSummary;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.fasterxml.jackson.annotation.JsonUnwrapped;
 import io.swagger.annotations.ApiModel;
@@ -16,9 +17,6 @@ import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
-
 @ApiModel(description = "A representation of a Rental resource", value = "Rental")
 @Relation(collectionRelation = "rentals", value = "rental")
 @JsonPropertyOrder({"rentalId", "status", "customer", "rentalStartDate", "days", "overdue", "films", "_embedded", "_links"})
@@ -29,46 +27,60 @@ public class RentalResource extends ResourceSupport {
     public static final String RETURN_REL_NAME = "return";
     public static final String FILMS_EMBEDDED_REL_NAME = "films";
     public static final String CUSTOMER_EMBEDDED_REL_NAME = "customer";
-    public static final String RENTAL_RESOURCE_PATH = "rental/";
 
     private Rental rental;
+    private List<FilmSummary> films;
 
     public RentalResource(Rental rental) {
+        this(rental, rental.getItems().stream().map(ri -> FilmSummary.of(rental.getId(), ri.getFilm()))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Creates a new RentalResource embedding the given Films, instead of those loaded with the Items of the Rental
+     * @param rental <p>the Rental to represent</p>
+     * @param films <p>the summaries of the Films rented in the Rental</p>
+     */
+    public RentalResource(Rental rental, List<FilmSummary> films) {
         this.rental = rental;
-        this.add(linkTo(methodOn(RentalController.class).getRental(this.rental.getId().toString())).withSelfRel());
+        this.films = films;
+        this.add(ResourceLinks.RENTAL.toSelfLink(this.rental.getId()));
         addModifyLinks();
         addReturnLinks();
         addPaymentLinks();
     }
 
+    /**
+     * Gets the entity tag of the representation of a Rental. PAID Rentals become overdue as time goes by, before their
+     * version changes, so whether the Rental is overdue is part of the tag too
+     * @param rental <p>the Rental to get the entity tag of</p>
+     * @return <p>the entity tag, derived from the Rental version and whether it is overdue</p>
+     */
+    public static String entityTagOf(Rental rental) {
+        return rental.getVersion() + (rental.isOverdue() ? ".overdue" : "");
+    }
+
     private void addModifyLinks() {
         if (rental.getStatus().equals(RentalStatus.AWAITING_PAYMENT)) {
-            this.add(linkTo(RentalController.class)
-                    .slash(RENTAL_RESOURCE_PATH + rental.getId().toString()).withRel(MODIFY_REL_NAME));
-            //  I hate this. There doesn't seem a way to reference a Controller method with a ControllerLinkBuilder
+            this.add(ResourceLinks.MODIFY_RENTAL.toLink(rental.getId(), MODIFY_REL_NAME));
         }
     }
 
     private void addReturnLinks() {
         if (rental.getStatus().equals(RentalStatus.PAID)) {
-            this.add(linkTo(methodOn(RentalController.class)
-                    .returnRental(rental.getId().toString())).withRel(RETURN_REL_NAME));
+            this.add(ResourceLinks.RETURN_RENTAL.toLink(rental.getId(), RETURN_REL_NAME));
         }
     }
 
     private void addPaymentLinks() {
         if (rental.getStatus().equals(RentalStatus.AWAITING_PAYMENT_OVERDUE) ||
                 rental.getStatus().equals(RentalStatus.AWAITING_PAYMENT)) {
-            List<Payment> pendingPayments =
-                    rental.getPayments().stream().filter(p -> p.getStatus().equals(PaymentStatus.PENDING)).
-                            collect(Collectors.toList());
-            pendingPayments.stream().forEach(p -> addPaymentLink(p));
+            rental.getPendingPayments().forEach(p -> addPaymentLink(p));
         }
     }
 
     private void addPaymentLink(Payment payment) {
-        this.add(linkTo(methodOn(PaymentController.class).fulfillPayment(payment.getId().toString())).
-                withRel(PAY_REL_NAME));
+        this.add(ResourceLinks.FULFILL_PAYMENT.toLink(payment.getId(), PAY_REL_NAME));
     }
 
     @ApiModelProperty(notes = "the Rental unique identifier")
@@ -105,7 +117,7 @@ public class RentalResource extends ResourceSupport {
 
         public LightWeightCustomerResourceRepresentation(Customer customer) {
             this.customer = customer;
-            this.add(linkTo(methodOn(CustomerController.class).getCustomer(this.customer.getId())).withSelfRel());
+            this.add(ResourceLinks.CUSTOMER.toSelfLink(this.customer.getId()));
         }
 
         @ApiModelProperty(notes = "the Customer unique identifier")
@@ -123,16 +135,16 @@ public class RentalResource extends ResourceSupport {
     @JsonPropertyOrder({"filmId", "name", "_links"})
     public static class LightWeightFilmResourceRepresentation extends ResourceSupport {
 
-        private Film film;
+        private FilmSummary film;
 
-        public LightWeightFilmResourceRepresentation(Film film) {
+        public LightWeightFilmResourceRepresentation(FilmSummary film) {
             this.film = film;
-            this.add(linkTo(methodOn(FilmController.class).getFilm(this.film.getId())).withSelfRel());
+            this.add(ResourceLinks.FILM.toSelfLink(this.film.getFilmId()));
         }
 
         @ApiModelProperty(notes = "the Film unique identifier")
         public Long getFilmId() {
-            return this.film.getId();
+            return this.film.getFilmId();
         }
 
         @ApiModelProperty(notes = "the Film name")
@@ -150,8 +162,8 @@ public class RentalResource extends ResourceSupport {
                 new LightWeightCustomerResourceRepresentation(this.rental.getCustomer());
         embeddedWrappers.add(wrappers.wrap(lightWeightCustomerResourceRepresentation, CUSTOMER_EMBEDDED_REL_NAME));
 
-        List<EmbeddedWrapper> lightWeightFilms = this.rental.getItems()
-                .stream().map(ri -> wrappers.wrap(new LightWeightFilmResourceRepresentation(ri.getFilm()),
+        List<EmbeddedWrapper> lightWeightFilms = this.films
+                .stream().map(f -> wrappers.wrap(new LightWeightFilmResourceRepresentation(f),
                         FILMS_EMBEDDED_REL_NAME)).collect(Collectors.toList());
         embeddedWrappers.addAll(lightWeightFilms);
 
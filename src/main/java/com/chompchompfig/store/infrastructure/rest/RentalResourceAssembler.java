@@ -1,9 +1,12 @@
 package com.chompchompfig.store.infrastructure.rest;
 
 import com.chompchompfig.store.domain.Rental;
+import com.chompchompfig.store.infrastructure.jpa.FilmSummary;
 import org.springframework.hateoas.mvc.ResourceAssemblerSupport;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 public class RentalResourceAssembler extends ResourceAssemblerSupport<Rental, RentalResource> {
 
@@ -15,4 +18,8 @@ public class RentalResourceAssembler extends ResourceAssemblerSupport<Rental, Re
     public RentalResource toResource(Rental rental) {
         return new RentalResource(rental);
     }
+
+    public RentalResource toResource(Rental rental, List<FilmSummary> films) {
+        return new RentalResource(rental, films);
+    }
 }
\ No newline at end of file
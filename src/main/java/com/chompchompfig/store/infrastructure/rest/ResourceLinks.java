@@ -0,0 +1,124 @@
+package com.chompchompfig.store.infrastructure.rest;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.mvc.ControllerLinkBuilder;
+import org.springframework.util.Assert;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the links to single resources, like Rentals or Films, out of URI templates resolved once, from the request
+ * mappings of the controller methods they point at, when this class is loaded. Unlike linkTo(methodOn(...)), which
+ * proxies the controller and resolves the mapping of the method invoked for every single link, links are built by
+ * expanding a template with the identifier of the resource. The base URI of every controller is taken from the current
+ * request by ControllerLinkBuilder, as before, but only once per request
+ */
+public final class ResourceLinks {
+
+    static final String BASE_URIS_ATTRIBUTE = ResourceLinks.class.getName() + ".BASE_URIS";
+    private static final Pattern URI_VARIABLE_PATTERN = Pattern.compile("\\{[^}]+}");
+
+    public static final LinkTemplate FILM = new LinkTemplate(FilmController.class, "getFilm");
+    public static final LinkTemplate CUSTOMER = new LinkTemplate(CustomerController.class, "getCustomer");
+    public static final LinkTemplate RENTAL = new LinkTemplate(RentalController.class, "getRental");
+    public static final LinkTemplate MODIFY_RENTAL = new LinkTemplate(RentalController.class, "updateRental");
+    public static final LinkTemplate RETURN_RENTAL = new LinkTemplate(RentalController.class, "returnRental");
+    public static final LinkTemplate PAYMENT = new LinkTemplate(PaymentController.class, "getPayment");
+    public static final LinkTemplate FULFILL_PAYMENT = new LinkTemplate(PaymentController.class, "fulfillPayment");
+    public static final LinkTemplate PAYMENT_REQUEST = new LinkTemplate(PaymentController.class, "getPaymentRequest");
+
+    private ResourceLinks() {
+    }
+
+    /**
+     * Gets the base URI of a controller for the current request. This is, the URI of its class level request mapping
+     * @param controllerType <p>the controller to get the base URI of</p>
+     * @return <p>the base URI of the controller</p>
+     * @throws IllegalStateException <p>in case there is no current request</p>
+     */
+    @SuppressWarnings("unchecked")
+    static String getBaseUri(Class<?> controllerType) {
+        RequestAttributes requestAttributes = RequestContextHolder.currentRequestAttributes();
+        Map<Class<?>, String> baseUris = (Map<Class<?>, String>)
+                requestAttributes.getAttribute(BASE_URIS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (baseUris == null) {
+            baseUris = new HashMap<>();
+            requestAttributes.setAttribute(BASE_URIS_ATTRIBUTE, baseUris, RequestAttributes.SCOPE_REQUEST);
+        }
+        return baseUris.computeIfAbsent(controllerType, c -> ControllerLinkBuilder.linkTo(c).toString());
+    }
+
+    /**
+     * The URI template of a controller method mapped to a path with a single URI variable, the identifier of the
+     * resource, split around that variable so that expanding it takes a couple of String concatenations
+     */
+    public static final class LinkTemplate {
+
+        private final Class<?> controllerType;
+        private final String pathBeforeId;
+        private final String pathAfterId;
+
+        /**
+         * Resolves the URI template of a controller method
+         * @param controllerType <p>the controller the method belongs to</p>
+         * @param methodName <p>the name of the method, which must be unique within the controller</p>
+         * @throws IllegalArgumentException <p>in case the method can't be found, or it isn't mapped to a path with a
+         * single URI variable</p>
+         */
+        LinkTemplate(Class<?> controllerType, String methodName) {
+            List<Method> methods = Arrays.stream(controllerType.getMethods())
+                    .filter(m -> m.getName().equals(methodName)).collect(Collectors.toList());
+            Assert.isTrue(methods.size() == 1, "Expected a single " + methodName + " method in " + controllerType);
+            RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(methods.get(0), RequestMapping.class);
+            Assert.isTrue(mapping != null && mapping.path().length == 1,
+                    "Expected a single path mapped to " + methodName + " in " + controllerType);
+            String path = mapping.path()[0];
+            Matcher uriVariable = URI_VARIABLE_PATTERN.matcher(path);
+            Assert.isTrue(uriVariable.find(), "Expected a URI variable in " + path);
+            this.controllerType = controllerType;
+            this.pathBeforeId = path.substring(0, uriVariable.start());
+            this.pathAfterId = path.substring(uriVariable.end());
+            Assert.isTrue(!uriVariable.find(), "Expected a single URI variable in " + path);
+        }
+
+        /**
+         * Expands the template with the given identifier, against the base URI of the current request
+         * @param id <p>the identifier of the resource, whose String representation is its URI variable</p>
+         * @return <p>the URI of the resource</p>
+         * @throws IllegalStateException <p>in case there is no current request</p>
+         */
+        public String expand(Object id) {
+            return getBaseUri(controllerType) + pathBeforeId + id + pathAfterId;
+        }
+
+        /**
+         * Builds a link to the resource with the given identifier
+         * @param id <p>the identifier of the resource</p>
+         * @param rel <p>the relation of the link</p>
+         * @return <p>the link to the resource</p>
+         */
+        public Link toLink(Object id, String rel) {
+            return new Link(expand(id), rel);
+        }
+
+        /**
+         * Builds a self link to the resource with the given identifier
+         * @param id <p>the identifier of the resource</p>
+         * @return <p>the self link to the resource</p>
+         */
+        public Link toSelfLink(Object id) {
+            return toLink(id, Link.REL_SELF);
+        }
+    }
+}
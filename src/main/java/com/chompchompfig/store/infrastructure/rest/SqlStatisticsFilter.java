@@ -0,0 +1,132 @@
+package com.chompchompfig.store.infrastructure.rest;
+
+import com.chompchompfig.store.infrastructure.jpa.SqlStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * A Filter collecting the {@link SqlStatistics} of every HTTP request. A warning is logged whenever a request runs
+ * more SQL statements, or spends more time executing them, than its budget allows, and whenever its slowest statement
+ * is slower than the slow statement threshold. In diagnostic mode, the statistics are also sent back as response
+ * headers. Headers are added right before the body is written, so they only account for the statements run until then
+ */
+@Component
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENT_COUNT_HEADER = "X-SQL-Statement-Count";
+    public static final String JDBC_TIME_HEADER = "X-SQL-Time-Millis";
+    public static final String ENTITIES_LOADED_HEADER = "X-SQL-Entities-Loaded";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SqlStatisticsFilter.class);
+
+    @Value("${store.sql-statistics.statement-budget:20}")
+    private int statementBudget;
+    @Value("${store.sql-statistics.time-budget:200}")
+    private long timeBudget;
+    @Value("${store.sql-statistics.slow-statement-threshold:100}")
+    private long slowStatementThreshold;
+    @Value("${store.sql-statistics.diagnostic-headers:false}")
+    private boolean diagnosticHeaders;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatistics sqlStatistics = SqlStatistics.start();
+        try {
+            if (diagnosticHeaders) {
+                SqlStatisticsResponse sqlStatisticsResponse = new SqlStatisticsResponse(response, sqlStatistics);
+                filterChain.doFilter(request, sqlStatisticsResponse);
+                sqlStatisticsResponse.addSqlStatisticsHeaders();
+            } else {
+                filterChain.doFilter(request, response);
+            }
+        } finally {
+            SqlStatistics.stop();
+            logBudgetOverruns(request, sqlStatistics);
+        }
+    }
+
+    private void logBudgetOverruns(HttpServletRequest request, SqlStatistics sqlStatistics) {
+        if (sqlStatistics.getStatementCount() > statementBudget || sqlStatistics.getJdbcTimeMillis() > timeBudget) {
+            LOGGER.warn("SQL budget exceeded: method={} uri={} statements={} statementBudget={} jdbcTimeMillis={} " +
+                    "timeBudgetMillis={} entitiesLoaded={}", request.getMethod(), request.getRequestURI(),
+                    sqlStatistics.getStatementCount(), statementBudget, sqlStatistics.getJdbcTimeMillis(), timeBudget,
+                    sqlStatistics.getEntitiesLoaded());
+        }
+        if (sqlStatistics.getSlowestStatement() != null &&
+                sqlStatistics.getSlowestStatementMillis() > slowStatementThreshold) {
+            LOGGER.warn("Slow SQL statement: method={} uri={} timeMillis={} thresholdMillis={} statement=\"{}\"",
+                    request.getMethod(), request.getRequestURI(), sqlStatistics.getSlowestStatementMillis(),
+                    slowStatementThreshold, sqlStatistics.getSlowestStatement());
+        }
+    }
+
+    /**
+     * A response adding the SQL statistics headers before it is committed
+     */
+    private static class SqlStatisticsResponse extends HttpServletResponseWrapper {
+
+        private final SqlStatistics sqlStatistics;
+
+        SqlStatisticsResponse(HttpServletResponse response, SqlStatistics sqlStatistics) {
+            super(response);
+            this.sqlStatistics = sqlStatistics;
+        }
+
+        void addSqlStatisticsHeaders() {
+            if (!isCommitted()) {
+                setHeader(STATEMENT_COUNT_HEADER, String.valueOf(sqlStatistics.getStatementCount()));
+                setHeader(JDBC_TIME_HEADER, String.valueOf(sqlStatistics.getJdbcTimeMillis()));
+                setHeader(ENTITIES_LOADED_HEADER, String.valueOf(sqlStatistics.getEntitiesLoaded()));
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addSqlStatisticsHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addSqlStatisticsHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addSqlStatisticsHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addSqlStatisticsHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addSqlStatisticsHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addSqlStatisticsHeaders();
+            super.sendRedirect(location);
+        }
+    }
+}
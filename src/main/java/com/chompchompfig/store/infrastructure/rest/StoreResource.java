@@ -16,9 +16,9 @@ public class StoreResource extends ResourceSupport {
 
     public StoreResource() {
         this.add(linkTo(methodOn(StoreController.class).getStore()).withSelfRel());
-        this.add(linkTo(methodOn(FilmController.class).getFilms()).withRel(FILMS_REL_NAME));
-        this.add(linkTo(methodOn(CustomerController.class).getCustomers()).withRel(CUSTOMERS_REL_NAME));
-        this.add(linkTo(methodOn(RentalController.class).getRentals()).withRel(RENTALS_REL_NAME));
-        this.add(linkTo(methodOn(PaymentController.class).getPayments()).withRel(PAYMENTS_REL_NAME));
+        this.add(linkTo(methodOn(FilmController.class).getFilms(null, null, null, null, null)).withRel(FILMS_REL_NAME));
+        this.add(linkTo(methodOn(CustomerController.class).getCustomers(null, null, null)).withRel(CUSTOMERS_REL_NAME));
+        this.add(linkTo(methodOn(RentalController.class).getRentals(null, null, null)).withRel(RENTALS_REL_NAME));
+        this.add(linkTo(methodOn(PaymentController.class).getPayments(null, null, null)).withRel(PAYMENTS_REL_NAME));
     }
 }
@@ -0,0 +1,19 @@
+package com.chompchompfig.store.infrastructure.rest;
+
+import com.chompchompfig.store.domain.PaymentId;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Binds the PaymentId path variables and pagination cursors of the incoming requests straight into PaymentIds, through
+ * the single pass PaymentId parser. Parsing failures are reported back as 400 Bad Request, with the PaymentId parsing
+ * error message as the body
+ */
+@Component
+public class StringToPaymentIdConverter implements Converter<String, PaymentId> {
+
+    @Override
+    public PaymentId convert(String source) {
+        return PaymentId.from(source);
+    }
+}
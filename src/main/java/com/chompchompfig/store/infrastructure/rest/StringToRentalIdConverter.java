@@ -0,0 +1,19 @@
+package com.chompchompfig.store.infrastructure.rest;
+
+import com.chompchompfig.store.domain.RentalId;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Binds the RentalId path variables and pagination cursors of the incoming requests straight into RentalIds, through
+ * the single pass RentalId parser. Parsing failures are reported back as 400 Bad Request, with the RentalId parsing
+ * error message as the body
+ */
+@Component
+public class StringToRentalIdConverter implements Converter<String, RentalId> {
+
+    @Override
+    public RentalId convert(String source) {
+        return RentalId.from(source);
+    }
+}
@@ -0,0 +1,54 @@
+-- the schema as generated by Hibernate up to now, so that it is managed by versioned migrations from here on
+CREATE SEQUENCE HIBERNATE_SEQUENCE START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE CUSTOMER (
+    ID BIGINT NOT NULL,
+    FIRST_NAME VARCHAR(255),
+    LAST_NAME VARCHAR(255),
+    PHONE_NUMBER VARCHAR(255),
+    POINTS_IN_CARD BIGINT,
+    PRIMARY KEY (ID)
+);
+
+CREATE TABLE FILM (
+    ID BIGINT NOT NULL,
+    CATEGORY INTEGER,
+    IS_AVAILABLE BOOLEAN NOT NULL,
+    NAME VARCHAR(255),
+    VERSION INTEGER,
+    PRIMARY KEY (ID)
+);
+
+CREATE TABLE RENTAL (
+    CUSTOMER_ID BIGINT NOT NULL,
+    ID BIGINT NOT NULL,
+    DAYS INTEGER NOT NULL,
+    OVERDUE_SINCE TIMESTAMP,
+    OVERDUE_SURCHARGE BIGINT,
+    RENTAL_START_DATE TIMESTAMP,
+    STATUS INTEGER,
+    PRIMARY KEY (CUSTOMER_ID, ID),
+    CONSTRAINT FK_RENTAL_CUSTOMER FOREIGN KEY (CUSTOMER_ID) REFERENCES CUSTOMER
+);
+
+CREATE TABLE RENTAL_ITEM (
+    CUSTOMER_ID BIGINT NOT NULL,
+    ID BIGINT NOT NULL,
+    RENTAL_ID BIGINT NOT NULL,
+    FILM_ID BIGINT NOT NULL,
+    PRIMARY KEY (CUSTOMER_ID, ID, RENTAL_ID),
+    CONSTRAINT FK_RENTAL_ITEM_RENTAL FOREIGN KEY (CUSTOMER_ID, RENTAL_ID) REFERENCES RENTAL,
+    CONSTRAINT FK_RENTAL_ITEM_FILM FOREIGN KEY (FILM_ID) REFERENCES FILM
+);
+
+CREATE TABLE PAYMENT (
+    CUSTOMER_ID BIGINT NOT NULL,
+    ID BIGINT NOT NULL,
+    RENTAL_ID BIGINT NOT NULL,
+    AMOUNT BIGINT,
+    CURRENCY VARCHAR(255),
+    DATE TIMESTAMP,
+    STATUS INTEGER,
+    PRIMARY KEY (CUSTOMER_ID, ID, RENTAL_ID),
+    CONSTRAINT FK_PAYMENT_RENTAL FOREIGN KEY (CUSTOMER_ID, RENTAL_ID) REFERENCES RENTAL
+);
@@ -0,0 +1,18 @@
+-- PAID Rentals started before a given date, as swept for overdue ones. Also serves filtering Rentals by status alone
+CREATE INDEX IDX_RENTAL_STATUS_START_DATE ON RENTAL (STATUS, RENTAL_START_DATE);
+
+-- Payments by status, and the PENDING Payments of a Customer
+CREATE INDEX IDX_PAYMENT_STATUS_CUSTOMER ON PAYMENT (STATUS, CUSTOMER_ID);
+
+-- Payments within a period, as exported
+CREATE INDEX IDX_PAYMENT_DATE ON PAYMENT (DATE);
+
+-- The Rentals a Film is part of
+CREATE INDEX IDX_RENTAL_ITEM_FILM ON RENTAL_ITEM (FILM_ID);
+
+-- available Films
+CREATE INDEX IDX_FILM_IS_AVAILABLE ON FILM (IS_AVAILABLE);
+
+-- the Items and Payments of a Rental, batch fetched by the composite foreign key, which the primary keys don't lead with
+CREATE INDEX IDX_RENTAL_ITEM_RENTAL ON RENTAL_ITEM (CUSTOMER_ID, RENTAL_ID);
+CREATE INDEX IDX_PAYMENT_RENTAL ON PAYMENT (CUSTOMER_ID, RENTAL_ID);
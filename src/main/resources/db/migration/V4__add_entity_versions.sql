@@ -0,0 +1,4 @@
+-- optimistic locking versions for Customers, Rentals and Payments, which also serve as the ETags of their resources
+ALTER TABLE CUSTOMER ADD COLUMN VERSION INTEGER DEFAULT 0 NOT NULL;
+ALTER TABLE RENTAL ADD COLUMN VERSION INTEGER DEFAULT 0 NOT NULL;
+ALTER TABLE PAYMENT ADD COLUMN VERSION INTEGER DEFAULT 0 NOT NULL;
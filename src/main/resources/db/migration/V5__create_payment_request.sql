@@ -0,0 +1,16 @@
+-- the Payment requests made with an idempotency key, so that retried requests get the outcome of the first one
+CREATE TABLE PAYMENT_REQUEST (
+    IDEMPOTENCY_KEY VARCHAR(64) NOT NULL,
+    CUSTOMER_ID BIGINT NOT NULL,
+    RENTAL_ID BIGINT NOT NULL,
+    PAYMENT_ID BIGINT NOT NULL,
+    STATUS INTEGER NOT NULL,
+    FAILURE INTEGER,
+    MESSAGE VARCHAR(255),
+    DATE TIMESTAMP,
+    VERSION INTEGER DEFAULT 0 NOT NULL,
+    PRIMARY KEY (IDEMPOTENCY_KEY)
+);
+
+-- the PENDING Payment requests, resubmitted on start up
+CREATE INDEX IDX_PAYMENT_REQUEST_STATUS ON PAYMENT_REQUEST (STATUS);
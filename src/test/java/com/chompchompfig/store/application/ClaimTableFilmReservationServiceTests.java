@@ -0,0 +1,92 @@
+package com.chompchompfig.store.application;
+
+import com.chompchompfig.store.infrastructure.jpa.JpaContextConfiguration;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = JpaContextConfiguration.class, properties = "spring.datasource.generate-unique-name=true")
+public class ClaimTableFilmReservationServiceTests {
+
+    public static final Long FILM_ID_1 = 1l;
+    public static final Long FILM_ID_2 = 2l;
+    public static final Long FILM_ID_3 = 3l;
+    public static final Long UNAVAILABLE_FILM_ID = 4l;
+
+    @Autowired
+    private ClaimTableFilmReservationService filmReservationService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test(expected = IllegalStateException.class)
+    public void claimShouldThrowExceptionWithNoTransaction() {
+        filmReservationService.claim(Collections.singletonList(FILM_ID_1));
+    }
+
+    @Test
+    public void claimShouldReturnUnavailableFilms() {
+        List<Long> lostFilmIds = inRolledBackTransaction(() ->
+                filmReservationService.claim(Arrays.asList(FILM_ID_1, UNAVAILABLE_FILM_ID)));
+        Assert.assertEquals(Collections.singletonList(UNAVAILABLE_FILM_ID), lostFilmIds);
+        Assert.assertTrue(filmReservationService.findClaimed(Arrays.asList(FILM_ID_1, UNAVAILABLE_FILM_ID)).isEmpty());
+    }
+
+    @Test
+    public void claimShouldReturnFilmsClaimedByTransactionsInFlightAndClaimNoneOfTheRest() throws Exception {
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<Long>> inFlightClaim = executorService.submit(() -> inRolledBackTransaction(() -> {
+                List<Long> lostFilmIds = filmReservationService.claim(Arrays.asList(FILM_ID_1, FILM_ID_2));
+                claimed.countDown();
+                await(done);
+                return lostFilmIds;
+            }));
+            await(claimed);
+
+            List<Long> lostFilmIds = inRolledBackTransaction(() ->
+                    filmReservationService.claim(Arrays.asList(FILM_ID_2, FILM_ID_3)));
+            Assert.assertEquals(Collections.singletonList(FILM_ID_2), lostFilmIds);
+            Assert.assertEquals(Arrays.asList(FILM_ID_1, FILM_ID_2),
+                    filmReservationService.findClaimed(Arrays.asList(FILM_ID_1, FILM_ID_2, FILM_ID_3)));
+
+            done.countDown();
+            Assert.assertTrue(inFlightClaim.get().isEmpty());
+        } finally {
+            executorService.shutdown();
+        }
+        Assert.assertTrue(filmReservationService.findClaimed(Arrays.asList(FILM_ID_1, FILM_ID_2, FILM_ID_3))
+                .isEmpty());
+    }
+
+    private List<Long> inRolledBackTransaction(Callable<List<Long>> work) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            status.setRollbackOnly();
+            try {
+                return work.call();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.chompchompfig.store.application;
+
+import com.chompchompfig.store.domain.FilmAvailabilityChanged;
+import com.chompchompfig.store.domain.FilmCategory;
+import com.chompchompfig.store.domain.SimpleFixtureFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class FilmAvailabilityIndexTests {
+
+    public static final int MAX_FILM_IDS = 10;
+
+    private final SimpleFixtureFactory simpleFixtureFactory = new SimpleFixtureFactory();
+    private FilmAvailabilityIndex filmAvailabilityIndex;
+
+    @Before
+    public void setUpFilmAvailabilityIndex() {
+        filmAvailabilityIndex = new FilmAvailabilityIndex();
+        filmAvailabilityIndex.rebuild(Arrays.asList(
+                simpleFixtureFactory.newFilmOfCategory(1l, SimpleFixtureFactory.FILM_NAME_1, FilmCategory.NEW),
+                simpleFixtureFactory.newFilmOfCategory(2l, SimpleFixtureFactory.FILM_NAME_2, FilmCategory.REGULAR),
+                simpleFixtureFactory.newFilmOfCategory(3l, SimpleFixtureFactory.FILM_NAME_3, FilmCategory.NEW),
+                simpleFixtureFactory.newFilmOfCategory(5l, SimpleFixtureFactory.FILM_NAME_1, FilmCategory.NEW)));
+        filmAvailabilityIndex.onFilmAvailabilityChanged(new FilmAvailabilityChanged(3l, FilmCategory.NEW, false));
+    }
+
+    @Test
+    public void findFilmIdsAfterShouldReturnFilmsWithGivenAvailabilityAndCategoryInAscendingOrder() {
+        Assert.assertEquals(Arrays.asList(1l, 5l),
+                filmAvailabilityIndex.findFilmIdsAfter(true, FilmCategory.NEW, null, MAX_FILM_IDS));
+        Assert.assertEquals(Collections.singletonList(3l),
+                filmAvailabilityIndex.findFilmIdsAfter(false, FilmCategory.NEW, null, MAX_FILM_IDS));
+        Assert.assertEquals(Arrays.asList(1l, 2l, 5l),
+                filmAvailabilityIndex.findFilmIdsAfter(true, null, null, MAX_FILM_IDS));
+        Assert.assertEquals(Arrays.asList(1l, 3l, 5l),
+                filmAvailabilityIndex.findFilmIdsAfter(null, FilmCategory.NEW, null, MAX_FILM_IDS));
+    }
+
+    @Test
+    public void findFilmIdsAfterShouldSeekFromCursorAndStopAtMaxFilmIds() {
+        Assert.assertEquals(Collections.singletonList(2l),
+                filmAvailabilityIndex.findFilmIdsAfter(true, null, 1l, 1));
+        Assert.assertEquals(Collections.singletonList(5l),
+                filmAvailabilityIndex.findFilmIdsAfter(true, FilmCategory.NEW, 1l, MAX_FILM_IDS));
+        Assert.assertTrue(filmAvailabilityIndex.findFilmIdsAfter(true, null, 5l, MAX_FILM_IDS).isEmpty());
+        Assert.assertEquals(Arrays.asList(1l, 2l, 5l),
+                filmAvailabilityIndex.findFilmIdsAfter(true, null, -10l, MAX_FILM_IDS));
+    }
+
+    @Test
+    public void findFilmIdsBeforeShouldReturnFilmsInDescendingOrder() {
+        Assert.assertEquals(Arrays.asList(5l, 2l),
+                filmAvailabilityIndex.findFilmIdsBefore(true, null, Long.MAX_VALUE, 2));
+        Assert.assertEquals(Collections.singletonList(1l),
+                filmAvailabilityIndex.findFilmIdsBefore(true, FilmCategory.NEW, 5l, MAX_FILM_IDS));
+        Assert.assertTrue(filmAvailabilityIndex.findFilmIdsBefore(true, null, 1l, MAX_FILM_IDS).isEmpty());
+    }
+
+    @Test
+    public void onFilmAvailabilityChangedShouldMoveFilmsBetweenAvailableAndUnavailable() {
+        filmAvailabilityIndex.onFilmAvailabilityChanged(new FilmAvailabilityChanged(3l, FilmCategory.NEW, true));
+        filmAvailabilityIndex.onFilmAvailabilityChanged(new FilmAvailabilityChanged(1l, FilmCategory.NEW, false));
+        Assert.assertEquals(Arrays.asList(3l, 5l),
+                filmAvailabilityIndex.findFilmIdsAfter(true, FilmCategory.NEW, null, MAX_FILM_IDS));
+        Assert.assertEquals(Collections.singletonList(1l),
+                filmAvailabilityIndex.findFilmIdsAfter(false, FilmCategory.NEW, null, MAX_FILM_IDS));
+    }
+}
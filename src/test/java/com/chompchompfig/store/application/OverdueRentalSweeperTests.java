@@ -0,0 +1,103 @@
+package com.chompchompfig.store.application;
+
+import com.chompchompfig.store.domain.Rental;
+import com.chompchompfig.store.domain.RentalId;
+import com.chompchompfig.store.domain.RentalStatus;
+import com.chompchompfig.store.infrastructure.jpa.JpaContextConfiguration;
+import com.chompchompfig.store.infrastructure.jpa.RentalRepository;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = JpaContextConfiguration.class, properties = {
+        "spring.datasource.generate-unique-name=true",
+        "spring.jpa.properties.hibernate.javax.cache.uri=urn:store:overdue-rental-sweeper-test",
+        "store.overdue-sweeper.chunk-size=2",
+        "store.overdue-sweeper.parallelism=3"})
+public class OverdueRentalSweeperTests {
+
+    public static final RentalId AWAITING_PAYMENT_RENTAL_ID = new RentalId(1l, 1l);
+    public static final RentalId PAID_RENTAL_ID = new RentalId(2l, 2l);
+    public static final LocalDate PAID_RENTAL_LAST_DAY = LocalDate.of(2018, 6, 8);
+    public static final LocalDate PAID_RENTAL_OVERDUE_SINCE = LocalDate.of(2018, 6, 9);
+    public static final LocalDate SWEEP_DATE = LocalDate.of(2018, 6, 20);
+    public static final long PAID_RENTAL_SURCHARGE_ON_SWEEP_DATE = 40 * 15 - 40 * 3;
+    public static final List<RentalId> MORE_PAID_RENTAL_IDS = Arrays.asList(new RentalId(1l, 10l),
+            new RentalId(1l, 11l), new RentalId(2l, 10l), new RentalId(3l, 10l), new RentalId(3l, 11l));
+    public static final Long REGULAR_FILM_ID = 1l;
+    public static final long REGULAR_FILM_SURCHARGE_ON_SWEEP_DATE = 30 + 30 * (15 - 3) - 30;
+    public static final RentalId RETURNED_RENTAL_ID = new RentalId(3l, 12l);
+
+    @Autowired
+    private OverdueRentalSweeper overdueRentalSweeper;
+    @Autowired
+    private RentalRepository rentalRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void sweepShouldRecordTheOverdueStatusOfPaidRentalsOnly() {
+        MORE_PAID_RENTAL_IDS.forEach(rentalId -> insertRental(rentalId, RentalStatus.PAID));
+        insertRental(RETURNED_RENTAL_ID, RentalStatus.RETURNED);
+
+        Assert.assertEquals(0, overdueRentalSweeper.sweep(PAID_RENTAL_LAST_DAY));
+        Assert.assertNull(rentalRepository.findById(PAID_RENTAL_ID).get().getOverdueSince());
+
+        Assert.assertEquals(1 + MORE_PAID_RENTAL_IDS.size(), overdueRentalSweeper.sweep(SWEEP_DATE));
+        Rental paidRental = rentalRepository.findById(PAID_RENTAL_ID).get();
+        Assert.assertEquals(toDate(PAID_RENTAL_OVERDUE_SINCE), paidRental.getOverdueSince());
+        Assert.assertEquals(Long.valueOf(PAID_RENTAL_SURCHARGE_ON_SWEEP_DATE), paidRental.getOverdueSurcharge());
+        Assert.assertTrue(paidRental.isOverdue());
+        for (RentalId rentalId : MORE_PAID_RENTAL_IDS) {
+            Rental morePaidRental = rentalRepository.findById(rentalId).get();
+            Assert.assertEquals(toDate(PAID_RENTAL_OVERDUE_SINCE), morePaidRental.getOverdueSince());
+            Assert.assertEquals(Long.valueOf(REGULAR_FILM_SURCHARGE_ON_SWEEP_DATE),
+                    morePaidRental.getOverdueSurcharge());
+            Assert.assertEquals(RentalStatus.PAID, morePaidRental.getStatus());
+        }
+        Assert.assertNull(rentalRepository.findById(AWAITING_PAYMENT_RENTAL_ID).get().getOverdueSince());
+        Assert.assertNull(rentalRepository.findById(RETURNED_RENTAL_ID).get().getOverdueSince());
+    }
+
+    @Test
+    public void updateOverdueStatusShouldLeaveRentalsNoLongerPaidUntouched() {
+        Rental awaitingPaymentRental = rentalRepository.findById(AWAITING_PAYMENT_RENTAL_ID).get();
+
+        int updated = new TransactionTemplate(transactionManager).execute(status ->
+                rentalRepository.updateOverdueStatus(AWAITING_PAYMENT_RENTAL_ID, RentalStatus.PAID,
+                        toDate(SWEEP_DATE), PAID_RENTAL_SURCHARGE_ON_SWEEP_DATE));
+
+        Assert.assertEquals(0, updated);
+        Rental untouchedRental = rentalRepository.findById(AWAITING_PAYMENT_RENTAL_ID).get();
+        Assert.assertEquals(RentalStatus.AWAITING_PAYMENT, untouchedRental.getStatus());
+        Assert.assertNull(untouchedRental.getOverdueSince());
+        Assert.assertEquals(awaitingPaymentRental.getVersion(), untouchedRental.getVersion());
+    }
+
+    private void insertRental(RentalId rentalId, RentalStatus status) {
+        jdbcTemplate.update("INSERT INTO RENTAL(ID, CUSTOMER_ID, DAYS, RENTAL_START_DATE, STATUS) " +
+                "VALUES (?, ?, 3, ?, ?)", rentalId.getId(), rentalId.getCustomerId(),
+                toDate(PAID_RENTAL_LAST_DAY.minusDays(3)), status.ordinal());
+        jdbcTemplate.update("INSERT INTO RENTAL_ITEM(ID, CUSTOMER_ID, RENTAL_ID, FILM_ID) VALUES (?, ?, ?, ?)",
+                rentalId.getId(), rentalId.getCustomerId(), rentalId.getId(), REGULAR_FILM_ID);
+    }
+
+    private Date toDate(LocalDate localDate) {
+        return Date.from(localDate.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
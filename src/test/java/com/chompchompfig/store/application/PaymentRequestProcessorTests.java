@@ -0,0 +1,202 @@
+package com.chompchompfig.store.application;
+
+import com.chompchompfig.store.domain.*;
+import com.chompchompfig.store.infrastructure.jpa.JpaContextConfiguration;
+import com.chompchompfig.store.infrastructure.jpa.PaymentRepository;
+import com.chompchompfig.store.infrastructure.jpa.PaymentRequestRepository;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = JpaContextConfiguration.class, properties = {
+        "spring.datasource.generate-unique-name=true",
+        "spring.jpa.properties.hibernate.javax.cache.uri=urn:store:payment-request-processor-test"})
+public class PaymentRequestProcessorTests {
+
+    public static final PaymentId PENDING_PAYMENT_ID = PaymentId.from("1.1.1858735057263169");
+    public static final PaymentId DONE_PAYMENT_ID = PaymentId.from("2.2.1858735057263169");
+    public static final PaymentId UNKNOWN_PAYMENT_ID = new PaymentId(1l, 1l, 1l);
+    public static final PaymentId OTHER_DONE_PAYMENT_ID = new PaymentId(2l, 2l, 1l);
+    public static final long ASYNC_TIMEOUT_MILLIS = 10000;
+    public static final String BUMP_PAYMENT_REQUEST_VERSION =
+            "UPDATE PAYMENT_REQUEST SET VERSION = VERSION + 1 WHERE IDEMPOTENCY_KEY = ?";
+    public static final String INSERT_DONE_PAYMENT = "INSERT INTO PAYMENT(ID, RENTAL_ID, CUSTOMER_ID, AMOUNT, " +
+            "CURRENCY, DATE, STATUS) VALUES (?, ?, ?, 120, 'SEK', CURRENT_TIMESTAMP, 1)";
+
+    @Autowired
+    private PaymentRequestProcessor paymentRequestProcessor;
+    @Autowired
+    private PaymentRequestRepository paymentRequestRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ConfigurableApplicationContext applicationContext;
+    @SpyBean
+    private VideoRentalService videoRentalService;
+
+    @Test
+    public void performShouldPerformThePaymentOnceAndReplayItsOutcomeToRetries() {
+        Payment paymentPerformed = paymentRequestProcessor.perform("perform-once", PENDING_PAYMENT_ID);
+        Assert.assertEquals(PaymentStatus.DONE, paymentPerformed.getStatus());
+        Integer versionPerformed = paymentRepository.findById(PENDING_PAYMENT_ID).get().getVersion();
+
+        Payment paymentReplayed = paymentRequestProcessor.perform("perform-once", PENDING_PAYMENT_ID);
+
+        Assert.assertEquals(PENDING_PAYMENT_ID, paymentReplayed.getId());
+        Assert.assertEquals(PaymentStatus.DONE, paymentReplayed.getStatus());
+        Assert.assertEquals(versionPerformed, paymentReplayed.getVersion());
+        Assert.assertEquals(PaymentRequestStatus.DONE,
+                paymentRequestRepository.findById("perform-once").get().getStatus());
+    }
+
+    @Test
+    public void performShouldRecordFailuresAndReplayThemToRetries() {
+        assertPerformFailsWith(NoSuchElementException.class, "perform-failed", UNKNOWN_PAYMENT_ID);
+        Assert.assertEquals(PaymentRequestStatus.FAILED,
+                paymentRequestRepository.findById("perform-failed").get().getStatus());
+
+        assertPerformFailsWith(NoSuchElementException.class, "perform-failed", UNKNOWN_PAYMENT_ID);
+    }
+
+    @Test
+    public void performShouldRejectKeysAlreadyUsedForADifferentPayment() {
+        assertPerformFailsWith(NoSuchElementException.class, "perform-reused", UNKNOWN_PAYMENT_ID);
+
+        assertPerformFailsWith(IllegalArgumentException.class, "perform-reused", DONE_PAYMENT_ID);
+    }
+
+    @Test
+    public void submitShouldQueueThePaymentToBePerformedAsynchronously() throws InterruptedException {
+        PaymentRequest paymentRequest = paymentRequestProcessor.submit("submit-once", DONE_PAYMENT_ID);
+        Assert.assertTrue(paymentRequest.isNew());
+        Assert.assertEquals(PaymentRequestStatus.PENDING, paymentRequest.getStatus());
+
+        awaitProcessed("submit-once");
+
+        Assert.assertEquals(PaymentRequestStatus.DONE,
+                paymentRequestRepository.findById("submit-once").get().getStatus());
+        Assert.assertFalse(paymentRequestProcessor.submit("submit-once", DONE_PAYMENT_ID).isNew());
+    }
+
+    @Test
+    public void submitShouldPerformThePaymentsOfTheSameRentalOneAfterTheOtherInTheSameWorker()
+            throws InterruptedException {
+        jdbcTemplate.update(INSERT_DONE_PAYMENT, OTHER_DONE_PAYMENT_ID.getId(), OTHER_DONE_PAYMENT_ID.getRentalId(),
+                OTHER_DONE_PAYMENT_ID.getCustomerId());
+        CountDownLatch firstPaymentReleased = new CountDownLatch(1);
+        List<PaymentId> paymentsPerformed = Collections.synchronizedList(new ArrayList<>());
+        Set<String> workersPerforming = Collections.synchronizedSet(new HashSet<>());
+        Mockito.doAnswer(invocation -> {
+            firstPaymentReleased.await(ASYNC_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            paymentsPerformed.add(invocation.getArgument(0));
+            workersPerforming.add(Thread.currentThread().getName());
+            return invocation.callRealMethod();
+        }).when(videoRentalService).performPayment(Mockito.any());
+
+        paymentRequestProcessor.submit("submit-first", DONE_PAYMENT_ID);
+        paymentRequestProcessor.submit("submit-second", OTHER_DONE_PAYMENT_ID);
+        Thread.sleep(100);
+        Assert.assertTrue(paymentRequestRepository.findById("submit-second").get().isPending());
+        firstPaymentReleased.countDown();
+        awaitProcessed("submit-first");
+        awaitProcessed("submit-second");
+
+        Assert.assertEquals(Arrays.asList(DONE_PAYMENT_ID, OTHER_DONE_PAYMENT_ID), paymentsPerformed);
+        Assert.assertEquals(1, workersPerforming.size());
+        Assert.assertEquals(PaymentRequestStatus.DONE,
+                paymentRequestRepository.findById("submit-second").get().getStatus());
+    }
+
+    @Test
+    public void performShouldRejectRetriesWhileThePaymentIsStillBeingPerformed() throws Exception {
+        CountDownLatch paymentStarted = new CountDownLatch(1);
+        CountDownLatch paymentReleased = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            paymentStarted.countDown();
+            paymentReleased.await(ASYNC_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            return invocation.callRealMethod();
+        }).when(videoRentalService).performPayment(DONE_PAYMENT_ID);
+        CompletableFuture<Payment> firstRequest = CompletableFuture.supplyAsync(() ->
+                paymentRequestProcessor.perform("perform-in-progress", DONE_PAYMENT_ID));
+        Assert.assertTrue(paymentStarted.await(ASYNC_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+        try {
+            assertPerformFailsWith(ConcurrentModificationException.class, "perform-in-progress", DONE_PAYMENT_ID);
+        } finally {
+            paymentReleased.countDown();
+        }
+
+        Assert.assertEquals(PaymentStatus.DONE,
+                firstRequest.get(ASYNC_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).getStatus());
+        Assert.assertEquals(PaymentRequestStatus.DONE,
+                paymentRequestRepository.findById("perform-in-progress").get().getStatus());
+    }
+
+    @Test
+    public void performShouldForgetRequestsLosingAVersionConflictSoThatTheyCanBeRetried() {
+        Mockito.doAnswer(invocation -> {
+            jdbcTemplate.update(BUMP_PAYMENT_REQUEST_VERSION, "perform-conflict");
+            return invocation.callRealMethod();
+        }).doCallRealMethod().when(videoRentalService).performPayment(DONE_PAYMENT_ID);
+
+        try {
+            paymentRequestProcessor.perform("perform-conflict", DONE_PAYMENT_ID);
+            Assert.fail();
+        } catch (OptimisticLockingFailureException olfe) {
+            Assert.assertFalse(paymentRequestRepository.findById("perform-conflict").isPresent());
+        }
+
+        Assert.assertEquals(PaymentStatus.DONE,
+                paymentRequestProcessor.perform("perform-conflict", DONE_PAYMENT_ID).getStatus());
+        Assert.assertEquals(PaymentRequestStatus.DONE,
+                paymentRequestRepository.findById("perform-conflict").get().getStatus());
+    }
+
+    @Test
+    public void pendingRequestsShouldBeResubmittedOnceTheApplicationIsReady() throws InterruptedException {
+        paymentRequestRepository.saveAndFlush(new PaymentRequest("resubmit-pending", DONE_PAYMENT_ID));
+
+        applicationContext.publishEvent(new ApplicationReadyEvent(new SpringApplication(), new String[0],
+                applicationContext));
+        awaitProcessed("resubmit-pending");
+
+        Assert.assertEquals(PaymentRequestStatus.DONE,
+                paymentRequestRepository.findById("resubmit-pending").get().getStatus());
+    }
+
+    private void awaitProcessed(String idempotencyKey) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + ASYNC_TIMEOUT_MILLIS;
+        while (paymentRequestRepository.findById(idempotencyKey).get().isPending() &&
+                System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void assertPerformFailsWith(Class<? extends RuntimeException> exceptionType, String idempotencyKey,
+                                        PaymentId paymentId) {
+        try {
+            paymentRequestProcessor.perform(idempotencyKey, paymentId);
+            Assert.fail();
+        } catch (RuntimeException re) {
+            Assert.assertEquals(exceptionType, re.getClass());
+        }
+    }
+}
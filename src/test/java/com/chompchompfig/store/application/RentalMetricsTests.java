@@ -0,0 +1,137 @@
+package com.chompchompfig.store.application;
+
+import com.chompchompfig.store.domain.RentalStatus;
+import com.chompchompfig.store.infrastructure.jpa.RentalRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ConcurrentModificationException;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = RentalMetricsTests.RentalMetricsContextConfiguration.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class RentalMetricsTests {
+
+    public static final String SAMPLE_RESULT = "result";
+
+    @Autowired
+    private RentalMetrics rentalMetrics;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Test
+    public void recordShouldTimeTheOperationByOutcome() {
+        Assert.assertEquals(SAMPLE_RESULT, rentalMetrics.record(RentalMetrics.NEW_RENTAL, () -> SAMPLE_RESULT));
+
+        Assert.assertEquals(1, meterRegistry.get(RentalMetrics.OPERATIONS_TIMER)
+                .tags("operation", RentalMetrics.NEW_RENTAL, "outcome", RentalMetrics.SUCCESS_OUTCOME).timer().count());
+        Assert.assertTrue(meterRegistry.find(RentalMetrics.FAILURES_COUNTER).counters().isEmpty());
+    }
+
+    @Test
+    public void recordShouldCountFailuresByType() {
+        recordFailing(RentalMetrics.RETURN_RENTAL, new IllegalStateException());
+        recordFailing(RentalMetrics.PERFORM_PAYMENT, new ConcurrentModificationException());
+        recordFailing(RentalMetrics.UPDATE_RENTAL, new ObjectOptimisticLockingFailureException(Object.class, 1l));
+
+        Assert.assertEquals(1, countFailures(RentalMetrics.RETURN_RENTAL, "IllegalStateException"), 0);
+        Assert.assertEquals(1, countFailures(RentalMetrics.PERFORM_PAYMENT, "ConcurrentModificationException"), 0);
+        Assert.assertEquals(1, countFailures(RentalMetrics.UPDATE_RENTAL, RentalMetrics.OPTIMISTIC_LOCK_FAILURE), 0);
+        Assert.assertEquals(1, meterRegistry.get(RentalMetrics.OPERATIONS_TIMER)
+                .tags("operation", RentalMetrics.RETURN_RENTAL, "outcome", RentalMetrics.FAILURE_OUTCOME).timer().count());
+    }
+
+    @Test
+    public void recordShouldCountRollbacksOnCommitAsCommitFailures() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            rentalMetrics.record(RentalMetrics.UPDATE_RENTAL, () -> SAMPLE_RESULT);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        Assert.assertEquals(1, countFailures(RentalMetrics.UPDATE_RENTAL, RentalMetrics.COMMIT_FAILURE), 0);
+    }
+
+    @Test
+    public void recordTransitionShouldCountTransitionsOnceCommitted() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            rentalMetrics.recordTransition(RentalStatus.AWAITING_PAYMENT, RentalStatus.PAID);
+            rentalMetrics.recordTransition(RentalStatus.PAID, RentalStatus.PAID);
+            Assert.assertNull(meterRegistry.find(RentalMetrics.TRANSITIONS_COUNTER).counter());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        rentalMetrics.recordTransition(null, RentalStatus.AWAITING_PAYMENT);
+
+        Assert.assertEquals(1, meterRegistry.get(RentalMetrics.TRANSITIONS_COUNTER)
+                .tags("from", RentalStatus.AWAITING_PAYMENT.name(), "to", RentalStatus.PAID.name()).counter().count(), 0);
+        Assert.assertEquals(1, meterRegistry.get(RentalMetrics.TRANSITIONS_COUNTER)
+                .tags("from", RentalMetrics.NO_STATUS, "to", RentalStatus.AWAITING_PAYMENT.name()).counter().count(), 0);
+        Assert.assertEquals(2, meterRegistry.find(RentalMetrics.TRANSITIONS_COUNTER).counters().size());
+    }
+
+    @Test
+    public void rentalGaugesShouldCountTheRentalsInEveryStatus() {
+        Mockito.when(rentalRepository.countByStatus(RentalStatus.PAID)).thenReturn(3l);
+
+        Assert.assertEquals(3, meterRegistry.get(RentalMetrics.RENTALS_GAUGE)
+                .tag("status", RentalStatus.PAID.name()).gauge().value(), 0);
+        Assert.assertEquals(RentalStatus.values().length,
+                meterRegistry.find(RentalMetrics.RENTALS_GAUGE).gauges().size());
+    }
+
+    private void recordFailing(String operation, RuntimeException failure) {
+        try {
+            rentalMetrics.record(operation, () -> {
+                throw failure;
+            });
+            Assert.fail();
+        } catch (RuntimeException re) {
+            Assert.assertSame(failure, re);
+        }
+    }
+
+    private double countFailures(String operation, String exception) {
+        return meterRegistry.get(RentalMetrics.FAILURES_COUNTER)
+                .tags("operation", operation, "exception", exception).counter().count();
+    }
+
+    @Configuration
+    public static class RentalMetricsContextConfiguration {
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        public RentalRepository rentalRepository() {
+            return Mockito.mock(RentalRepository.class);
+        }
+
+        @Bean
+        public RentalMetrics rentalMetrics() {
+            return new RentalMetrics();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.chompchompfig.store.domain;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FilmTests {
+
+    private final DomainRegistry domainRegistry = new DomainRegistry();
+    private final SimpleFixtureFactory simpleFixtureFactory = new SimpleFixtureFactory();
+    private final List<Object> publishedEvents = new ArrayList<>();
+    private ApplicationEventPublisher previousDomainEventPublisher;
+
+    @Before
+    public void setUpDomainEventPublisher() {
+        previousDomainEventPublisher = DomainRegistry.domainEventPublisher();
+        domainRegistry.setDomainEventPublisher(publishedEvents::add);
+    }
+
+    @After
+    public void restoreDomainEventPublisher() {
+        domainRegistry.setDomainEventPublisher(previousDomainEventPublisher);
+    }
+
+    @Test
+    public void setAvailableShouldRaiseFilmAvailabilityChangedWhenAvailabilityChanges() {
+        Film film = simpleFixtureFactory.newFilmOfCategory(SimpleFixtureFactory.FILM_ID_1,
+                SimpleFixtureFactory.FILM_NAME_1, FilmCategory.NEW);
+        film.setAvailable(false);
+        Assert.assertEquals(1, publishedEvents.size());
+        FilmAvailabilityChanged filmAvailabilityChanged = (FilmAvailabilityChanged) publishedEvents.get(0);
+        Assert.assertEquals(Long.valueOf(SimpleFixtureFactory.FILM_ID_1), filmAvailabilityChanged.getFilmId());
+        Assert.assertEquals(FilmCategory.NEW, filmAvailabilityChanged.getCategory());
+        Assert.assertFalse(filmAvailabilityChanged.isAvailable());
+    }
+
+    @Test
+    public void setAvailableShouldNotRaiseEventsWhenAvailabilityStaysTheSame() {
+        Film film = simpleFixtureFactory.newFilmOfCategory(SimpleFixtureFactory.FILM_ID_1,
+                SimpleFixtureFactory.FILM_NAME_1, FilmCategory.NEW);
+        film.setAvailable(true);
+        Assert.assertTrue(publishedEvents.isEmpty());
+    }
+
+    @Test
+    public void setAvailableShouldNotRaiseEventsForFilmsNotYetPersisted() {
+        Film film = new Film(SimpleFixtureFactory.FILM_NAME_1, FilmCategory.NEW);
+        film.setAvailable(false);
+        Assert.assertTrue(publishedEvents.isEmpty());
+    }
+}
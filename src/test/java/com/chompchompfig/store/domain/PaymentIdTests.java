@@ -17,6 +17,8 @@ public class PaymentIdTests {
             new PaymentId(VALID_CUSTOMER_ID_PART, VALID_RENTAL_ID_PART, VALID_ID_PART);
     public static final String INVALID_INPUT_PAYMENT_ID_NO_DOT = "11858735057263169";
     public static final String INVALID_INPUT_PAYMENT_ID_TOO_LONG = "1.185873.50572631.69";
+    public static final String INVALID_INPUT_PAYMENT_ID_EMPTY_PART = "1..1858735057263169";
+    public static final String INVALID_INPUT_PAYMENT_ID_NOT_A_NUMBER = "1.1.18587350572631a9";
 
     @Test
     public void fromShouldReturnCorrectPaymentIdWithValidInput() {
@@ -35,6 +37,21 @@ public class PaymentIdTests {
         PaymentId.from(INVALID_INPUT_PAYMENT_ID_TOO_LONG);
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void fromShouldThrowExceptionWithInValidInputEmptyPart() {
+        PaymentId.from(INVALID_INPUT_PAYMENT_ID_EMPTY_PART);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromShouldThrowExceptionWithInValidInputNotANumber() {
+        PaymentId.from(INVALID_INPUT_PAYMENT_ID_NOT_A_NUMBER);
+    }
+
+    @Test
+    public void toStringShouldReturnTheInputTheIdWasParsedFrom() {
+        Assert.assertEquals(VALID_INPUT_PAYMENT_ID, PaymentId.from(VALID_INPUT_PAYMENT_ID).toString());
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void fromShouldThrowExceptionWithInValidInputNull() {
         PaymentId.from(null);
@@ -0,0 +1,78 @@
+package com.chompchompfig.store.domain;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(SpringRunner.class)
+public class PrecomputedRentalPriceCalculatorServiceTests {
+
+    public static final int DAYS_PAST_PRECOMPUTED_RENTAL_DAYS = 10;
+
+    private PrecomputedRentalPriceCalculatorService rentalPriceCalculatorService;
+    private CategoryBasedRentalPriceCalculatorService categoryBasedRentalPriceCalculatorService;
+    private SimpleFixtureFactory fixtureFactory;
+
+    @Before
+    public void setUpRentalService() {
+        rentalPriceCalculatorService = new PrecomputedRentalPriceCalculatorService();
+        categoryBasedRentalPriceCalculatorService = new CategoryBasedRentalPriceCalculatorService();
+        fixtureFactory = new SimpleFixtureFactory();
+    }
+
+    @Test
+    public void getPriceShouldReturnTheCategoryBasedPriceForEveryCategoryWithinAndBeyondTheTables() {
+        int lastDays = PricingRules.PRECOMPUTED_RENTAL_DAYS + DAYS_PAST_PRECOMPUTED_RENTAL_DAYS;
+        for (FilmCategory category : FilmCategory.values()) {
+            Film film = fixtureFactory.newFilmOfCategory(0l, category.name(), category);
+            for (int days = 1; days <= lastDays; days++) {
+                assertEquals(categoryBasedRentalPriceCalculatorService.getPrice(film, days),
+                        rentalPriceCalculatorService.getPrice(film, days));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getPriceShouldThrowAnExceptionGivenInvalidDaysRented() {
+        Film film = fixtureFactory.newFilmOfCategory(0l, FilmCategory.NEW.name(), FilmCategory.NEW);
+        rentalPriceCalculatorService.getPrice(film, 0);
+    }
+
+    @Test
+    public void getPriceRentalShouldReturnTheCategoryBasedPriceForMultipleRentalItems() {
+        Rental rental = fixtureFactory.newRentalWithItems();
+        assertEquals(categoryBasedRentalPriceCalculatorService.getPrice(rental),
+                rentalPriceCalculatorService.getPrice(rental));
+    }
+
+    @Test
+    public void getPriceRentalShouldReturnZeroForEmptyRentalItems() {
+        assertEquals(0l, rentalPriceCalculatorService.getPrice(fixtureFactory.newRentalWithNoItems()));
+    }
+
+    @Test
+    public void getSurchargePriceShouldReturnTheCategoryBasedSurchargeForAnyEffectiveDays() {
+        Rental rental = newRentalWithFilmsOfEveryCategory();
+        int lastDays = PricingRules.PRECOMPUTED_RENTAL_DAYS + DAYS_PAST_PRECOMPUTED_RENTAL_DAYS;
+        for (int effectiveRentalDays = 0; effectiveRentalDays <= lastDays; effectiveRentalDays++) {
+            assertEquals(categoryBasedRentalPriceCalculatorService.getSurchargePrice(rental, effectiveRentalDays),
+                    rentalPriceCalculatorService.getSurchargePrice(rental, effectiveRentalDays));
+        }
+    }
+
+    private Rental newRentalWithFilmsOfEveryCategory() {
+        List<Film> films = new ArrayList<>();
+        long filmId = 0;
+        for (FilmCategory category : FilmCategory.values()) {
+            films.add(fixtureFactory.newFilmOfCategory(filmId++, category.name(), category));
+            films.add(fixtureFactory.newFilmOfCategory(filmId++, category.name() + " 2", category));
+        }
+        return fixtureFactory.newCustomer().rent(SimpleFixtureFactory.RENTAL_DAYS, films);
+    }
+}
@@ -0,0 +1,76 @@
+package com.chompchompfig.store.domain;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+public class RentalIdTests {
+
+    public static final Long VALID_CUSTOMER_ID_PART = 123l;
+    public static final Long VALID_ID_PART = 1858735057263169l;
+    public static final String VALID_INPUT_RENTAL_ID = VALID_CUSTOMER_ID_PART + "." + VALID_ID_PART;
+    public static final RentalId VALID_RENTAL_ID = new RentalId(VALID_CUSTOMER_ID_PART, VALID_ID_PART);
+    public static final String VALID_INPUT_RENTAL_ID_EXTREME_PARTS = Long.MIN_VALUE + "." + Long.MAX_VALUE;
+    public static final String INVALID_INPUT_RENTAL_ID_NO_DOT = "1231858735057263169";
+    public static final String INVALID_INPUT_RENTAL_ID_TOO_LONG = "123.1858735057263169.1";
+    public static final String INVALID_INPUT_RENTAL_ID_EMPTY_PART = ".1858735057263169";
+    public static final String INVALID_INPUT_RENTAL_ID_ONLY_SIGN = "123.-";
+    public static final String INVALID_INPUT_RENTAL_ID_OVERFLOW = "123." + Long.MAX_VALUE + "0";
+
+    @Test
+    public void fromShouldReturnCorrectRentalIdWithValidInput() {
+        RentalId rentalId = RentalId.from(VALID_INPUT_RENTAL_ID);
+        Assert.assertEquals(VALID_RENTAL_ID, rentalId);
+        Assert.assertEquals(VALID_RENTAL_ID.hashCode(), rentalId.hashCode());
+    }
+
+    @Test
+    public void fromShouldReturnCorrectRentalIdWithExtremeLongParts() {
+        RentalId rentalId = RentalId.from(VALID_INPUT_RENTAL_ID_EXTREME_PARTS);
+        Assert.assertEquals(new RentalId(Long.MIN_VALUE, Long.MAX_VALUE), rentalId);
+    }
+
+    @Test
+    public void toStringShouldReturnTheInputTheIdWasParsedFrom() {
+        Assert.assertEquals(VALID_INPUT_RENTAL_ID, RentalId.from(VALID_INPUT_RENTAL_ID).toString());
+        Assert.assertEquals(VALID_INPUT_RENTAL_ID_EXTREME_PARTS,
+                RentalId.from(VALID_INPUT_RENTAL_ID_EXTREME_PARTS).toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromShouldThrowExceptionWithInValidInputNoDot() {
+        RentalId.from(INVALID_INPUT_RENTAL_ID_NO_DOT);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromShouldThrowExceptionWithInValidInputTooLong() {
+        RentalId.from(INVALID_INPUT_RENTAL_ID_TOO_LONG);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromShouldThrowExceptionWithInValidInputEmptyPart() {
+        RentalId.from(INVALID_INPUT_RENTAL_ID_EMPTY_PART);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromShouldThrowExceptionWithInValidInputOnlySign() {
+        RentalId.from(INVALID_INPUT_RENTAL_ID_ONLY_SIGN);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromShouldThrowExceptionWithInValidInputOverflow() {
+        RentalId.from(INVALID_INPUT_RENTAL_ID_OVERFLOW);
+    }
+
+    @Test
+    public void fromShouldThrowExceptionWithTheRentalIdParsingErrorMessage() {
+        try {
+            RentalId.from(null);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {
+            Assert.assertEquals(RentalId.RENTAL_ID_PARSING_ERROR_MESSAGE, iae.getMessage());
+        }
+    }
+}
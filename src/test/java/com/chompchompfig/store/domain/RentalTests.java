@@ -8,7 +8,11 @@ import org.springframework.test.context.junit4.SpringRunner;
 
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @RunWith(SpringRunner.class)
 public class RentalTests {
@@ -64,4 +68,91 @@ public class RentalTests {
         Assert.assertFalse(rental.isOverdue(currentDate));
     }
 
+    @Test
+    public void updateOverdueStatusShouldRecordWhenAnOverduePaidRentalBecameOverdue() {
+        rental.setStatus(RentalStatus.PAID);
+        Assert.assertTrue(rental.updateOverdueStatus(RENTAL_RETURN_DATE_OVERDUE));
+        LocalDate expectedOverdueSince = RENTAL_START_DATE.plusDays(rental.getDays() + 1);
+        Assert.assertEquals(Date.from(expectedOverdueSince.atStartOfDay(ZoneId.systemDefault()).toInstant()),
+                rental.getOverdueSince());
+        Assert.assertEquals(Long.valueOf(DomainRegistry.rentalPriceCalculatorService().getSurchargePrice(rental,
+                rental.getEffectiveDaysRented(RENTAL_RETURN_DATE_OVERDUE))), rental.getOverdueSurcharge());
+    }
+
+    @Test
+    public void updateOverdueStatusShouldRecordNothingWhenTheRentalIsNotOverdueOrNotPaid() {
+        Assert.assertFalse(rental.updateOverdueStatus(RENTAL_RETURN_DATE_OVERDUE));
+        rental.setStatus(RentalStatus.PAID);
+        Assert.assertFalse(rental.updateOverdueStatus(RENTAL_RETURN_DATE_NOT_OVERDUE));
+        Assert.assertNull(rental.getOverdueSince());
+        Assert.assertNull(rental.getOverdueSurcharge());
+    }
+
+    @Test
+    public void modifyShouldKeepTheItemsOfTheFilmsStillSelectedAndReplaceTheOthers() {
+        List<RentalItem> originalItems = rental.getItems().stream().collect(Collectors.toList());
+        List<Film> films = Arrays.asList(originalItems.get(2).getFilm(),
+                simpleFixtureFactory.newFilmOfCategory(SimpleFixtureFactory.FILM_ID_1, SimpleFixtureFactory.FILM_NAME_1,
+                        FilmCategory.NEW), originalItems.get(0).getFilm());
+
+        rental.modify(SimpleFixtureFactory.RENTAL_DAYS, films);
+
+        Assert.assertEquals(3, rental.getItems().size());
+        Assert.assertSame(originalItems.get(0), rental.getItems().get(0));
+        Assert.assertSame(originalItems.get(2), rental.getItems().get(1));
+        Assert.assertEquals(Long.valueOf(SimpleFixtureFactory.FILM_ID_1), rental.getItems().get(2).getFilm().getId());
+        Assert.assertFalse(rental.getItems().contains(originalItems.get(1)));
+    }
+
+    @Test
+    public void modifyShouldKeepAsManyItemsAsTimesAFilmIsSelected() {
+        RentalItem firstItem = rental.getItems().get(0);
+        List<Film> films = Arrays.asList(firstItem.getFilm(), firstItem.getFilm());
+
+        rental.modify(SimpleFixtureFactory.RENTAL_DAYS, films);
+
+        Assert.assertEquals(2, rental.getItems().size());
+        Assert.assertSame(firstItem, rental.getItems().get(0));
+        Assert.assertEquals(firstItem.getFilm(), rental.getItems().get(1).getFilm());
+        Assert.assertNotEquals(firstItem.getId(), rental.getItems().get(1).getId());
+    }
+
+    @Test
+    public void modifyShouldRemoveAllTheItemsWhenNoFilmIsSelected() {
+        rental.modify(SimpleFixtureFactory.RENTAL_DAYS, Arrays.asList());
+
+        Assert.assertTrue(rental.getItems().isEmpty());
+    }
+
+    @Test
+    public void pendingPaymentsShouldFollowTheStatusOfThePayments() {
+        Payment payment = rental.getPendingPayment();
+        Assert.assertTrue(rental.hasPendingPayments());
+
+        payment.fulfill();
+        Assert.assertFalse(rental.hasPendingPayments());
+        Assert.assertTrue(rental.getPendingPayments().isEmpty());
+
+        payment.setStatus(PaymentStatus.PENDING);
+        Assert.assertTrue(rental.hasPendingPayments());
+        Assert.assertSame(payment, rental.getPendingPayment());
+    }
+
+    @Test
+    public void returnAllShouldAddTheSurchargePaymentToThePendingPaymentsWhenOverdue() {
+        Payment payment = rental.getPendingPayment();
+        payment.fulfill();
+        rental.setStatus(RentalStatus.PAID);
+        try {
+            rental.returnAll();
+            Assert.fail();
+        } catch (IllegalStateException ise) {
+            Assert.assertEquals(2, rental.getPayments().size());
+            Payment surchargePayment = rental.getPayments().get(1);
+            Assert.assertEquals(Arrays.asList(surchargePayment), new ArrayList<>(rental.getPendingPayments()));
+            rental.pay(surchargePayment.getId());
+            Assert.assertFalse(rental.hasPendingPayments());
+            Assert.assertEquals(RentalStatus.RETURNED, rental.getStatus());
+        }
+    }
 }
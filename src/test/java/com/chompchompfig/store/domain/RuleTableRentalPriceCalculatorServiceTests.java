@@ -0,0 +1,102 @@
+package com.chompchompfig.store.domain;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+@RunWith(SpringRunner.class)
+public class RuleTableRentalPriceCalculatorServiceTests {
+
+    public static final String PRICING_RULES_FILE = "pricing-rules.properties";
+    public static final String RULES_WITH_NEW_BASE_PRICE = "new.base-price=50\n";
+    public static final String RULES_WITH_NEGATIVE_NEW_BASE_PRICE = "new.base-price=-1\n";
+    public static final String RULES_OF_REGULAR_AND_OLD_CATEGORIES = "new.days-at-base-price=1\n" +
+            "new.price-per-extra-day=40\n" +
+            "regular.base-price=30\nregular.days-at-base-price=3\nregular.price-per-extra-day=30\n" +
+            "old.base-price=30\nold.days-at-base-price=5\nold.price-per-extra-day=30\n";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private File pricingRulesFile;
+    private SimpleFixtureFactory fixtureFactory;
+
+    @Before
+    public void setUpPricingRulesFile() throws IOException {
+        pricingRulesFile = temporaryFolder.newFile(PRICING_RULES_FILE);
+        fixtureFactory = new SimpleFixtureFactory();
+    }
+
+    @Test
+    public void shippedPricingRulesShouldChargeTheDefaultPricesUntilThePricingRulesFileIsCreated()
+            throws IOException {
+        pricingRulesFile.delete();
+        RuleTableRentalPriceCalculatorService rentalPriceCalculatorService = newRentalPriceCalculatorService();
+        assertEquals(PricingRules.defaults(), rentalPriceCalculatorService.getPricingRules());
+        assertEquals(PricingRules.defaults(), rentalPriceCalculatorService.reloadPricingRules());
+    }
+
+    @Test
+    public void reloadPricingRulesShouldChargeThePricesOfThePricingRulesFileOnceCreated() throws IOException {
+        pricingRulesFile.delete();
+        RuleTableRentalPriceCalculatorService rentalPriceCalculatorService = newRentalPriceCalculatorService();
+        Film newFilm = fixtureFactory.newFilmOfCategory(0l, FilmCategory.NEW.name(), FilmCategory.NEW);
+        long shippedPrice = rentalPriceCalculatorService.getPrice(newFilm, 1);
+        writePricingRules(RULES_WITH_NEW_BASE_PRICE);
+        rentalPriceCalculatorService.reloadPricingRules();
+        assertNotEquals(shippedPrice, rentalPriceCalculatorService.getPrice(newFilm, 1));
+        assertEquals(50, rentalPriceCalculatorService.getPrice(newFilm, 1));
+    }
+
+    @Test
+    public void reloadPricingRulesShouldChargeTheNewPricesOnceTheRulesChange() throws IOException {
+        writePricingRules(RULES_WITH_NEW_BASE_PRICE.replace("50", "40"));
+        RuleTableRentalPriceCalculatorService rentalPriceCalculatorService = newRentalPriceCalculatorService();
+        Film newFilm = fixtureFactory.newFilmOfCategory(0l, FilmCategory.NEW.name(), FilmCategory.NEW);
+        assertEquals(40, rentalPriceCalculatorService.getPrice(newFilm, 1));
+        writePricingRules(RULES_WITH_NEW_BASE_PRICE);
+        rentalPriceCalculatorService.reloadPricingRules();
+        assertEquals(50, rentalPriceCalculatorService.getPrice(newFilm, 1));
+        assertEquals(90, rentalPriceCalculatorService.getPrice(newFilm, 2));
+    }
+
+    @Test
+    public void reloadPricingRulesShouldKeepTheCurrentRulesWhenTheNewOnesAreInvalid() throws IOException {
+        writePricingRules(RULES_WITH_NEW_BASE_PRICE);
+        RuleTableRentalPriceCalculatorService rentalPriceCalculatorService = newRentalPriceCalculatorService();
+        PricingRules pricingRules = rentalPriceCalculatorService.getPricingRules();
+        writePricingRules(RULES_WITH_NEGATIVE_NEW_BASE_PRICE);
+        assertSame(pricingRules, rentalPriceCalculatorService.reloadPricingRules());
+        pricingRulesFile.delete();
+        assertSame(pricingRules, rentalPriceCalculatorService.reloadPricingRules());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void newRuleTableRentalPriceCalculatorServiceShouldThrowExceptionWithInvalidRules() throws IOException {
+        writePricingRules(RULES_WITH_NEGATIVE_NEW_BASE_PRICE);
+        newRentalPriceCalculatorService();
+    }
+
+    private RuleTableRentalPriceCalculatorService newRentalPriceCalculatorService() throws IOException {
+        return new RuleTableRentalPriceCalculatorService(new FileSystemResource(pricingRulesFile),
+                new ClassPathResource(PRICING_RULES_FILE));
+    }
+
+    private void writePricingRules(String newCategoryRules) throws IOException {
+        Files.write(pricingRulesFile.toPath(),
+                (newCategoryRules + RULES_OF_REGULAR_AND_OLD_CATEGORIES).getBytes(StandardCharsets.ISO_8859_1));
+    }
+}
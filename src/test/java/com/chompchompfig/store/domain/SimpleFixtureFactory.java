@@ -121,6 +121,28 @@ public class SimpleFixtureFactory {
         return film;
     }
 
+    public Film newFilmOfCategory(Long id, String name, FilmCategory category, Integer version) {
+        Film film = newFilmOfCategory(id, name, category);
+        film.setVersion(version);
+        return film;
+    }
+
+    public void setVersion(Customer customer, Integer version) {
+        customer.setVersion(version);
+    }
+
+    public void setVersion(Rental rental, Integer version) {
+        rental.setVersion(version);
+    }
+
+    public void setVersion(Payment payment, Integer version) {
+        payment.setVersion(version);
+    }
+
+    public void setRentalStartDate(Rental rental, Date rentalStartDate) {
+        rental.setRentalStartDate(rentalStartDate);
+    }
+
     public List<Customer> newCustomers() {
         List<Customer> customers = new ArrayList<>();
         customers.add(newCustomer(CUSTOMER_ID, CUSTOMER_FIRST_NAME, CUSTOMER_LAST_NAME, CUSTOMER_PHONE_NUMBER));
@@ -168,7 +190,8 @@ public class SimpleFixtureFactory {
     Payment getPaymentForRentalWithPrice(Rental rental, long rentalPrice) {
         RentalPriceCalculatorService rentalPriceCalculatorService = new CategoryBasedRentalPriceCalculatorService();
         Payment payment = new Payment();
-        PaymentId paymentId = new PaymentId(rental.getId().getCustomerId(), rental.getId().getId(), System.nanoTime());
+        PaymentId paymentId = new PaymentId(rental.getId().getCustomerId(), rental.getId().getId(),
+                DomainRegistry.idGenerator().nextId());
         payment.setId(paymentId);
         payment.setRental(rental);
         payment.setAmount(rentalPrice);
@@ -0,0 +1,96 @@
+package com.chompchompfig.store.domain;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+@RunWith(SpringRunner.class)
+public class SnowflakeIdGeneratorTests {
+
+    public static final long NODE_ID = 42l;
+    public static final long NOW = SnowflakeIdGenerator.EPOCH + 1000l;
+    public static final int THREADS = 4;
+    public static final int IDS_PER_THREAD = 50000;
+
+    @Test
+    public void nextIdShouldEncodeTimestampNodeIdAndSequence() {
+        SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(NODE_ID, () -> NOW);
+        long firstId = idGenerator.nextId();
+        long secondId = idGenerator.nextId();
+        Assert.assertEquals(NOW - SnowflakeIdGenerator.EPOCH, firstId >>> 22);
+        Assert.assertEquals(NODE_ID, (firstId >>> 12) & SnowflakeIdGenerator.MAX_NODE_ID);
+        Assert.assertEquals(0l, firstId & SnowflakeIdGenerator.SEQUENCE_MASK);
+        Assert.assertEquals(1l, secondId & SnowflakeIdGenerator.SEQUENCE_MASK);
+    }
+
+    @Test
+    public void nextIdShouldGrowMonotonicallyWhenSequenceOverflows() {
+        SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(NODE_ID, () -> NOW);
+        long previousId = idGenerator.nextId();
+        for (int i = 0; i < 3 * (SnowflakeIdGenerator.SEQUENCE_MASK + 1); i++) {
+            long id = idGenerator.nextId();
+            Assert.assertTrue(id > previousId);
+            previousId = id;
+        }
+    }
+
+    @Test
+    public void nextIdShouldGrowMonotonicallyWhenClockGoesBackwards() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(NODE_ID, clock::get);
+        long idBeforeClockChange = idGenerator.nextId();
+        clock.set(NOW - 500l);
+        long idAfterClockChange = idGenerator.nextId();
+        Assert.assertTrue(idAfterClockChange > idBeforeClockChange);
+    }
+
+    @Test
+    public void nextIdShouldNotCollideAcrossThreads() throws Exception {
+        SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(NODE_ID);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?>[] futures = new Future<?>[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                futures[t] = executorService.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        ids.add(idGenerator.nextId());
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        Assert.assertEquals(THREADS * IDS_PER_THREAD, ids.size());
+    }
+
+    @Test
+    public void nextIdShouldNotCollideAcrossNodes() {
+        SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(NODE_ID, () -> NOW);
+        SnowflakeIdGenerator otherIdGenerator = new SnowflakeIdGenerator(NODE_ID + 1, () -> NOW);
+        Assert.assertNotEquals(idGenerator.nextId(), otherIdGenerator.nextId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void newSnowflakeIdGeneratorShouldThrowExceptionWithNodeIdOutOfRange() {
+        new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void nextIdShouldThrowExceptionWhenTimestampOverflows() {
+        long afterLastTimestamp = SnowflakeIdGenerator.EPOCH + SnowflakeIdGenerator.MAX_TIMESTAMP + 1;
+        new SnowflakeIdGenerator(NODE_ID, () -> afterLastTimestamp).nextId();
+    }
+}
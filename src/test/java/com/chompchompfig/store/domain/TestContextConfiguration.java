@@ -1,16 +1,22 @@
 package com.chompchompfig.store.domain;
 
+import com.chompchompfig.store.application.ReadOnlyQueryService;
 import com.chompchompfig.store.infrastructure.jpa.CustomerRepository;
 import com.chompchompfig.store.infrastructure.jpa.FilmRepository;
 import com.chompchompfig.store.infrastructure.jpa.PaymentRepository;
+import com.chompchompfig.store.infrastructure.jpa.PaymentRequestRepository;
 import com.chompchompfig.store.infrastructure.jpa.RentalRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.mockito.Mockito;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
 import org.springframework.context.annotation.Primary;
 
-@ComponentScan({"com.chompchompfig.store.domain", "com.chompchompfig.store.application"})
+@ComponentScan(value = {"com.chompchompfig.store.domain", "com.chompchompfig.store.application"},
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ReadOnlyQueryService.class))
 @Configuration
 public class TestContextConfiguration {
 
@@ -20,6 +26,12 @@ public class TestContextConfiguration {
         return Mockito.mock(PaymentRepository.class);
     }
 
+    @Primary
+    @Bean
+    public PaymentRequestRepository paymentRequestRepository() {
+        return Mockito.mock(PaymentRequestRepository.class);
+    }
+
     @Primary
     @Bean
     public FilmRepository filmRepository() {
@@ -37,4 +49,9 @@ public class TestContextConfiguration {
     public CustomerRepository customerRepository() {
         return Mockito.mock(CustomerRepository.class);
     }
+
+    @Bean
+    public MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
 }
@@ -1,7 +1,16 @@
 package com.chompchompfig.store.domain;
 
+import com.chompchompfig.store.application.RentalCreationRequest;
+import com.chompchompfig.store.application.RentalCreationResult;
+import com.chompchompfig.store.application.RentalMetrics;
 import com.chompchompfig.store.application.VideoRentalService;
+import com.chompchompfig.store.infrastructure.jpa.CustomerRepository;
+import com.chompchompfig.store.infrastructure.jpa.FilmRepository;
 import com.chompchompfig.store.infrastructure.jpa.PaymentRepository;
+import com.chompchompfig.store.infrastructure.jpa.RentalRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -9,9 +18,15 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest
@@ -19,9 +34,105 @@ public class VideoRentalServiceTests {
 
     @Autowired
     private VideoRentalService videoRentalService;
+    @Autowired
+    private MeterRegistry meterRegistry;
     private SimpleFixtureFactory fixtureFactory = new SimpleFixtureFactory();
     @MockBean
     private PaymentRepository paymentRepository;
+    @MockBean
+    private CustomerRepository customerRepository;
+    @MockBean
+    private FilmRepository filmRepository;
+    @MockBean
+    private RentalRepository rentalRepository;
+    @MockBean
+    private FilmReservationService filmReservationService;
+
+    @Test
+    public void newRentalShouldSaveTheRentalAloneWithoutSavingTheCustomer() {
+        Customer customer = fixtureFactory.newCustomer();
+        List<Film> films = fixtureFactory.newFilms();
+        List<Long> filmIds = films.stream().map(Film::getId).collect(Collectors.toList());
+        Mockito.when(customerRepository.findById(customer.getId())).thenReturn(Optional.of(customer));
+        Mockito.when(filmRepository.findAllByIdCached(filmIds)).thenReturn(films);
+        Mockito.when(rentalRepository.saveAndFlush(Mockito.any(Rental.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        Rental rental = videoRentalService.newRental(customer.getId(), SimpleFixtureFactory.RENTAL_DAYS, filmIds);
+
+        Assert.assertTrue(rental.isNew());
+        Assert.assertEquals(films.size(), rental.getItems().size());
+        Mockito.verify(rentalRepository).saveAndFlush(rental);
+        Mockito.verify(customerRepository, Mockito.never()).saveAndFlush(Mockito.any());
+    }
+
+    @Test
+    public void newRentalsShouldSaveTheCreatedRentalsAtOnceAndReportTheFailedOnes() {
+        Customer customer = fixtureFactory.newCustomer();
+        List<Film> films = fixtureFactory.newFilms();
+        List<Long> filmIds = films.stream().map(Film::getId).collect(Collectors.toList());
+        Long unknownCustomerId = 999l;
+        Mockito.when(customerRepository.findAllById(Mockito.any())).thenReturn(Collections.singletonList(customer));
+        Mockito.when(filmRepository.findAllByIdCached(Mockito.any())).thenReturn(films);
+        List<RentalCreationRequest> requests = Arrays.asList(
+                new RentalCreationRequest(customer.getId(), SimpleFixtureFactory.RENTAL_DAYS, filmIds),
+                new RentalCreationRequest(customer.getId(), SimpleFixtureFactory.RENTAL_DAYS, filmIds.subList(0, 1)),
+                new RentalCreationRequest(unknownCustomerId, SimpleFixtureFactory.RENTAL_DAYS, filmIds),
+                new RentalCreationRequest(customer.getId(), null, filmIds));
+
+        List<RentalCreationResult> results = videoRentalService.newRentals(requests);
+
+        Assert.assertEquals(requests.size(), results.size());
+        Assert.assertTrue(results.get(0).isCreated());
+        Assert.assertEquals(films.size(), results.get(0).getRental().getItems().size());
+        Assert.assertEquals(Rental.RENTAL_CREATION_FAILURE_MESSAGE + filmIds.subList(0, 1),
+                results.get(1).getFailureMessage());
+        Assert.assertEquals(VideoRentalService.UNKNOWN_CUSTOMER_MESSAGE + unknownCustomerId,
+                results.get(2).getFailureMessage());
+        Assert.assertEquals(VideoRentalService.INCOMPLETE_RENTAL_REQUEST_MESSAGE, results.get(3).getFailureMessage());
+        Mockito.verify(rentalRepository).saveAll(Collections.singletonList(results.get(0).getRental()));
+        Mockito.verify(rentalRepository).flush();
+    }
+
+    @Test
+    public void newRentalsShouldBeTimedAndCountTheTransitionOfEveryRentalCreated() {
+        Customer customer = fixtureFactory.newCustomer();
+        List<Film> films = fixtureFactory.newFilms();
+        Mockito.when(customerRepository.findAllById(Mockito.any())).thenReturn(Collections.singletonList(customer));
+        Mockito.when(filmRepository.findAllByIdCached(Mockito.any())).thenReturn(films);
+        double transitionsBefore = countNewRentalTransitions();
+        long batchesBefore = countNewRentalsBatches();
+
+        videoRentalService.newRentals(Arrays.asList(
+                new RentalCreationRequest(customer.getId(), SimpleFixtureFactory.RENTAL_DAYS,
+                        Collections.singletonList(films.get(0).getId())),
+                new RentalCreationRequest(customer.getId(), SimpleFixtureFactory.RENTAL_DAYS,
+                        Collections.singletonList(films.get(1).getId())),
+                new RentalCreationRequest(customer.getId(), null, Collections.singletonList(films.get(0).getId()))));
+
+        Assert.assertEquals(2, countNewRentalTransitions() - transitionsBefore, 0);
+        Assert.assertEquals(1, countNewRentalsBatches() - batchesBefore);
+    }
+
+    @Test(expected = DataIntegrityViolationException.class)
+    public void newRentalsRejectedByTheDatabaseShouldThrowExceptionRatherThanReportThemCreated() {
+        Customer customer = fixtureFactory.newCustomer();
+        List<Film> films = fixtureFactory.newFilms();
+        List<Long> filmIds = films.stream().map(Film::getId).collect(Collectors.toList());
+        Mockito.when(customerRepository.findAllById(Mockito.any())).thenReturn(Collections.singletonList(customer));
+        Mockito.when(filmRepository.findAllByIdCached(Mockito.any())).thenReturn(films);
+        Mockito.doThrow(new DataIntegrityViolationException("constraint violation")).when(rentalRepository).flush();
+
+        videoRentalService.newRentals(Collections.singletonList(
+                new RentalCreationRequest(customer.getId(), SimpleFixtureFactory.RENTAL_DAYS, filmIds)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void newRentalsWithMoreRentalsThanTheMaximumBatchSizeShouldThrowException() {
+        videoRentalService.newRentals(Collections.nCopies(1001,
+                new RentalCreationRequest(SimpleFixtureFactory.CUSTOMER_ID, SimpleFixtureFactory.RENTAL_DAYS,
+                        Collections.singletonList(SimpleFixtureFactory.FILM_ID_1))));
+    }
 
     @Test
     public void performPaymentWithPendingPaymentAndAwaitingPaymentRentalShouldAddBonusPointsChangeRentalToPayment() {
@@ -62,6 +173,57 @@ public class VideoRentalServiceTests {
                 RentalStatus.PAID, 0, PaymentStatus.DONE, RentalStatus.PAID);
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void newRentalWithFilmsBeingClaimedShouldThrowException() {
+        List<Long> filmIds = Arrays.asList(SimpleFixtureFactory.FILM_ID_1, SimpleFixtureFactory.FILM_ID_2);
+        Mockito.when(filmReservationService.findClaimed(filmIds))
+                .thenReturn(Collections.singletonList(SimpleFixtureFactory.FILM_ID_2));
+        try {
+            videoRentalService.newRental(SimpleFixtureFactory.CUSTOMER_ID, SimpleFixtureFactory.RENTAL_DAYS, filmIds);
+        } finally {
+            Mockito.verify(customerRepository, Mockito.never()).findById(Mockito.any());
+        }
+    }
+
+    @Test
+    public void performPaymentWithPendingPaymentAndAwaitingPaymentRentalShouldClaimAllFilms() {
+        Rental someRental = fixtureFactory.newRentalWithItems();
+        Payment payment = someRental.getPendingPayment();
+        Mockito.when(paymentRepository.findById(payment.getId())).thenReturn(Optional.of(payment));
+        videoRentalService.performPayment(payment.getId());
+
+        List<Long> filmIds = someRental.getItems().stream().map(i -> i.getFilm().getId()).collect(Collectors.toList());
+        Mockito.verify(filmReservationService).claim(filmIds);
+    }
+
+    @Test
+    public void performPaymentWithFilmsLostToOtherClaimsShouldThrowExceptionAndLeaveRentalUntouched() {
+        Rental someRental = fixtureFactory.newRentalWithItems();
+        Payment payment = someRental.getPendingPayment();
+        Mockito.when(paymentRepository.findById(payment.getId())).thenReturn(Optional.of(payment));
+        Mockito.when(filmReservationService.claim(Mockito.any()))
+                .thenReturn(Collections.singletonList(SimpleFixtureFactory.FILM_ID_1));
+        try {
+            videoRentalService.performPayment(payment.getId());
+            Assert.fail();
+        } catch (ConcurrentModificationException cme) {
+            Assert.assertEquals(RentalStatus.AWAITING_PAYMENT, someRental.getStatus());
+            Assert.assertEquals(PaymentStatus.PENDING, payment.getStatus());
+            Mockito.verify(paymentRepository, Mockito.never()).saveAndFlush(Mockito.any());
+        }
+    }
+
+    @Test
+    public void performPaymentWithPendingPaymentAndAwaitingPaymentOverdueRentalShouldClaimNoFilms() {
+        Rental someRental = fixtureFactory.newRentalWithItems();
+        someRental.setStatus(RentalStatus.AWAITING_PAYMENT_OVERDUE);
+        Payment payment = someRental.getPendingPayment();
+        Mockito.when(paymentRepository.findById(payment.getId())).thenReturn(Optional.of(payment));
+        videoRentalService.performPayment(payment.getId());
+
+        Mockito.verify(filmReservationService, Mockito.never()).claim(Mockito.any());
+    }
+
     public void performPaymentWithPaymentStatusAndRentalStatusShouldModifyStatusAndPoints(
             PaymentStatus sourcePaymentStatus, RentalStatus sourceRentalStatus, long expectedPointsInCard,
             PaymentStatus expectedPaymentStatus, RentalStatus expectedRentalStatus) {
@@ -82,4 +244,16 @@ public class VideoRentalServiceTests {
         Assert.assertEquals(expectedPaymentStatus, payment.getStatus());
         Assert.assertEquals(Long.valueOf(expectedPointsInCard), customer.getPointsInCard());
     }
+
+    private double countNewRentalTransitions() {
+        Counter transitions = meterRegistry.find(RentalMetrics.TRANSITIONS_COUNTER)
+                .tags("from", RentalMetrics.NO_STATUS, "to", RentalStatus.AWAITING_PAYMENT.name()).counter();
+        return transitions == null ? 0 : transitions.count();
+    }
+
+    private long countNewRentalsBatches() {
+        Timer batches = meterRegistry.find(RentalMetrics.OPERATIONS_TIMER)
+                .tags("operation", RentalMetrics.NEW_RENTALS, "outcome", RentalMetrics.SUCCESS_OUTCOME).timer();
+        return batches == null ? 0 : batches.count();
+    }
 }
@@ -0,0 +1,80 @@
+package com.chompchompfig.store.infrastructure.jpa;
+
+import com.chompchompfig.store.domain.Film;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = JpaContextConfiguration.class, properties = "spring.datasource.generate-unique-name=true")
+public class FilmRepositoryTests {
+
+    public static final Long AVAILABLE_FILM_ID = 1l;
+    public static final Long UNAVAILABLE_FILM_ID = 4l;
+
+    @Autowired
+    private FilmRepository filmRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void claimAvailableShouldReturnExactlyTheUnavailableFilms() {
+        List<Long> unavailableFilmIds = inRolledBackTransaction(() ->
+                filmRepository.claimAvailable(Arrays.asList(AVAILABLE_FILM_ID, UNAVAILABLE_FILM_ID)));
+        Assert.assertEquals(Collections.singletonList(UNAVAILABLE_FILM_ID), unavailableFilmIds);
+    }
+
+    @Test
+    public void claimAvailableShouldMakeClaimedFilmsUnavailable() {
+        List<Long> unavailableFilmIds = inRolledBackTransaction(() -> {
+            filmRepository.claimAvailable(Collections.singletonList(AVAILABLE_FILM_ID));
+            return filmRepository.claimAvailable(Collections.singletonList(AVAILABLE_FILM_ID));
+        });
+        Assert.assertEquals(Collections.singletonList(AVAILABLE_FILM_ID), unavailableFilmIds);
+    }
+
+    @Test
+    public void findAllByIdCachedShouldFindTheFilmsAndPutThemInTheCache() {
+        List<Long> filmIds = Arrays.asList(AVAILABLE_FILM_ID, UNAVAILABLE_FILM_ID);
+        List<Long> foundFilmIds = inRolledBackTransaction(() -> toFilmIds(filmRepository.findAllByIdCached(filmIds)));
+        Assert.assertEquals(filmIds, foundFilmIds);
+        Assert.assertTrue(entityManagerFactory.getCache().contains(Film.class, AVAILABLE_FILM_ID));
+        Assert.assertTrue(entityManagerFactory.getCache().contains(Film.class, UNAVAILABLE_FILM_ID));
+        List<Long> cachedFilmIds = inRolledBackTransaction(() -> toFilmIds(filmRepository.findAllByIdCached(filmIds)));
+        Assert.assertEquals(filmIds, cachedFilmIds);
+    }
+
+    @Test
+    public void claimAvailableShouldEvictClaimedFilmsFromTheCache() {
+        List<Long> filmIds = Collections.singletonList(AVAILABLE_FILM_ID);
+        inRolledBackTransaction(() -> toFilmIds(filmRepository.findAllByIdCached(filmIds)));
+        Assert.assertTrue(entityManagerFactory.getCache().contains(Film.class, AVAILABLE_FILM_ID));
+        inRolledBackTransaction(() -> filmRepository.claimAvailable(filmIds));
+        Assert.assertFalse(entityManagerFactory.getCache().contains(Film.class, AVAILABLE_FILM_ID));
+    }
+
+    private List<Long> toFilmIds(List<Film> films) {
+        return films.stream().map(Film::getId).sorted().collect(Collectors.toList());
+    }
+
+    private List<Long> inRolledBackTransaction(Supplier<List<Long>> work) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            status.setRollbackOnly();
+            return work.get();
+        });
+    }
+}
@@ -0,0 +1,21 @@
+package com.chompchompfig.store.infrastructure.jpa;
+
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * A test context backed by the real JPA Repositories and the embedded database, as opposed to the mocked Repositories
+ * of the domain test context
+ */
+@EnableAutoConfiguration
+@EntityScan("com.chompchompfig.store.domain")
+@EnableJpaRepositories("com.chompchompfig.store.infrastructure.jpa")
+@ComponentScan({"com.chompchompfig.store.infrastructure.rest", "com.chompchompfig.store.application"})
+@Import(SqlStatisticsConfiguration.class)
+@Configuration
+public class JpaContextConfiguration {
+}
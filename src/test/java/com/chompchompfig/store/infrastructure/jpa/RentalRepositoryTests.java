@@ -0,0 +1,53 @@
+package com.chompchompfig.store.infrastructure.jpa;
+
+import com.chompchompfig.store.domain.RentalId;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = JpaContextConfiguration.class, properties = "spring.datasource.generate-unique-name=true")
+public class RentalRepositoryTests {
+
+    public static final RentalId FIRST_SAMPLE_RENTAL_ID = new RentalId(1l, 1l);
+    public static final RentalId SECOND_SAMPLE_RENTAL_ID = new RentalId(2l, 2l);
+
+    @Autowired
+    private RentalRepository rentalRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Test
+    public void findFilmSummariesBetweenShouldFindTheFilmsOfEveryRentalInTheRange() {
+        List<FilmSummary> filmSummaries =
+                rentalRepository.findFilmSummariesBetween(FIRST_SAMPLE_RENTAL_ID, SECOND_SAMPLE_RENTAL_ID);
+        Assert.assertEquals(Arrays.asList(FIRST_SAMPLE_RENTAL_ID, FIRST_SAMPLE_RENTAL_ID, SECOND_SAMPLE_RENTAL_ID),
+                filmSummaries.stream().map(FilmSummary::getRentalId).collect(Collectors.toList()));
+        Assert.assertEquals(Arrays.asList(2l, 3l, 4l),
+                filmSummaries.stream().map(FilmSummary::getFilmId).collect(Collectors.toList()));
+        Assert.assertTrue(filmSummaries.stream().allMatch(f -> f.getName() != null));
+    }
+
+    @Test
+    public void findFilmSummariesBetweenShouldLeaveOutTheRentalsOutsideTheRange() {
+        List<FilmSummary> filmSummaries =
+                rentalRepository.findFilmSummariesBetween(SECOND_SAMPLE_RENTAL_ID, SECOND_SAMPLE_RENTAL_ID);
+        Assert.assertEquals(1, filmSummaries.size());
+        Assert.assertEquals(SECOND_SAMPLE_RENTAL_ID, filmSummaries.get(0).getRentalId());
+    }
+
+    @Test
+    public void findRentalSummariesByCustomerIdInShouldFindOnlyTheRentalsOfTheGivenCustomers() {
+        List<RentalSummary> rentalSummaries = customerRepository.findRentalSummariesByCustomerIdIn(
+                Arrays.asList(FIRST_SAMPLE_RENTAL_ID.getCustomerId(), 3l));
+        Assert.assertEquals(Arrays.asList(FIRST_SAMPLE_RENTAL_ID),
+                rentalSummaries.stream().map(RentalSummary::getId).collect(Collectors.toList()));
+    }
+}
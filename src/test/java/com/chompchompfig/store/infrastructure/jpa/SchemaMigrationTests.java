@@ -0,0 +1,75 @@
+package com.chompchompfig.store.infrastructure.jpa;
+
+import com.chompchompfig.store.domain.Film;
+import com.chompchompfig.store.domain.Payment;
+import com.chompchompfig.store.domain.PaymentStatus;
+import com.chompchompfig.store.domain.Rental;
+import com.chompchompfig.store.domain.RentalId;
+import com.chompchompfig.store.domain.RentalStatus;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = JpaContextConfiguration.class, properties = "spring.datasource.generate-unique-name=true")
+public class SchemaMigrationTests {
+
+    public static final List<String> QUERY_INDEXES = Arrays.asList("IDX_RENTAL_STATUS_START_DATE",
+            "IDX_PAYMENT_STATUS_CUSTOMER", "IDX_PAYMENT_DATE", "IDX_RENTAL_ITEM_FILM", "IDX_FILM_IS_AVAILABLE",
+            "IDX_RENTAL_ITEM_RENTAL", "IDX_PAYMENT_RENTAL");
+    public static final Long UNAVAILABLE_FILM_ID = 4l;
+    public static final Long CUSTOMER_WITH_PENDING_PAYMENT_ID = 1l;
+    public static final Long CUSTOMER_WITH_DONE_PAYMENT_ID = 2l;
+    public static final RentalId PAID_RENTAL_ID = new RentalId(2l, 2l);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private FilmRepository filmRepository;
+    @Autowired
+    private RentalRepository rentalRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Test
+    public void migrationsShouldCreateTheIndexesOfTheQueryColumns() {
+        Set<String> indexes = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES", String.class));
+        Assert.assertTrue(indexes.containsAll(QUERY_INDEXES));
+    }
+
+    @Test
+    public void findByIsAvailableShouldReturnTheFilmsWithTheGivenAvailability() {
+        List<Long> unavailableFilmIds = filmRepository.findByIsAvailable(false).stream().map(Film::getId)
+                .collect(Collectors.toList());
+        Assert.assertEquals(Collections.singletonList(UNAVAILABLE_FILM_ID), unavailableFilmIds);
+        Assert.assertTrue(filmRepository.findByIsAvailable(true).stream().allMatch(Film::isAvailable));
+    }
+
+    @Test
+    public void findByStatusShouldReturnTheRentalsInTheGivenStatus() {
+        List<RentalId> paidRentalIds = rentalRepository.findByStatus(RentalStatus.PAID, PageRequest.of(0, 10))
+                .stream().map(Rental::getId).collect(Collectors.toList());
+        Assert.assertEquals(Collections.singletonList(PAID_RENTAL_ID), paidRentalIds);
+    }
+
+    @Test
+    public void findPendingByCustomerIdShouldReturnOnlyThePendingPaymentsOfTheCustomer() {
+        List<Payment> pendingPayments = paymentRepository.findPendingByCustomerId(CUSTOMER_WITH_PENDING_PAYMENT_ID);
+        Assert.assertEquals(1, pendingPayments.size());
+        Assert.assertEquals(PaymentStatus.PENDING, pendingPayments.get(0).getStatus());
+        Assert.assertTrue(paymentRepository.findPendingByCustomerId(CUSTOMER_WITH_DONE_PAYMENT_ID).isEmpty());
+    }
+}
@@ -1,9 +1,12 @@
 package com.chompchompfig.store.infrastructure.rest;
 
+import com.chompchompfig.store.application.ReadOnlyQueryService;
 import com.chompchompfig.store.domain.Customer;
 import com.chompchompfig.store.domain.SimpleFixtureFactory;
 import com.chompchompfig.store.infrastructure.jpa.CustomerRepository;
+import com.chompchompfig.store.infrastructure.jpa.RentalSummary;
 import com.chompchompfig.store.tools.JsonPathTools;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
@@ -11,13 +14,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -25,16 +33,27 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @WebMvcTest(CustomerController.class)
 public class CustomerControllerTest {
 
+    private static final Integer CUSTOMER_VERSION = 4;
+
     @Autowired
     private MockMvc mockMvc;
     @MockBean
     private CustomerRepository customerRepository;
+    @MockBean
+    private NdjsonExporter ndjsonExporter;
+    @MockBean
+    private ReadOnlyQueryService readOnlyQueryService;
     private JsonPathTools jsonPathTools = new JsonPathTools();
     private SimpleFixtureFactory simpleFixtureFactory = new SimpleFixtureFactory();
 
+    @Before
+    public void setUp() {
+        Mockito.when(readOnlyQueryService.query(any())).thenAnswer(i -> ((Supplier<?>) i.getArgument(0)).get());
+    }
+
     @Test
     public void storeCustomersShouldReturn200OkAndEmptyListBodyWhenNoCustomers() throws Exception {
-        Mockito.when(customerRepository.findAll()).thenReturn(new ArrayList<>());
+        Mockito.when(customerRepository.findAllByOrderByIdAsc(any())).thenReturn(new ArrayList<>());
         this.mockMvc.perform(get("/store/customers")).andExpect(status().isOk())
                 .andExpect(content().contentType(MediaTypes.HAL_JSON_UTF8_VALUE))
                 .andExpect(content().json("{}"));
@@ -52,7 +71,9 @@ public class CustomerControllerTest {
                 SimpleFixtureFactory.CUSTOMER_PHONE_NUMBER_2, SimpleFixtureFactory.RENTAL_ID_2,
                 SimpleFixtureFactory.RENTAL_DAYS));
 
-        Mockito.when(customerRepository.findAll()).thenReturn(customers);
+        Mockito.when(customerRepository.findAllByOrderByIdAsc(any())).thenReturn(customers);
+        Mockito.when(customerRepository.findRentalSummariesByCustomerIdIn(any()))
+                .thenReturn(rentalSummariesOf(customers));
         this.mockMvc.perform(get("/store/customers")).andExpect(status().isOk())
                 .andExpect(content().contentType(MediaTypes.HAL_JSON_UTF8_VALUE))
                 .andExpect(jsonPath("$._embedded['ex:customers'].length()").value(customers.size()))
@@ -90,6 +111,8 @@ public class CustomerControllerTest {
                 SimpleFixtureFactory.CUSTOMER_PHONE_NUMBER, SimpleFixtureFactory.RENTAL_ID,
                 SimpleFixtureFactory.RENTAL_DAYS);
         Mockito.when(customerRepository.findById(SimpleFixtureFactory.CUSTOMER_ID)).thenReturn(Optional.of(customer));
+        Mockito.when(customerRepository.findRentalSummariesByCustomerIdIn(Collections.singletonList(
+                SimpleFixtureFactory.CUSTOMER_ID))).thenReturn(rentalSummariesOf(Collections.singletonList(customer)));
         this.mockMvc.perform(get("/store/customer/" + SimpleFixtureFactory.CUSTOMER_ID))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaTypes.HAL_JSON_UTF8_VALUE))
@@ -98,5 +121,40 @@ public class CustomerControllerTest {
                 .andExpect(jsonPath("$.lastName").value(customer.getLastName()))
                 .andExpect(jsonPath("$._embedded.rentals.length()").value(customer.getRentals().size()));
     }
-}
 
+    @Test
+    public void storeCustomerIdWithMatchingIfNoneMatchShouldReturn304NotModifiedWithoutLoadingRentals()
+            throws Exception {
+        Customer customer = simpleFixtureFactory.newCustomer();
+        simpleFixtureFactory.setVersion(customer, CUSTOMER_VERSION);
+        Mockito.when(customerRepository.findById(SimpleFixtureFactory.CUSTOMER_ID)).thenReturn(Optional.of(customer));
+        Mockito.when(customerRepository.countRentalsById(SimpleFixtureFactory.CUSTOMER_ID)).thenReturn(1l);
+        this.mockMvc.perform(get("/store/customer/" + SimpleFixtureFactory.CUSTOMER_ID)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + CUSTOMER_VERSION + ".1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + CUSTOMER_VERSION + ".1\""));
+        Mockito.verify(customerRepository, Mockito.never()).findRentalSummariesByCustomerIdIn(any());
+    }
+
+    @Test
+    public void storeCustomerIdShouldReturnANewETagOnceTheCustomerHasANewRental() throws Exception {
+        Customer customer = simpleFixtureFactory.newCustomerWithRentalWithNoItems(SimpleFixtureFactory.CUSTOMER_ID,
+                SimpleFixtureFactory.CUSTOMER_FIRST_NAME, SimpleFixtureFactory.CUSTOMER_LAST_NAME,
+                SimpleFixtureFactory.CUSTOMER_PHONE_NUMBER, SimpleFixtureFactory.RENTAL_ID,
+                SimpleFixtureFactory.RENTAL_DAYS);
+        simpleFixtureFactory.setVersion(customer, CUSTOMER_VERSION);
+        Mockito.when(customerRepository.findById(SimpleFixtureFactory.CUSTOMER_ID)).thenReturn(Optional.of(customer));
+        Mockito.when(customerRepository.findRentalSummariesByCustomerIdIn(Collections.singletonList(
+                SimpleFixtureFactory.CUSTOMER_ID))).thenReturn(rentalSummariesOf(Collections.singletonList(customer)));
+        Mockito.when(customerRepository.countRentalsById(SimpleFixtureFactory.CUSTOMER_ID)).thenReturn(2l);
+        this.mockMvc.perform(get("/store/customer/" + SimpleFixtureFactory.CUSTOMER_ID)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + CUSTOMER_VERSION + ".1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + CUSTOMER_VERSION + ".2\""));
+    }
+
+    private List<RentalSummary> rentalSummariesOf(List<Customer> customers) {
+        return customers.stream().flatMap(c -> c.getRentals().stream()).map(RentalSummary::of)
+                .collect(Collectors.toList());
+    }
+}
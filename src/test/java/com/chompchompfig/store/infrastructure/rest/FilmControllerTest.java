@@ -1,24 +1,33 @@
 package com.chompchompfig.store.infrastructure.rest;
 
+import com.chompchompfig.store.application.ReadOnlyQueryService;
+import com.chompchompfig.store.application.FilmAvailabilityIndex;
 import com.chompchompfig.store.domain.Film;
 import com.chompchompfig.store.domain.FilmCategory;
 import com.chompchompfig.store.infrastructure.jpa.FilmRepository;
 import com.chompchompfig.store.tools.JsonPathTools;
 import com.chompchompfig.store.domain.SimpleFixtureFactory;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -27,16 +36,28 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 public class FilmControllerTest {
 
     private static final Long FILM_ID = 1l;
+    private static final Integer FILM_VERSION = 3;
     @Autowired
     private MockMvc mockMvc;
     @MockBean
     private FilmRepository filmRepository;
+    @MockBean
+    private NdjsonExporter ndjsonExporter;
+    @MockBean
+    private FilmAvailabilityIndex filmAvailabilityIndex;
+    @MockBean
+    private ReadOnlyQueryService readOnlyQueryService;
     private JsonPathTools jsonPathTools = new JsonPathTools();
     private SimpleFixtureFactory simpleFixtureFactory = new SimpleFixtureFactory();
 
+    @Before
+    public void setUp() {
+        Mockito.when(readOnlyQueryService.query(any())).thenAnswer(i -> ((Supplier<?>) i.getArgument(0)).get());
+    }
+
     @Test
     public void storeFilmsShouldReturn200OkAndEmptyListBodyWhenNoFilms() throws Exception {
-        Mockito.when(filmRepository.findAll()).thenReturn(new ArrayList<>());
+        Mockito.when(filmRepository.findAllByOrderByIdAsc(any())).thenReturn(new ArrayList<>());
         this.mockMvc.perform(get("/store/films")).andExpect(status().isOk())
                 .andExpect(content().contentType(MediaTypes.HAL_JSON_UTF8_VALUE))
                 .andExpect(content().json("{}"));
@@ -45,7 +66,7 @@ public class FilmControllerTest {
     @Test
     public void storeFilmsShouldReturn200OkAndCorrectBodyWhenFilmsExist() throws Exception {
         List<Film> films = simpleFixtureFactory.newFilms();
-        Mockito.when(filmRepository.findAll()).thenReturn(films);
+        Mockito.when(filmRepository.findAllByOrderByIdAsc(any())).thenReturn(films);
         this.mockMvc.perform(get("/store/films")).andExpect(status().isOk())
                 .andExpect(content().contentType(MediaTypes.HAL_JSON_UTF8_VALUE))
                 .andExpect(jsonPath("$._embedded['ex:films'].length()").value(films.size()))
@@ -63,6 +84,84 @@ public class FilmControllerTest {
                         value(films.get(2).getCategory().toString()));
     }
 
+    @Test
+    public void storeFilmsShouldReturnNextLinkOnlyWhenMoreFilmsThanPageSize() throws Exception {
+        List<Film> films = simpleFixtureFactory.newFilms();
+        Mockito.when(filmRepository.findAllByOrderByIdAsc(PageRequest.of(0, 3))).thenReturn(films);
+        this.mockMvc.perform(get("/store/films?size=2")).andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded['ex:films'].length()").value(2))
+                .andExpect(jsonPath(jsonPathTools.jsonPathForFilmNameInList(1)).value(films.get(1).getName()))
+                .andExpect(jsonPath("$._links.next.href").value("http://localhost/store/films?after=1&size=2"))
+                .andExpect(jsonPath("$._links.prev").doesNotExist());
+    }
+
+    @Test
+    public void storeFilmsAfterCursorShouldReturnPrevLinkAndNoNextLinkOnLastPage() throws Exception {
+        List<Film> films = simpleFixtureFactory.newFilms().subList(1, 3);
+        Mockito.when(filmRepository.findByIdGreaterThanOrderByIdAsc(0l, PageRequest.of(0, 3))).thenReturn(films);
+        this.mockMvc.perform(get("/store/films?size=2&after=0")).andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded['ex:films'].length()").value(2))
+                .andExpect(jsonPath("$._links.prev.href").value("http://localhost/store/films?before=1&size=2"))
+                .andExpect(jsonPath("$._links.next").doesNotExist());
+    }
+
+    @Test
+    public void storeFilmsBeforeCursorShouldReturnFilmsInAscendingOrder() throws Exception {
+        List<Film> films = new ArrayList<>(simpleFixtureFactory.newFilms().subList(0, 2));
+        Collections.reverse(films);
+        Mockito.when(filmRepository.findByIdLessThanOrderByIdDesc(2l, PageRequest.of(0, 3))).thenReturn(films);
+        this.mockMvc.perform(get("/store/films?size=2&before=2")).andExpect(status().isOk())
+                .andExpect(jsonPath(jsonPathTools.jsonPathForFilmNameInList(0))
+                        .value(SimpleFixtureFactory.FILM_NAME_1))
+                .andExpect(jsonPath(jsonPathTools.jsonPathForFilmNameInList(1))
+                        .value(SimpleFixtureFactory.FILM_NAME_2))
+                .andExpect(jsonPath("$._links.next.href").value("http://localhost/store/films?after=1&size=2"))
+                .andExpect(jsonPath("$._links.prev").doesNotExist());
+    }
+
+    @Test
+    public void storeFilmsWithInvalidPageSizeShouldReturn400BadRequest() throws Exception {
+        this.mockMvc.perform(get("/store/films?size=0")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void storeFilmsWithBothCursorsShouldReturn400BadRequest() throws Exception {
+        this.mockMvc.perform(get("/store/films?after=0&before=2")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void storeFilmsAvailableOfCategoryShouldReturnFilmsInTheIndexInIdentifierOrder() throws Exception {
+        List<Film> films = simpleFixtureFactory.newFilms();
+        Mockito.when(filmAvailabilityIndex.findFilmIdsAfter(true, FilmCategory.NEW, null, 3))
+                .thenReturn(Arrays.asList(0l, 2l));
+        Mockito.when(filmRepository.findAllByIdCached(Arrays.asList(0l, 2l)))
+                .thenReturn(Arrays.asList(films.get(2), films.get(0)));
+        this.mockMvc.perform(get("/store/films?available=true&category=NEW&size=2")).andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded['ex:films'].length()").value(2))
+                .andExpect(jsonPath(jsonPathTools.jsonPathForFilmNameInList(0)).value(films.get(0).getName()))
+                .andExpect(jsonPath(jsonPathTools.jsonPathForFilmNameInList(1)).value(films.get(2).getName()))
+                .andExpect(jsonPath("$._links.next").doesNotExist());
+        Mockito.verify(filmRepository, Mockito.never()).findAllByOrderByIdAsc(any());
+    }
+
+    @Test
+    public void storeFilmsAvailableAfterCursorShouldSeekInTheIndex() throws Exception {
+        List<Film> films = simpleFixtureFactory.newFilms();
+        Mockito.when(filmAvailabilityIndex.findFilmIdsAfter(true, null, 0l, 2))
+                .thenReturn(Arrays.asList(1l, 2l));
+        Mockito.when(filmRepository.findAllByIdCached(Arrays.asList(1l, 2l))).thenReturn(films.subList(1, 3));
+        this.mockMvc.perform(get("/store/films?available=true&after=0&size=1")).andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded['ex:films'].length()").value(1))
+                .andExpect(jsonPath(jsonPathTools.jsonPathForFilmNameInList(0)).value(films.get(1).getName()))
+                .andExpect(jsonPath("$._links.next.href")
+                        .value("http://localhost/store/films?available=true&after=1&size=1"));
+    }
+
+    @Test
+    public void storeFilmsWithInvalidCategoryShouldReturn400BadRequest() throws Exception {
+        this.mockMvc.perform(get("/store/films?available=true&category=ANCIENT")).andExpect(status().isBadRequest());
+    }
+
     @Test
     public void storeFilmIdWithNonExistingIdShouldReturn404NotFound() throws Exception {
         long nonExistingFilmId = 1l;
@@ -81,4 +180,25 @@ public class FilmControllerTest {
                 .andExpect(jsonPath("$.name").value(someOldFilm.getName()))
                 .andExpect(jsonPath("$.category").value(someOldFilm.getCategory().toString()));
     }
+
+    @Test
+    public void storeFilmIdShouldReturnETagDerivedFromTheFilmVersion() throws Exception {
+        Film someOldFilm = simpleFixtureFactory.newFilmOfCategory(FILM_ID, SimpleFixtureFactory.FILM_NAME_1,
+                FilmCategory.OLD, FILM_VERSION);
+        Mockito.when(filmRepository.findById(FILM_ID)).thenReturn(Optional.of(someOldFilm));
+        this.mockMvc.perform(get("/store/film/" + FILM_ID)).andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + FILM_VERSION + "\""));
+    }
+
+    @Test
+    public void storeFilmIdWithMatchingIfNoneMatchShouldReturn304NotModified() throws Exception {
+        Film someOldFilm = simpleFixtureFactory.newFilmOfCategory(FILM_ID, SimpleFixtureFactory.FILM_NAME_1,
+                FilmCategory.OLD, FILM_VERSION);
+        Mockito.when(filmRepository.findById(FILM_ID)).thenReturn(Optional.of(someOldFilm));
+        this.mockMvc.perform(get("/store/film/" + FILM_ID).header(HttpHeaders.IF_NONE_MATCH, "\"" + FILM_VERSION + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        this.mockMvc.perform(get("/store/film/" + FILM_ID).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk());
+    }
 }
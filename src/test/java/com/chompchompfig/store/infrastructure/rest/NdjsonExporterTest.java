@@ -0,0 +1,89 @@
+package com.chompchompfig.store.infrastructure.rest;
+
+import com.chompchompfig.store.infrastructure.jpa.JpaContextConfiguration;
+import com.chompchompfig.store.infrastructure.jpa.PaymentRepository;
+import com.chompchompfig.store.infrastructure.jpa.RentalRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = JpaContextConfiguration.class, properties = {
+        "spring.datasource.generate-unique-name=true",
+        "store.export.chunk-size=1"})
+@AutoConfigureMockMvc
+public class NdjsonExporterTest {
+
+    public static final String SAMPLE_PAYMENTS_DAY = "2018-06-06";
+    public static final String DAY_AFTER_SAMPLE_PAYMENTS_DAY = "2018-06-07";
+    public static final int SAMPLE_PAYMENTS_ON_SAMPLE_PAYMENTS_DAY = 2;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private RentalRepository rentalRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void exportRentalsShouldWriteEveryRentalInItsOwnLine() throws Exception {
+        List<JsonNode> rentals = export("/store/rentals:export");
+        Assert.assertEquals(rentalRepository.count(), rentals.size());
+        for (JsonNode rental : rentals) {
+            Assert.assertTrue(rental.has("rentalId"));
+            Assert.assertTrue(rental.get("filmIds").size() > 0);
+            Assert.assertFalse(rental.has("_links"));
+        }
+    }
+
+    @Test
+    public void exportPaymentsShouldWriteEveryPaymentInItsOwnLine() throws Exception {
+        List<JsonNode> payments = export("/store/payments:export");
+        Assert.assertEquals(paymentRepository.count(), payments.size());
+    }
+
+    @Test
+    public void exportPaymentsWithinAPeriodShouldWriteOnlyThePaymentsDatedWithinThePeriod() throws Exception {
+        List<JsonNode> payments = export("/store/payments:export?from=" + SAMPLE_PAYMENTS_DAY +
+                "&to=" + DAY_AFTER_SAMPLE_PAYMENTS_DAY);
+        Assert.assertEquals(SAMPLE_PAYMENTS_ON_SAMPLE_PAYMENTS_DAY, payments.size());
+        Assert.assertTrue(export("/store/payments:export?from=" + DAY_AFTER_SAMPLE_PAYMENTS_DAY +
+                "&to=" + DAY_AFTER_SAMPLE_PAYMENTS_DAY).isEmpty());
+    }
+
+    @Test
+    public void exportPaymentsWithMalformedDateShouldReturn400BadRequest() throws Exception {
+        this.mockMvc.perform(get("/store/payments:export?from=06-06-2018")).andExpect(status().isBadRequest());
+    }
+
+    private List<JsonNode> export(String uri) throws Exception {
+        MvcResult asyncResult = this.mockMvc.perform(get(uri)).andExpect(request().asyncStarted()).andReturn();
+        String body = this.mockMvc.perform(asyncDispatch(asyncResult)).andExpect(status().isOk())
+                .andExpect(content().contentType(NdjsonExporter.NDJSON_MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsString();
+        List<JsonNode> documents = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            if (!line.isEmpty()) {
+                documents.add(objectMapper.readTree(line));
+            }
+        }
+        Assert.assertTrue(body.isEmpty() || body.endsWith("\n"));
+        return documents;
+    }
+}
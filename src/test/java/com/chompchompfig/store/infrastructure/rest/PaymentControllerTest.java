@@ -1,10 +1,14 @@
 package com.chompchompfig.store.infrastructure.rest;
 
+import com.chompchompfig.store.application.PaymentRequestProcessor;
+import com.chompchompfig.store.application.ReadOnlyQueryService;
 import com.chompchompfig.store.domain.Payment;
+import com.chompchompfig.store.domain.PaymentRequest;
 import com.chompchompfig.store.domain.PaymentStatus;
 import com.chompchompfig.store.domain.SimpleFixtureFactory;
 import com.chompchompfig.store.infrastructure.jpa.PaymentRepository;
 import com.chompchompfig.store.tools.JsonPathTools;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
@@ -12,14 +16,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
+import static org.hamcrest.Matchers.endsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 
@@ -27,16 +39,30 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @WebMvcTest(PaymentController.class)
 public class PaymentControllerTest {
 
+    private static final Integer PAYMENT_VERSION = 1;
+    private static final String IDEMPOTENCY_KEY = "3f6e0c1a-retry";
+
     @Autowired
     private MockMvc mockMvc;
     @MockBean
     private PaymentRepository paymentRepository;
+    @MockBean
+    private NdjsonExporter ndjsonExporter;
+    @MockBean
+    private ReadOnlyQueryService readOnlyQueryService;
+    @MockBean
+    private PaymentRequestProcessor paymentRequestProcessor;
     private JsonPathTools jsonPathTools = new JsonPathTools();
     private SimpleFixtureFactory simpleFixtureFactory = new SimpleFixtureFactory();
 
+    @Before
+    public void setUp() {
+        Mockito.when(readOnlyQueryService.query(any())).thenAnswer(i -> ((Supplier<?>) i.getArgument(0)).get());
+    }
+
     @Test
     public void storePaymentsShouldReturn200OkAndEmptyListBodyWhenNoFilms() throws Exception {
-        Mockito.when(paymentRepository.findAll()).thenReturn(new ArrayList<>());
+        Mockito.when(paymentRepository.findFirstPage(any())).thenReturn(new ArrayList<>());
         this.mockMvc.perform(get("/store/payments")).andExpect(status().isOk())
                 .andExpect(content().contentType(MediaTypes.HAL_JSON_UTF8_VALUE))
                 .andExpect(content().json("{}"));
@@ -54,7 +80,7 @@ public class PaymentControllerTest {
         payments.add(payment1);
         payments.add(payment2);
 
-        Mockito.when(paymentRepository.findAll()).thenReturn(payments);
+        Mockito.when(paymentRepository.findFirstPage(any())).thenReturn(payments);
         this.mockMvc.perform(get("/store/payments")).andExpect(status().isOk())
                 .andExpect(content().contentType(MediaTypes.HAL_JSON_UTF8_VALUE))
                 .andExpect(jsonPath("$._embedded['ex:payments'].length()").value(payments.size()))
@@ -105,5 +131,63 @@ public class PaymentControllerTest {
                 .andExpect(jsonPath("$.status").value(somePayment.getStatus().toString()));
         // extract method with expectations
     }
-}
 
+    @Test
+    public void storePaymentIdWithMatchingIfNoneMatchShouldReturn304NotModified() throws Exception {
+        Payment somePayment =
+                simpleFixtureFactory.newPaymentShallow(SimpleFixtureFactory.PAYMENT_ID_1.toString(),
+                        100, PaymentStatus.PENDING);
+        simpleFixtureFactory.setVersion(somePayment, PAYMENT_VERSION);
+        Mockito.when(paymentRepository.findById(SimpleFixtureFactory.PAYMENT_ID_1)).
+                thenReturn(Optional.of(somePayment));
+        this.mockMvc.perform(get("/store/payment/" + SimpleFixtureFactory.PAYMENT_ID_1.toString())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + PAYMENT_VERSION + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + PAYMENT_VERSION + "\""));
+    }
+
+    @Test
+    public void fulfillPaymentWithIdempotencyKeyShouldPerformThePaymentThroughItsRequest() throws Exception {
+        Payment somePayment =
+                simpleFixtureFactory.newPaymentShallow(SimpleFixtureFactory.PAYMENT_ID_1.toString(),
+                        100, PaymentStatus.DONE);
+        Mockito.when(paymentRequestProcessor.perform(IDEMPOTENCY_KEY, SimpleFixtureFactory.PAYMENT_ID_1))
+                .thenReturn(somePayment);
+        this.mockMvc.perform(post("/store/payment/" + SimpleFixtureFactory.PAYMENT_ID_1.toString())
+                .header(PaymentController.IDEMPOTENCY_KEY_HEADER, IDEMPOTENCY_KEY))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.paymentId.id").value(somePayment.getId().getId()))
+                .andExpect(jsonPath("$.status").value(PaymentStatus.DONE.toString()));
+    }
+
+    @Test
+    public void fulfillPaymentRespondingAsyncShouldReturn202AcceptedWithPaymentRequestLocation() throws Exception {
+        PaymentRequest paymentRequest = new PaymentRequest(IDEMPOTENCY_KEY, SimpleFixtureFactory.PAYMENT_ID_1);
+        Mockito.when(paymentRequestProcessor.submit(IDEMPOTENCY_KEY, SimpleFixtureFactory.PAYMENT_ID_1))
+                .thenReturn(paymentRequest);
+        this.mockMvc.perform(post("/store/payment/" + SimpleFixtureFactory.PAYMENT_ID_1.toString())
+                .header(PaymentController.IDEMPOTENCY_KEY_HEADER, IDEMPOTENCY_KEY)
+                .header(PaymentController.PREFER_HEADER, PaymentController.RESPOND_ASYNC_PREFERENCE))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, endsWith("/store/payment-request/" +
+                        IDEMPOTENCY_KEY)))
+                .andExpect(header().string(PaymentController.PREFERENCE_APPLIED_HEADER,
+                        PaymentController.RESPOND_ASYNC_PREFERENCE))
+                .andExpect(jsonPath("$.idempotencyKey").value(IDEMPOTENCY_KEY))
+                .andExpect(jsonPath("$.status").value(paymentRequest.getStatus().toString()));
+    }
+
+    @Test
+    public void fulfillPaymentRespondingAsyncWithFullQueueShouldReturn503ServiceUnavailable() throws Exception {
+        Mockito.when(paymentRequestProcessor.submit(anyString(), eq(SimpleFixtureFactory.PAYMENT_ID_1)))
+                .thenThrow(new RejectedExecutionException(PaymentRequestProcessor.QUEUE_FULL_MESSAGE));
+        this.mockMvc.perform(post("/store/payment/" + SimpleFixtureFactory.PAYMENT_ID_1.toString())
+                .header(PaymentController.PREFER_HEADER, PaymentController.RESPOND_ASYNC_PREFERENCE))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void storePaymentRequestWithNonExistingKeyShouldReturn404NotFound() throws Exception {
+        this.mockMvc.perform(get("/store/payment-request/" + IDEMPOTENCY_KEY)).andExpect(status().isNotFound());
+    }
+}
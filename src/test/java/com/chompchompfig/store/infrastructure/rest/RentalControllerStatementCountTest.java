@@ -0,0 +1,72 @@
+package com.chompchompfig.store.infrastructure.rest;
+
+import com.chompchompfig.store.application.VideoRentalService;
+import com.chompchompfig.store.infrastructure.jpa.JpaContextConfiguration;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = JpaContextConfiguration.class, properties = {
+        "spring.datasource.generate-unique-name=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.javax.cache.uri=urn:store:statement-count-test"})
+@AutoConfigureMockMvc
+@DirtiesContext
+public class RentalControllerStatementCountTest {
+
+    private static final long[] CUSTOMER_IDS = {1l, 2l, 3l};
+    private static final int SAMPLE_RENTALS = 2;
+    private static final int RENTALS_PER_CUSTOMER = 4;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private VideoRentalService videoRentalService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    private Statistics statistics;
+
+    @Before
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void storeRentalsShouldIssueTheSameNumberOfStatementsRegardlessOfTheNumberOfRentals() throws Exception {
+        long statementsForSampleRentals = countStatementsForRentalsPage(SAMPLE_RENTALS);
+
+        for (long customerId : CUSTOMER_IDS) {
+            for (int i = 0; i < RENTALS_PER_CUSTOMER; i++) {
+                videoRentalService.newRental(customerId, 1, Arrays.asList(1l, 2l, 3l));
+            }
+        }
+        int allRentals = SAMPLE_RENTALS + CUSTOMER_IDS.length * RENTALS_PER_CUSTOMER;
+        long statementsForAllRentals = countStatementsForRentalsPage(allRentals);
+
+        Assert.assertEquals(statementsForSampleRentals, statementsForAllRentals);
+    }
+
+    private long countStatementsForRentalsPage(int expectedRentals) throws Exception {
+        statistics.clear();
+        this.mockMvc.perform(get("/store/rentals")).andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.rentals.length()").value(expectedRentals));
+        return statistics.getPrepareStatementCount();
+    }
+}
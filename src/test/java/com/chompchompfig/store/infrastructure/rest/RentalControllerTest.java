@@ -1,9 +1,13 @@
 package com.chompchompfig.store.infrastructure.rest;
 
+import com.chompchompfig.store.application.ReadOnlyQueryService;
+import com.chompchompfig.store.application.RentalCreationResult;
 import com.chompchompfig.store.application.VideoRentalService;
 import com.chompchompfig.store.domain.*;
+import com.chompchompfig.store.infrastructure.jpa.FilmSummary;
 import com.chompchompfig.store.infrastructure.jpa.RentalRepository;
 import com.chompchompfig.store.tools.JsonPathTools;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
@@ -11,31 +15,50 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @RunWith(SpringRunner.class)
 @WebMvcTest(RentalController.class)
 public class RentalControllerTest {
 
+    private static final Integer RENTAL_VERSION = 2;
+
     @Autowired
     private MockMvc mockMvc;
     @MockBean
     private RentalRepository rentalRepository;
     @MockBean
     private VideoRentalService videoRentalService;
+    @MockBean
+    private NdjsonExporter ndjsonExporter;
+    @MockBean
+    private ReadOnlyQueryService readOnlyQueryService;
     private JsonPathTools jsonPathTools = new JsonPathTools();
     private SimpleFixtureFactory simpleFixtureFactory = new SimpleFixtureFactory();
 
+    @Before
+    public void setUp() {
+        Mockito.when(readOnlyQueryService.query(any())).thenAnswer(i -> ((Supplier<?>) i.getArgument(0)).get());
+    }
+
     @Test
     public void storeRentalsShouldReturn200OkAndEmptyListBodyWhenNoRentals() throws Exception {
-        Mockito.when(rentalRepository.findAll()).thenReturn(new ArrayList<>());
+        Mockito.when(rentalRepository.findFirstPage(any())).thenReturn(new ArrayList<>());
         this.mockMvc.perform(get("/store/rentals")).andExpect(status().isOk())
                 .andExpect(content().contentType(MediaTypes.HAL_JSON_UTF8_VALUE))
                 .andExpect(content().json("{}"));
@@ -62,7 +85,9 @@ public class RentalControllerTest {
         rentals.addAll(customer1.getRentals());
         rentals.addAll(customer2.getRentals());
 
-        Mockito.when(rentalRepository.findAll()).thenReturn(rentals);
+        Mockito.when(rentalRepository.findFirstPage(any())).thenReturn(rentals);
+        Mockito.when(rentalRepository.findFilmSummariesBetween(rentals.get(0).getId(), rentals.get(1).getId()))
+                .thenReturn(filmSummariesOf(rentals));
         this.mockMvc.perform(get("/store/rentals")).andExpect(status().isOk())
                 .andExpect(content().contentType(MediaTypes.HAL_JSON_UTF8_VALUE))
                 .andExpect(jsonPath("$._embedded['ex:rentals'].length()").value(rentals.size()))
@@ -88,4 +113,89 @@ public class RentalControllerTest {
                         .value(customer2.getLastName() + ", " + customer2.getFirstName()));
     }
 
+    @Test
+    public void storeRentalsAfterCursorShouldSeekFromTheGivenRentalId() throws Exception {
+        Film film = simpleFixtureFactory.newFilmOfCategory(
+                SimpleFixtureFactory.FILM_ID_1, SimpleFixtureFactory.FILM_NAME_1, FilmCategory.OLD);
+        Customer customer = simpleFixtureFactory.newCustomerWithRentalWithItems(SimpleFixtureFactory.CUSTOMER_ID,
+                SimpleFixtureFactory.CUSTOMER_FIRST_NAME, SimpleFixtureFactory.CUSTOMER_LAST_NAME,
+                SimpleFixtureFactory.CUSTOMER_PHONE_NUMBER, SimpleFixtureFactory.RENTAL_ID,
+                SimpleFixtureFactory.RENTAL_DAYS, film);
+        Rental rental = customer.getRentals().get(0);
+        RentalId after = RentalId.from(SimpleFixtureFactory.CUSTOMER_ID + "." + (SimpleFixtureFactory.RENTAL_ID - 1));
+        Mockito.when(rentalRepository.findPageAfter(eq(after), any())).thenReturn(Collections.singletonList(rental));
+        this.mockMvc.perform(get("/store/rentals?after=" + after)).andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded['ex:rentals'].length()").value(1))
+                .andExpect(jsonPath("$._links.prev.href")
+                        .value("http://localhost/store/rentals?before=" + rental.getId() + "&size=20"))
+                .andExpect(jsonPath("$._links.next").doesNotExist());
+    }
+
+    @Test
+    public void storeRentalsWithMalformedCursorShouldReturn400BadRequest() throws Exception {
+        this.mockMvc.perform(get("/store/rentals?after=1-1")).andExpect(status().isBadRequest())
+                .andExpect(content().string(RentalId.RENTAL_ID_PARSING_ERROR_MESSAGE));
+    }
+
+    @Test
+    public void storeRentalIdWithMatchingIfNoneMatchShouldReturn304NotModified() throws Exception {
+        Rental rental = simpleFixtureFactory.newRentalWithItems();
+        simpleFixtureFactory.setVersion(rental, RENTAL_VERSION);
+        simpleFixtureFactory.setRentalStartDate(rental, new Date());
+        Mockito.when(rentalRepository.findById(rental.getId())).thenReturn(Optional.of(rental));
+        this.mockMvc.perform(get("/store/rental/" + rental.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + RENTAL_VERSION + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + RENTAL_VERSION + "\""));
+    }
+
+    @Test
+    public void storeRentalIdShouldReturnANewETagOnceTheRentalIsOverdue() throws Exception {
+        Rental rental = simpleFixtureFactory.newRentalWithItems();
+        simpleFixtureFactory.setVersion(rental, RENTAL_VERSION);
+        simpleFixtureFactory.setRentalStartDate(rental, Date.from(LocalDate.now()
+                .minusDays(SimpleFixtureFactory.RENTAL_DAYS + 1).atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        Mockito.when(rentalRepository.findById(rental.getId())).thenReturn(Optional.of(rental));
+        this.mockMvc.perform(get("/store/rental/" + rental.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + RENTAL_VERSION + "\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.overdue").value(true))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + RENTAL_VERSION + ".overdue\""));
+    }
+
+    @Test
+    public void storeRentalIdWithMalformedIdShouldReturn400BadRequest() throws Exception {
+        this.mockMvc.perform(get("/store/rental/1.")).andExpect(status().isBadRequest())
+                .andExpect(content().string(RentalId.RENTAL_ID_PARSING_ERROR_MESSAGE));
+    }
+
+    @Test
+    public void storeRentalsBatchShouldReturn200OkAndTheOutcomeOfEveryRental() throws Exception {
+        Film film = simpleFixtureFactory.newFilmOfCategory(
+                SimpleFixtureFactory.FILM_ID_1, SimpleFixtureFactory.FILM_NAME_1, FilmCategory.OLD);
+        Customer customer = simpleFixtureFactory.newCustomerWithRentalWithItems(SimpleFixtureFactory.CUSTOMER_ID,
+                SimpleFixtureFactory.CUSTOMER_FIRST_NAME, SimpleFixtureFactory.CUSTOMER_LAST_NAME,
+                SimpleFixtureFactory.CUSTOMER_PHONE_NUMBER, SimpleFixtureFactory.RENTAL_ID,
+                SimpleFixtureFactory.RENTAL_DAYS, film);
+        Rental rental = customer.getRentals().get(0);
+        String failureMessage = Rental.RENTAL_CREATION_FAILURE_MESSAGE + "[" + film.getId() + "]";
+        Mockito.when(videoRentalService.newRentals(any())).thenReturn(Arrays.asList(
+                RentalCreationResult.created(0, rental), RentalCreationResult.failed(1, failureMessage)));
+        String body = "[{\"customerId\":" + customer.getId() + ",\"days\":2,\"filmIds\":[" + film.getId() + "]}," +
+                "{\"customerId\":" + customer.getId() + ",\"days\":2,\"filmIds\":[" + film.getId() + "]}]";
+        this.mockMvc.perform(post("/store/rentals:batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded['ex:results'].length()").value(2))
+                .andExpect(jsonPath("$._embedded['ex:results'][0].status")
+                        .value(RentalCreationResultResource.CREATED_STATUS))
+                .andExpect(jsonPath("$._embedded['ex:results'][0].rental.rentalId.id").value(rental.getId().getId()))
+                .andExpect(jsonPath("$._embedded['ex:results'][1].status")
+                        .value(RentalCreationResultResource.FAILED_STATUS))
+                .andExpect(jsonPath("$._embedded['ex:results'][1].message").value(failureMessage));
+    }
+
+    private List<FilmSummary> filmSummariesOf(List<Rental> rentals) {
+        return rentals.stream().flatMap(r -> r.getItems().stream().map(ri -> FilmSummary.of(r.getId(), ri.getFilm())))
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,69 @@
+package com.chompchompfig.store.infrastructure.rest;
+
+import com.chompchompfig.store.domain.PaymentId;
+import com.chompchompfig.store.domain.RentalId;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.hateoas.Link;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
+
+public class ResourceLinksTest {
+
+    public static final RentalId SAMPLE_RENTAL_ID = new RentalId(1L, 2L);
+    public static final PaymentId SAMPLE_PAYMENT_ID = new PaymentId(1L, 2L, 3L);
+    public static final Long SAMPLE_ID = 7L;
+    public static final String SAMPLE_IDEMPOTENCY_KEY = "8f1c2d3e";
+
+    @Before
+    public void bindRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setServerName("store.example.com");
+        request.setServerPort(8080);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @After
+    public void unbindRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void linkTemplatesShouldExpandToTheSameHrefsAsMethodOn() {
+        Assert.assertEquals(linkTo(methodOn(FilmController.class).getFilm(SAMPLE_ID, null)).toString(),
+                ResourceLinks.FILM.expand(SAMPLE_ID));
+        Assert.assertEquals(linkTo(methodOn(CustomerController.class).getCustomer(SAMPLE_ID, null)).toString(),
+                ResourceLinks.CUSTOMER.expand(SAMPLE_ID));
+        Assert.assertEquals(linkTo(methodOn(RentalController.class).getRental(SAMPLE_RENTAL_ID, null)).toString(),
+                ResourceLinks.RENTAL.expand(SAMPLE_RENTAL_ID));
+        Assert.assertEquals(linkTo(methodOn(RentalController.class).returnRental(SAMPLE_RENTAL_ID)).toString(),
+                ResourceLinks.RETURN_RENTAL.expand(SAMPLE_RENTAL_ID));
+        Assert.assertEquals(linkTo(methodOn(RentalController.class).updateRental(SAMPLE_RENTAL_ID, null)).toString(),
+                ResourceLinks.MODIFY_RENTAL.expand(SAMPLE_RENTAL_ID));
+        Assert.assertEquals(linkTo(methodOn(PaymentController.class).getPayment(SAMPLE_PAYMENT_ID, null)).toString(),
+                ResourceLinks.PAYMENT.expand(SAMPLE_PAYMENT_ID));
+        Assert.assertEquals(linkTo(methodOn(PaymentController.class).fulfillPayment(SAMPLE_PAYMENT_ID, null, null))
+                .toString(), ResourceLinks.FULFILL_PAYMENT.expand(SAMPLE_PAYMENT_ID));
+        Assert.assertEquals(linkTo(methodOn(PaymentController.class).getPaymentRequest(SAMPLE_IDEMPOTENCY_KEY))
+                .toString(), ResourceLinks.PAYMENT_REQUEST.expand(SAMPLE_IDEMPOTENCY_KEY));
+    }
+
+    @Test
+    public void linkTemplatesShouldTakeTheBaseUriFromTheCurrentRequest() {
+        Link selfLink = ResourceLinks.RENTAL.toSelfLink(SAMPLE_RENTAL_ID);
+        Assert.assertEquals("http://store.example.com:8080/store/rental/" + SAMPLE_RENTAL_ID, selfLink.getHref());
+        Assert.assertEquals(Link.REL_SELF, selfLink.getRel());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void linkTemplatesShouldNotExpandOutsideARequest() {
+        RequestContextHolder.resetRequestAttributes();
+        ResourceLinks.FILM.expand(SAMPLE_ID);
+    }
+}
@@ -0,0 +1,64 @@
+package com.chompchompfig.store.infrastructure.rest;
+
+import com.chompchompfig.store.infrastructure.jpa.JpaContextConfiguration;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = JpaContextConfiguration.class, properties = {
+        "spring.datasource.generate-unique-name=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.javax.cache.uri=urn:store:sql-statistics-test",
+        "store.sql-statistics.diagnostic-headers=true"})
+@AutoConfigureMockMvc
+@DirtiesContext
+public class SqlStatisticsFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    private Statistics statistics;
+
+    @Before
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void statementCountHeaderShouldMatchTheStatementsPreparedByHibernate() throws Exception {
+        MockHttpServletResponse response = this.mockMvc.perform(get("/store/rentals"))
+                .andExpect(status().isOk()).andReturn().getResponse();
+
+        Assert.assertTrue(statistics.getPrepareStatementCount() > 0);
+        Assert.assertEquals(String.valueOf(statistics.getPrepareStatementCount()),
+                response.getHeader(SqlStatisticsFilter.STATEMENT_COUNT_HEADER));
+        Assert.assertNotNull(response.getHeader(SqlStatisticsFilter.JDBC_TIME_HEADER));
+    }
+
+    @Test
+    public void entitiesLoadedHeaderShouldCountTheEntitiesLoadedByTheRequest() throws Exception {
+        MockHttpServletResponse response = this.mockMvc.perform(get("/store/rentals"))
+                .andExpect(status().isOk()).andReturn().getResponse();
+
+        Assert.assertEquals(String.valueOf(statistics.getEntityLoadCount()),
+                response.getHeader(SqlStatisticsFilter.ENTITIES_LOADED_HEADER));
+    }
+}